@@ -0,0 +1,67 @@
+package personia.hr.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import personia.hr.config.CachingAuthenticationProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentications per second of one HTTP Basic request, with bcrypt verification on every request
+ * and with verified credentials cached as in SecurityConfig
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthenticationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private AuthenticationProvider authenticationProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        PasswordEncoder encoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        DaoAuthenticationProvider passwordAuthenticationProvider = new DaoAuthenticationProvider();
+        passwordAuthenticationProvider.setPasswordEncoder(encoder);
+        passwordAuthenticationProvider.setUserDetailsService(new InMemoryUserDetailsManager(User
+                .withUsername("admin")
+                .password(encoder.encode("admin"))
+                .roles("ADMIN")
+                .build()));
+        passwordAuthenticationProvider.afterPropertiesSet();
+
+        authenticationProvider = cached
+                ? new CachingAuthenticationProvider(passwordAuthenticationProvider, Duration.ofMinutes(5), 10_000)
+                : passwordAuthenticationProvider;
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        // A new token per request like the Basic authentication filter creates
+        return authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("admin", "admin"));
+    }
+}
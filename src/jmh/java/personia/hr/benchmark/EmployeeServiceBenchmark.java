@@ -0,0 +1,191 @@
+package personia.hr.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import personia.hr.hierarchy.CreatedEmployees;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.hierarchy.EmployeeHierarchyWriter;
+import personia.hr.hierarchy.EmployeeMatch;
+import personia.hr.hierarchy.SupervisorChain;
+import personia.hr.metrics.HierarchyMetrics;
+import personia.hr.repository.HierarchySnapshotRepository;
+import personia.hr.service.impl.EmployeeServiceImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Benchmarks of the hierarchy paths of EmployeeServiceImpl, run with -prof gc to see allocation rates
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EmployeeServiceBenchmark {
+    private static final int LOOKUPS = 1024;
+    private static final int LOOKUP_LEVELS = 2;
+    private static final int MOVES = 4;
+    private static final int WRITE_QUEUE_CAPACITY = 16;
+    private static final int MAX_CONCURRENT_DATABASE_WRITES = 2;
+    private static final String ORGANISATION_ID = "benchmark";
+
+    @Param({"FLAT", "CHAIN", "BALANCED", "SKEWED"})
+    private HierarchyShape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private Map<String, String> employees;
+    // Same employees with a few of them moved
+    private Map<String, String> movedEmployees;
+    private int uploads;
+    private EmployeeServiceImpl employeeService;
+    private EmployeeHierarchy hierarchy;
+    private ObjectMapper objectMapper;
+    private String[] lookupNames;
+    private String[] searchPrefixes;
+    private int lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        employees = shape.generate(size);
+        employeeService = new EmployeeServiceImpl(InMemoryEmployeeRepository.create(),
+                new HierarchyMetrics(new SimpleMeterRegistry()), new HierarchySnapshotRepository(""), Long.MAX_VALUE,
+                WRITE_QUEUE_CAPACITY, MAX_CONCURRENT_DATABASE_WRITES);
+        employeeService.createEmployees(ORGANISATION_ID, employees);
+        hierarchy = employeeService.getEmployeeHierarchy(ORGANISATION_ID);
+        objectMapper = new ObjectMapper();
+
+        lookupNames = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupNames[i] = "E" + (1 + (long) i * (size - 1) / (LOOKUPS - 1));
+        }
+
+        // Lower case start of looked up names, so the search folds case and matches a range of names
+        searchPrefixes = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            searchPrefixes[i] = lookupNames[i].substring(0, Math.min(lookupNames[i].length(), 4)).toLowerCase();
+        }
+        employeeService.searchEmployees(ORGANISATION_ID, "", 1);
+
+        // Employees without reports move under the top supervisor, or under the next one when they already report to him
+        movedEmployees = new LinkedHashMap<>(employees);
+        List<String> leaves = Arrays.stream(lookupNames).distinct()
+                .filter(it -> hierarchy.getEmployees(it).isEmpty())
+                .limit(MOVES + 1)
+                .collect(toList());
+        for (int i = 0; i < Math.min(MOVES, leaves.size()); i++) {
+            String leaf = leaves.get(i);
+            if (!hierarchy.getTopSupervisor().equals(employees.get(leaf))) {
+                movedEmployees.put(leaf, hierarchy.getTopSupervisor());
+            } else if (i + 1 < leaves.size()) {
+                movedEmployees.put(leaf, leaves.get(i + 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public EmployeeHierarchy validate() {
+        return EmployeeHierarchyValidator.validate(employees);
+    }
+
+    // One employee moved under the top supervisor, only the pages and employees ranges it touches are copied
+    @Benchmark
+    public EmployeeHierarchy validateChanges() {
+        lookup = (lookup + 1) % LOOKUPS;
+        return EmployeeHierarchyValidator.validateChanges(hierarchy,
+                Collections.singletonMap(lookupNames[lookup], hierarchy.getTopSupervisor()));
+    }
+
+    // Same employees uploaded again, nothing is written
+    @Benchmark
+    public CreatedEmployees createEmployees() {
+        return employeeService.createEmployees(ORGANISATION_ID, employees);
+    }
+
+    // Uploads alternate between the employees and the same ones with a few moved, so each one writes a few rows
+    @Benchmark
+    public CreatedEmployees createEmployeesWithFewMoves() {
+        return employeeService.createEmployees(ORGANISATION_ID, uploads++ % 2 == 0 ? movedEmployees : employees);
+    }
+
+    @Benchmark
+    public Map<String, Object> getEmployees() {
+        return employeeService.getEmployees(ORGANISATION_ID);
+    }
+
+    @Benchmark
+    public Map<String, Object> getSpecifiedEmployee() {
+        lookup = (lookup + 1) % LOOKUPS;
+        return employeeService.getSpecifiedEmployee(ORGANISATION_ID, lookupNames[lookup]);
+    }
+
+    // All looked up names in one batch with the levels of getSpecifiedEmployee, divide the time by LOOKUPS to compare
+    @Benchmark
+    public List<SupervisorChain> getSupervisorChains() {
+        return employeeService.getSupervisorChains(ORGANISATION_ID, Arrays.asList(lookupNames), LOOKUP_LEVELS);
+    }
+
+    @Benchmark
+    public List<EmployeeMatch> searchEmployees() {
+        lookup = (lookup + 1) % LOOKUPS;
+        return employeeService.searchEmployees(ORGANISATION_ID, searchPrefixes[lookup], 10);
+    }
+
+    @Benchmark
+    public void serializeEmployees(Blackhole blackhole) throws IOException {
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), employeeService.getEmployees(ORGANISATION_ID));
+    }
+
+    @Benchmark
+    public void streamEmployees(Blackhole blackhole) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(new BlackholeOutputStream(blackhole));
+        EmployeeHierarchyWriter.writeEmployees(hierarchy, generator);
+        generator.close();
+    }
+
+    // Output stream consuming written bytes, so serialization cost is not hidden behind a growing buffer
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+
+        private BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package personia.hr.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and heap footprint of the hierarchy index, compared with the string keyed maps it replaced.
+ * Footprint is measured with JOL on the last built index and printed per employee at the end of each trial,
+ * names are shared with the input in both models and counted in both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HierarchyFootprintBenchmark {
+
+    public enum Model {
+        // Map<String, String> of supervisors and Map<String, List<String>> of employees
+        MAPS {
+            @Override
+            Object build(Map<String, String> employees) {
+                Map<String, String> supervisorByEmployee = new LinkedHashMap<>(employees);
+                Map<String, List<String>> employeesBySupervisor = new HashMap<>();
+                supervisorByEmployee.forEach((employee, supervisor) ->
+                        employeesBySupervisor.computeIfAbsent(supervisor, it -> new ArrayList<>()).add(employee));
+                return new Object[]{supervisorByEmployee, employeesBySupervisor};
+            }
+        },
+        // Name dictionary with int supervisors and employees arrays
+        COMPACT {
+            @Override
+            Object build(Map<String, String> employees) {
+                return EmployeeHierarchyValidator.validate(employees);
+            }
+        };
+
+        abstract Object build(Map<String, String> employees);
+    }
+
+    @Param({"MAPS", "COMPACT"})
+    private Model model;
+
+    @Param({"FLAT", "CHAIN", "BALANCED", "SKEWED"})
+    private HierarchyShape shape;
+
+    @Param({"1000000"})
+    private int size;
+
+    private Map<String, String> employees;
+    private Object index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        employees = shape.generate(size);
+    }
+
+    @Benchmark
+    public Object build() {
+        index = model.build(employees);
+        return index;
+    }
+
+    @TearDown(Level.Trial)
+    public void printFootprint() {
+        long bytes = GraphLayout.parseInstance(index).totalSize();
+        System.out.printf("%n%s %s %d employees: %d bytes, %.1f bytes per employee%n",
+                model, shape, size, bytes, (double) bytes / size);
+    }
+}
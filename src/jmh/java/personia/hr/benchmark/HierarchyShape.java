@@ -0,0 +1,60 @@
+package personia.hr.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic hierarchies, employee i is named "E" + i and E0 is the top supervisor
+ */
+public enum HierarchyShape {
+    // Everybody reports to the top supervisor
+    FLAT {
+        @Override
+        int supervisorOf(int employee, Random random) {
+            return 0;
+        }
+    },
+    // Everybody reports to the previous employee
+    CHAIN {
+        @Override
+        int supervisorOf(int employee, Random random) {
+            return employee - 1;
+        }
+    },
+    // Complete tree with BALANCED_FAN_OUT employees per supervisor
+    BALANCED {
+        @Override
+        int supervisorOf(int employee, Random random) {
+            return (employee - 1) / BALANCED_FAN_OUT;
+        }
+    },
+    // Earlier employees are much more likely to be supervisors, giving a few very wide teams,
+    // many small ones and a long tail of depth like real organisations
+    SKEWED {
+        @Override
+        int supervisorOf(int employee, Random random) {
+            return (int) (employee * Math.pow(random.nextDouble(), 4));
+        }
+    };
+
+    private static final int BALANCED_FAN_OUT = 8;
+    private static final long SEED = 42L;
+
+    abstract int supervisorOf(int employee, Random random);
+
+    /**
+     * Generate employees hierarchy in the same form as POST /employees body
+     *
+     * @param size: Number of employees besides the top supervisor
+     * @return Key is employee and value is supervisor
+     */
+    public Map<String, String> generate(int size) {
+        Random random = new Random(SEED);
+        Map<String, String> employees = new LinkedHashMap<>(size * 2);
+        for (int employee = 1; employee <= size; employee++) {
+            employees.put("E" + employee, "E" + supervisorOf(employee, random));
+        }
+        return employees;
+    }
+}
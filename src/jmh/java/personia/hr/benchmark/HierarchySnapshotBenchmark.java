@@ -0,0 +1,80 @@
+package personia.hr.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.repository.HierarchySnapshotRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart time of the hierarchy from the snapshot file, compared with validating the employees
+ * again as a load from the database does once the rows are read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HierarchySnapshotBenchmark {
+    private static final String ORGANISATION_ID = "benchmark";
+    private static final long REVISION = 1L;
+
+    @Param({"FLAT", "CHAIN", "BALANCED", "SKEWED"})
+    private HierarchyShape shape;
+
+    @Param({"1000000"})
+    private int size;
+
+    private Map<String, String> employees;
+    private EmployeeHierarchy hierarchy;
+    private Path snapshotDirectory;
+    private HierarchySnapshotRepository hierarchySnapshotRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        employees = shape.generate(size);
+        snapshotDirectory = Files.createTempDirectory("hierarchy");
+        hierarchySnapshotRepository = new HierarchySnapshotRepository(snapshotDirectory.toString());
+        hierarchy = EmployeeHierarchyValidator.validate(employees);
+        hierarchySnapshotRepository.save(ORGANISATION_ID, hierarchy, REVISION);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotDirectory.resolve(ORGANISATION_ID + ".snapshot"));
+        Files.deleteIfExists(snapshotDirectory);
+    }
+
+    @Benchmark
+    public EmployeeHierarchy loadSnapshot() {
+        return hierarchySnapshotRepository.load(ORGANISATION_ID).orElseThrow(IllegalStateException::new).getHierarchy();
+    }
+
+    @Benchmark
+    public EmployeeHierarchy validateEmployees() {
+        return EmployeeHierarchyValidator.validate(employees);
+    }
+
+    @Benchmark
+    public void saveSnapshot() {
+        hierarchySnapshotRepository.save(ORGANISATION_ID, hierarchy, REVISION);
+    }
+}
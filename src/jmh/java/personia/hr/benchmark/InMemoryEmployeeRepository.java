@@ -0,0 +1,84 @@
+package personia.hr.benchmark;
+
+import personia.hr.domain.Employee;
+import personia.hr.domain.EmployeeId;
+import personia.hr.repository.EmployeeRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Employee repository keeping rows of one organisation in maps, so benchmarks measure the service without a database.
+ * Rows are indexed by name and by depth and left bound like the employee table.
+ */
+public final class InMemoryEmployeeRepository {
+
+    private InMemoryEmployeeRepository() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static EmployeeRepository create() {
+        Map<String, Employee> rows = new LinkedHashMap<>();
+        Map<Integer, TreeMap<Long, Employee>> rowsByDepth = new HashMap<>();
+        AtomicReference<Long> revision = new AtomicReference<>();
+        return (EmployeeRepository) Proxy.newProxyInstance(EmployeeRepository.class.getClassLoader(),
+                new Class<?>[]{EmployeeRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByOrganisationId":
+                            return new ArrayList<>(rows.values());
+                        case "countByOrganisationId":
+                            return (long) rows.size();
+                        case "findById":
+                            return Optional.ofNullable(rows.get(((EmployeeId) args[0]).getEmployeeName()));
+                        case "findLastReport":
+                            return findLastReport(rowsByDepth, (Employee) args[0]);
+                        case "findRevision":
+                            return Optional.ofNullable(revision.get());
+                        case "replaceAll":
+                            rows.clear();
+                            rowsByDepth.clear();
+                            ((Collection<Employee>) args[1]).forEach(it -> put(rows, rowsByDepth, it));
+                            revision.set((Long) args[2]);
+                            return null;
+                        case "applyChanges":
+                            ((Collection<String>) args[2]).forEach(it -> remove(rows, rowsByDepth, it));
+                            ((Collection<Employee>) args[1]).forEach(it -> remove(rows, rowsByDepth, it.getEmployeeName()));
+                            ((Collection<Employee>) args[1]).forEach(it -> put(rows, rowsByDepth, it));
+                            revision.set((Long) args[3]);
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static Optional<Employee> findLastReport(Map<Integer, TreeMap<Long, Employee>> rowsByDepth,
+                                                     Employee employee) {
+        TreeMap<Long, Employee> reports = rowsByDepth.get(employee.getDepth() + 1);
+        Map.Entry<Long, Employee> lastReport = reports == null ? null : reports.lowerEntry(employee.getRightBound());
+        return lastReport == null || lastReport.getKey() < employee.getLeftBound()
+                ? Optional.empty() : Optional.of(lastReport.getValue());
+    }
+
+    private static void put(Map<String, Employee> rows, Map<Integer, TreeMap<Long, Employee>> rowsByDepth,
+                            Employee employee) {
+        rows.put(employee.getEmployeeName(), employee);
+        rowsByDepth.computeIfAbsent(employee.getDepth(), it -> new TreeMap<>()).put(employee.getLeftBound(), employee);
+    }
+
+    private static void remove(Map<String, Employee> rows, Map<Integer, TreeMap<Long, Employee>> rowsByDepth,
+                               String employeeName) {
+        Employee employee = rows.remove(employeeName);
+        if (employee != null) {
+            rowsByDepth.get(employee.getDepth()).remove(employee.getLeftBound());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package personia.hr.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.hierarchy.EmployeeHierarchyWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding time and bytes on the wire of the employees hierarchy in every response format,
+ * nested JSON is the format served before content negotiation. Sizes without and with gzip
+ * are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseFormatBenchmark {
+
+    public enum Format {
+        NESTED_JSON(new JsonFactory(), false),
+        FLAT_JSON(new JsonFactory(), true),
+        NESTED_SMILE(new SmileFactory(), false),
+        FLAT_SMILE(new SmileFactory(), true),
+        FLAT_CBOR(new CBORFactory(), true);
+
+        private final JsonFactory factory;
+        private final boolean flat;
+
+        Format(JsonFactory factory, boolean flat) {
+            this.factory = factory;
+            this.flat = flat;
+        }
+
+        byte[] write(EmployeeHierarchy hierarchy) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (JsonGenerator generator = factory.createGenerator(outputStream)) {
+                if (flat) {
+                    EmployeeHierarchyWriter.writeFlatEmployees(hierarchy, generator);
+                } else {
+                    EmployeeHierarchyWriter.writeEmployees(hierarchy, generator);
+                }
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Param({"NESTED_JSON", "FLAT_JSON", "NESTED_SMILE", "FLAT_SMILE", "FLAT_CBOR"})
+    private Format format;
+
+    @Param({"FLAT", "CHAIN", "BALANCED", "SKEWED"})
+    private HierarchyShape shape;
+
+    @Param({"1000000"})
+    private int size;
+
+    private EmployeeHierarchy hierarchy;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hierarchy = EmployeeHierarchyValidator.validate(shape.generate(size));
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        body = format.write(hierarchy);
+        return body;
+    }
+
+    @Benchmark
+    public byte[] writeGzip() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(format.write(hierarchy));
+        }
+        return outputStream.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void printSize() throws IOException {
+        byte[] written = body == null ? format.write(hierarchy) : body;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(written);
+        }
+        System.out.printf("%n%s %s %d employees: %d bytes, %d bytes gzipped%n",
+                format, shape, size, written.length, outputStream.size());
+    }
+}
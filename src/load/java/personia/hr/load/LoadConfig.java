@@ -0,0 +1,78 @@
+package personia.hr.load;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given as name=value arguments, for example:
+ * concurrency=32 size=100000 write-ratio=0.01 duration=PT1M
+ */
+@Getter
+public final class LoadConfig {
+    // Base URL of a running application, the application is started on a random local port when it is empty
+    private final String url;
+    private final String username;
+    private final String password;
+    // Number of clients sending requests one after another
+    private final int concurrency;
+    // Organisations the requests are spread over, 1 sends all of them to the paths without organisation
+    private final int organisations;
+    // Employees besides the top supervisor in every POST /employees body
+    private final int size;
+    // Direct employees of every supervisor in the generated organisations
+    private final int fanOut;
+    // Share of requests that are POST /employees, the rest are reads
+    private final double writeRatio;
+    // Share of reads that are GET /employees, the rest are GET /employees/{employeeName}
+    private final double fullReadRatio;
+    private final Duration warmup;
+    private final Duration duration;
+    private final String report;
+    // Report of a previous run to compare with, nothing is compared when it is empty
+    private final String baseline;
+
+    private LoadConfig(Map<String, String> options) {
+        url = options.getOrDefault("url", "");
+        username = options.getOrDefault("username", "admin");
+        password = options.getOrDefault("password", "admin");
+        concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        organisations = Integer.parseInt(options.getOrDefault("organisations", "1"));
+        size = Integer.parseInt(options.getOrDefault("size", "10000"));
+        fanOut = Integer.parseInt(options.getOrDefault("fan-out", "8"));
+        writeRatio = Double.parseDouble(options.getOrDefault("write-ratio", "0.01"));
+        fullReadRatio = Double.parseDouble(options.getOrDefault("full-read-ratio", "0.1"));
+        warmup = Duration.parse(options.getOrDefault("warmup", "PT10S"));
+        duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        report = options.getOrDefault("report", "target/load-report.json");
+        baseline = options.getOrDefault("baseline", "");
+    }
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return new LoadConfig(options);
+    }
+
+    // Options written to the report, so runs with different settings are not compared by mistake
+    Map<String, Object> toMap() {
+        Map<String, Object> options = new LinkedHashMap<>();
+        options.put("concurrency", concurrency);
+        options.put("organisations", organisations);
+        options.put("size", size);
+        options.put("fanOut", fanOut);
+        options.put("writeRatio", writeRatio);
+        options.put("fullReadRatio", fullReadRatio);
+        options.put("warmupSeconds", warmup.getSeconds());
+        options.put("durationSeconds", duration.getSeconds());
+        return options;
+    }
+}
@@ -0,0 +1,302 @@
+package personia.hr.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import personia.hr.Application;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP load test of the employees API, run by: mvn -P load-test verify -DskipTests -Dload.args="<name=value options>"
+ * Clients send a mix of POST /employees, GET /employees and GET /employees/{employeeName} one request after another,
+ * with HTTP Basic credentials like real clients, for the warmup and then for the measured duration.
+ * Requests are spread over /orgs/{orgId}/employees paths of several organisations when more than one is asked for.
+ * Throughput and latency percentiles of every operation are written as JSON, see LoadConfig for the options.
+ */
+public final class LoadTest {
+    private static final double[] PERCENTILES = {50, 95, 99};
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final LoadConfig config;
+    private final String baseUrl;
+    private final String authorization;
+    // Two hierarchies with the same employees under different supervisors, writes alternate between them
+    private final byte[][] hierarchies;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    // Writes answered as superseded by a newer upload or rejected by a full write queue, they are not errors
+    private final Map<Operation, LongAdder> superseded = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejected = new EnumMap<>(Operation.class);
+
+    private LoadTest(LoadConfig config, String baseUrl) throws IOException {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (config.getUsername() + ":" + config.getPassword()).getBytes(StandardCharsets.UTF_8));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        hierarchies = new byte[][]{
+                objectMapper.writeValueAsBytes(generateOrganisation(config.getSize(), config.getFanOut())),
+                objectMapper.writeValueAsBytes(generateOrganisation(config.getSize(), config.getFanOut() + 1))};
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+            superseded.put(operation, new LongAdder());
+            rejected.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        ConfigurableApplicationContext context = config.getUrl().isEmpty() ? startApplication() : null;
+        try {
+            String baseUrl = context == null
+                    ? config.getUrl()
+                    : "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Map<String, Object> report = new LoadTest(config, baseUrl).run();
+
+            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            File reportFile = new File(config.getReport());
+            if (reportFile.getParentFile() != null) {
+                reportFile.getParentFile().mkdirs();
+            }
+            objectMapper.writeValue(reportFile, report);
+            System.out.println(objectMapper.writeValueAsString(report));
+            if (!config.getBaseline().isEmpty()) {
+                printComparison(objectMapper.readTree(new File(config.getBaseline())), objectMapper.valueToTree(report));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Application on a random free port, without snapshot files so every run starts from empty hierarchies
+    private static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0", "hr.snapshot.directory=", "logging.level.root=WARN")
+                .run();
+    }
+
+    private Map<String, Object> run() throws Exception {
+        for (int organisation = 0; organisation < config.getOrganisations(); organisation++) {
+            int status = send(Operation.POST_EMPLOYEES, organisationPath(organisation), hierarchies[0]);
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IllegalStateException("Creating employees failed with status " + status);
+            }
+        }
+
+        long measureStart = System.nanoTime() + config.getWarmup().toNanos();
+        long measureEnd = measureStart + config.getDuration().toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(config.getConcurrency());
+        List<Future<?>> results = new ArrayList<>();
+        for (int client = 0; client < config.getConcurrency(); client++) {
+            results.add(clients.submit(() -> sendUntil(measureStart, measureEnd)));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        clients.shutdown();
+        return buildReport();
+    }
+
+    private Void sendUntil(long measureStart, long measureEnd) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        while (now < measureEnd) {
+            Operation operation = nextOperation(random);
+            long start = now;
+            try {
+                int status = send(operation, organisationPath(random.nextInt(config.getOrganisations())),
+                        operation == Operation.POST_EMPLOYEES
+                                ? hierarchies[random.nextInt(hierarchies.length)]
+                                : null);
+                now = System.nanoTime();
+                if (start >= measureStart) {
+                    if (status == HttpURLConnection.HTTP_CONFLICT) {
+                        superseded.get(operation).increment();
+                    } else if (status == HTTP_TOO_MANY_REQUESTS) {
+                        rejected.get(operation).increment();
+                    } else if (status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                        errors.get(operation).increment();
+                    } else {
+                        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(now - start));
+                    }
+                }
+            } catch (IOException e) {
+                now = System.nanoTime();
+                if (start >= measureStart) {
+                    errors.get(operation).increment();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Operation nextOperation(ThreadLocalRandom random) {
+        if (random.nextDouble() < config.getWriteRatio()) {
+            return Operation.POST_EMPLOYEES;
+        }
+        return random.nextDouble() < config.getFullReadRatio() ? Operation.GET_EMPLOYEES : Operation.GET_EMPLOYEE;
+    }
+
+    // Path prefix of an organisation, requests of a single organisation use the paths without one
+    private String organisationPath(int organisation) {
+        return config.getOrganisations() == 1 ? "" : "/orgs/org-" + organisation;
+    }
+
+    // Send one request and read the whole response, so the connection is kept alive for the next one
+    private int send(Operation operation, String organisationPath, byte[] body) throws IOException {
+        String path = organisationPath + (operation == Operation.GET_EMPLOYEE
+                ? "/employees/E" + (1 + ThreadLocalRandom.current().nextInt(config.getSize()))
+                : "/employees");
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(operation.method);
+        connection.setRequestProperty("Authorization", authorization);
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(body);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream inputStream = status >= HttpURLConnection.HTTP_BAD_REQUEST
+                ? connection.getErrorStream()
+                : connection.getInputStream();
+        if (inputStream != null) {
+            try (InputStream responseStream = inputStream) {
+                byte[] buffer = new byte[8192];
+                while (responseStream.read(buffer) >= 0) {
+                    // Response body is not checked, only its time
+                }
+            }
+        }
+        return status;
+    }
+
+    private Map<String, Object> buildReport() {
+        double seconds = config.getDuration().toNanos() / 1e9;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        long totalSuperseded = 0;
+        long totalRejected = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            long operationErrors = errors.get(operation).sum();
+            long operationSuperseded = superseded.get(operation).sum();
+            long operationRejected = rejected.get(operation).sum();
+            operations.put(operation.name,
+                    summarize(histogram, operationErrors, operationSuperseded, operationRejected, seconds));
+            total.add(histogram);
+            totalErrors += operationErrors;
+            totalSuperseded += operationSuperseded;
+            totalRejected += operationRejected;
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("options", config.toMap());
+        report.put("total", summarize(total, totalErrors, totalSuperseded, totalRejected, seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    private static Map<String, Object> summarize(Histogram histogram, long errors, long superseded, long rejected,
+                                                 double seconds) {
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latencyMillis.put("p" + (int) percentile, histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        latencyMillis.put("max", histogram.getMaxValue() / 1000.0);
+        latencyMillis.put("mean", Math.round(histogram.getMean()) / 1000.0);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("superseded", superseded);
+        summary.put("rejected", rejected);
+        summary.put("throughput", Math.round(histogram.getTotalCount() / seconds * 10) / 10.0);
+        summary.put("latencyMillis", latencyMillis);
+        return summary;
+    }
+
+    // Print change of throughput and latencies against a previous report, positive latency changes are slower
+    private static void printComparison(JsonNode baseline, JsonNode report) {
+        System.out.printf("%nCompared with baseline finished at %s%n", baseline.path("finishedAt").asText());
+        List<String> names = new ArrayList<>();
+        names.add("total");
+        report.path("operations").fieldNames().forEachRemaining(names::add);
+        for (String name : names) {
+            JsonNode current = "total".equals(name) ? report.path("total") : report.path("operations").path(name);
+            JsonNode previous = "total".equals(name) ? baseline.path("total") : baseline.path("operations").path(name);
+            if (previous.isMissingNode()) {
+                continue;
+            }
+            StringBuilder line = new StringBuilder(String.format("%-32s throughput %s", name,
+                    change(previous.path("throughput").asDouble(), current.path("throughput").asDouble())));
+            current.path("latencyMillis").fieldNames().forEachRemaining(latency -> line.append(String.format(
+                    "  %s %s", latency, change(previous.path("latencyMillis").path(latency).asDouble(),
+                            current.path("latencyMillis").path(latency).asDouble()))));
+            System.out.println(line);
+        }
+    }
+
+    private static String change(double previous, double current) {
+        return previous == 0
+                ? String.format("%.1f", current)
+                : String.format("%.1f (%+.1f%%)", current, (current - previous) / previous * 100);
+    }
+
+    // Complete tree of given fan-out, employee i is named "E" + i and E0 is the top supervisor
+    private static Map<String, String> generateOrganisation(int size, int fanOut) {
+        Map<String, String> employees = new LinkedHashMap<>(size * 2);
+        for (int employee = 1; employee <= size; employee++) {
+            employees.put("E" + employee, "E" + (employee - 1) / fanOut);
+        }
+        return employees;
+    }
+
+    private enum Operation {
+        POST_EMPLOYEES("POST", "POST /employees"),
+        GET_EMPLOYEES("GET", "GET /employees"),
+        GET_EMPLOYEE("GET", "GET /employees/{employeeName}");
+
+        private final String method;
+        private final String name;
+
+        Operation(String method, String name) {
+            this.method = method;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package personia.hr.config;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remember successfully verified credentials for a while, so HTTP Basic requests of a stateless API
+ * do not pay a password hash verification each.
+ * Credentials are kept only as HMAC digests under a key generated at startup, failed attempts are never cached
+ * and always reach the delegate, and the cache is bounded in size and time.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Clock clock;
+    private final SecretKeySpec digestKey;
+    // Key is digest of username and password
+    private final Map<ByteBuffer, CachedAuthentication> authentications = new ConcurrentHashMap<>();
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, int maxSize) {
+        this(delegate, ttl, maxSize, Clock.systemUTC());
+    }
+
+    CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl, int maxSize, Clock clock) {
+        this.delegate = delegate;
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+        this.clock = clock;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        ByteBuffer digest = digest(authentication.getName(), authentication.getCredentials().toString());
+        long now = clock.millis();
+        CachedAuthentication cached = authentications.get(digest);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.authentication;
+        }
+
+        // Throws for bad credentials, so only verified ones are cached
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            makeRoom(now);
+            authentications.put(digest, new CachedAuthentication(result, now + ttlMillis));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    int size() {
+        return authentications.size();
+    }
+
+    // Drop expired entries once the cache is full, then any entry if it is still full
+    private void makeRoom(long now) {
+        if (authentications.size() < maxSize) {
+            return;
+        }
+
+        authentications.values().removeIf(it -> it.expiresAt <= now);
+        Iterator<ByteBuffer> digests = authentications.keySet().iterator();
+        while (authentications.size() >= maxSize && digests.hasNext()) {
+            digests.next();
+            digests.remove();
+        }
+    }
+
+    private ByteBuffer digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(digestKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return ByteBuffer.wrap(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class CachedAuthentication {
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        private CachedAuthentication(Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,26 +1,45 @@
 package personia.hr.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
 
 @EnableWebSecurity
 @Configuration
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+    @Value("${hr.security.authentication-cache.ttl:5m}")
+    private Duration authenticationCacheTtl;
+
+    @Value("${hr.security.authentication-cache.max-size:10000}")
+    private int authenticationCacheMaxSize;
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
         PasswordEncoder encoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
-        auth
-                .inMemoryAuthentication()
-                .withUser("admin")
+        DaoAuthenticationProvider passwordAuthenticationProvider = new DaoAuthenticationProvider();
+        passwordAuthenticationProvider.setPasswordEncoder(encoder);
+        passwordAuthenticationProvider.setUserDetailsService(new InMemoryUserDetailsManager(User
+                .withUsername("admin")
                 .password(encoder.encode("admin"))
-                .roles("ADMIN");
+                .roles("ADMIN")
+                .build()));
+        passwordAuthenticationProvider.afterPropertiesSet();
+
+        // Every stateless request carries credentials, verified ones skip bcrypt until they expire from the cache
+        auth.authenticationProvider(new CachingAuthenticationProvider(passwordAuthenticationProvider,
+                authenticationCacheTtl, authenticationCacheMaxSize));
     }
 
     @Override
@@ -34,7 +53,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .headers().frameOptions().disable()
                 .and()
                 .authorizeRequests()
-                .antMatchers("/h2-console/**").permitAll()
+                .antMatchers("/h2-console/**", "/actuator/health").permitAll()
                 .anyRequest().authenticated()
         ;
     }
@@ -1,38 +1,380 @@
 package personia.hr.controller;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import personia.hr.exception.InvalidLevelException;
+import personia.hr.exception.InvalidParameterException;
+import personia.hr.hierarchy.CreatedEmployees;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.hierarchy.EmployeeHierarchyReader;
+import personia.hr.hierarchy.EmployeeHierarchyWriter;
+import personia.hr.hierarchy.EmployeeMatch;
+import personia.hr.hierarchy.EmployeeStats;
+import personia.hr.hierarchy.HierarchyChanges;
+import personia.hr.hierarchy.HierarchyStats;
+import personia.hr.hierarchy.HierarchyVersion;
+import personia.hr.hierarchy.ReportsPage;
+import personia.hr.hierarchy.SupervisorChain;
+import personia.hr.imports.EmployeeImport;
+import personia.hr.service.EmployeeImportService;
 import personia.hr.service.EmployeeService;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import static org.springframework.http.ResponseEntity.ok;
 
-@RequiredArgsConstructor
 @RestController
-@RequestMapping("/employees")
+@RequestMapping({"/employees", "/orgs/{orgId}/employees"})
 public class EmployeeController {
+    private static final String ALL_LEVELS = "all";
+    private static final int MAX_REPORTS_LIMIT = 1000;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_LOOKUP_NAMES = 100_000;
+    private static final String IMPORTS_PATH = "/employees/imports/";
+    private static final String ORGANISATIONS_PATH = "/orgs/";
+    // Organisation ids name snapshot files, so they are kept to plain names
+    private static final Pattern ORGANISATION_ID_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,63}");
+    private static final String EMPLOYEES_ADDED_HEADER = "X-Employees-Added";
+    private static final String EMPLOYEES_MOVED_HEADER = "X-Employees-Moved";
+    private static final String EMPLOYEES_REMOVED_HEADER = "X-Employees-Removed";
+    private static final MediaType FLAT_JSON_MEDIA_TYPE = MediaType.valueOf("application/vnd.hr.flat+json");
+    private static final MediaType SMILE_MEDIA_TYPE = MediaType.valueOf("application/x-jackson-smile");
+
     private final EmployeeService employeeService;
+    private final EmployeeImportService employeeImportService;
+    private final ObjectMapper objectMapper;
+    private final SmileFactory smileFactory = new SmileFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+
+    // Serialized employees of the latest versions, kept apart from the hierarchies so that their bytes are bounded
+    private final SerializedEmployeesCache serializedEmployees;
+
+    public EmployeeController(EmployeeService employeeService, EmployeeImportService employeeImportService,
+                              ObjectMapper objectMapper,
+                              @Value("${hr.employees.serialized-cache.max-bytes:268435456}") long maxSerializedBytes) {
+        this.employeeService = employeeService;
+        this.employeeImportService = employeeImportService;
+        this.objectMapper = objectMapper;
+        this.serializedEmployees = new SerializedEmployeesCache(maxSerializedBytes, EmployeesFormat.values().length);
+    }
 
+    // Serialized once per hierarchy version and format, polls of an unchanged hierarchy are answered from these bytes.
+    // Paths without organisation are served from the default organisation.
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getEmployees() {
-        return ok(employeeService.getEmployees());
+    public ResponseEntity<byte[]> getEmployees(@PathVariable(required = false) String orgId, WebRequest request)
+            throws IOException {
+        String organisationId = organisationOf(orgId);
+        EmployeeHierarchy hierarchy = employeeService.getEmployeeHierarchy(organisationId);
+        EmployeesFormat format = EmployeesFormat.of(request);
+        if (isNotModified(request, hierarchy.getVersion(), format)) {
+            return null;
+        }
+        return okRevalidated()
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(format.mediaType)
+                .body(getSerializedEmployees(organisationId, hierarchy, format));
+    }
+
+    // Same hierarchy as getEmployees but written to the response while walking it
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamEmployees(@PathVariable(required = false) String orgId,
+                                                                 WebRequest request) {
+        EmployeeHierarchy hierarchy = employeeService.getEmployeeHierarchy(organisationOf(orgId));
+        EmployeesFormat format = EmployeesFormat.of(request);
+        if (isNotModified(request, hierarchy.getVersion(), format)) {
+            return null;
+        }
+        return okRevalidated()
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(format.mediaType)
+                .body(outputStream -> writeEmployees(hierarchy, format, outputStream));
     }
 
     @GetMapping("/{employeeName}")
-    public ResponseEntity<Map<String, Object>> getSpecifiedEmployee(@PathVariable String employeeName) {
-        return ok(employeeService.getSpecifiedEmployee(employeeName));
+    public ResponseEntity<Map<String, Object>> getSpecifiedEmployee(@PathVariable(required = false) String orgId,
+                                                                    @PathVariable String employeeName,
+                                                                    @RequestParam(required = false) String levels,
+                                                                    WebRequest request) {
+        String organisationId = organisationOf(orgId);
+        if (isNotModified(request, employeeService.getHierarchyVersion(organisationId))) {
+            return null;
+        }
+        if (levels == null) {
+            return okRevalidated().body(employeeService.getSpecifiedEmployee(organisationId, employeeName));
+        }
+        return okRevalidated()
+                .body(employeeService.getSpecifiedEmployee(organisationId, employeeName, parseLevel(levels)));
+    }
+
+    // Supervisor chains of many names in one request, whole chains unless levels is given
+    @PostMapping("/lookup")
+    public ResponseEntity<List<SupervisorChain>> lookupEmployees(@PathVariable(required = false) String orgId,
+                                                                 @RequestParam(defaultValue = ALL_LEVELS) String levels,
+                                                                 @RequestBody List<String> employeeNames) {
+        if (employeeNames.size() > MAX_LOOKUP_NAMES) {
+            throw new InvalidParameterException("names", String.valueOf(employeeNames.size()));
+        }
+        return ok().body(employeeService.getSupervisorChains(organisationOf(orgId), employeeNames, parseLevel(levels)));
+    }
+
+    @GetMapping("/{employeeName}/supervisors/{level}")
+    public ResponseEntity<Map<String, String>> getSupervisor(@PathVariable(required = false) String orgId,
+                                                             @PathVariable String employeeName, @PathVariable String level,
+                                                             WebRequest request) {
+        String organisationId = organisationOf(orgId);
+        if (isNotModified(request, employeeService.getHierarchyVersion(organisationId))) {
+            return null;
+        }
+        return okRevalidated().body(Collections.singletonMap("supervisor",
+                employeeService.getSupervisor(organisationId, employeeName, parseLevel(level))));
+    }
+
+    @GetMapping("/{employeeName}/reports")
+    public ResponseEntity<ReportsPage> getReports(@PathVariable(required = false) String orgId,
+                                                 @PathVariable String employeeName,
+                                                 @RequestParam(defaultValue = "1") String depth,
+                                                 @RequestParam(defaultValue = "100") int limit,
+                                                 @RequestParam(required = false) String cursor,
+                                                 WebRequest request) {
+        if (limit < 1 || limit > MAX_REPORTS_LIMIT) {
+            throw new InvalidParameterException("limit", String.valueOf(limit));
+        }
+        String organisationId = organisationOf(orgId);
+        if (isNotModified(request, employeeService.getHierarchyVersion(organisationId))) {
+            return null;
+        }
+        return okRevalidated()
+                .body(employeeService.getReports(organisationId, employeeName, parseLevel(depth), limit, cursor));
     }
 
+    @GetMapping("/stats")
+    public ResponseEntity<HierarchyStats> getStats(@PathVariable(required = false) String orgId, WebRequest request) {
+        String organisationId = organisationOf(orgId);
+        if (isNotModified(request, employeeService.getHierarchyVersion(organisationId))) {
+            return null;
+        }
+        return okRevalidated().body(employeeService.getStats(organisationId));
+    }
+
+    // Members whose name starts with prefix ignoring case, for pickers that should not download the hierarchy
+    @GetMapping("/search")
+    public ResponseEntity<List<EmployeeMatch>> searchEmployees(@PathVariable(required = false) String orgId,
+                                                               @RequestParam(defaultValue = "") String prefix,
+                                                               @RequestParam(defaultValue = "10") int limit,
+                                                               WebRequest request) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new InvalidParameterException("limit", String.valueOf(limit));
+        }
+        String organisationId = organisationOf(orgId);
+        if (isNotModified(request, employeeService.getHierarchyVersion(organisationId))) {
+            return null;
+        }
+        return okRevalidated().body(employeeService.searchEmployees(organisationId, prefix, limit));
+    }
+
+    @GetMapping("/{employeeName}/stats")
+    public ResponseEntity<EmployeeStats> getStats(@PathVariable(required = false) String orgId,
+                                                  @PathVariable String employeeName, WebRequest request) {
+        String organisationId = organisationOf(orgId);
+        if (isNotModified(request, employeeService.getHierarchyVersion(organisationId))) {
+            return null;
+        }
+        return okRevalidated().body(employeeService.getStats(organisationId, employeeName));
+    }
+
+    // Body is the stored hierarchy as before, counts of what the upload changed are sent as headers
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createEmployees(@RequestBody Map<String, String> requestEmployees) {
-        return ok(employeeService.createEmployees(requestEmployees));
+    public ResponseEntity<Map<String, Object>> createEmployees(@PathVariable(required = false) String orgId,
+                                                               @RequestBody Map<String, String> requestEmployees) {
+        CreatedEmployees createdEmployees = employeeService.createEmployees(organisationOf(orgId), requestEmployees);
+        HierarchyChanges changes = createdEmployees.getChanges();
+        return ok()
+                .header(EMPLOYEES_ADDED_HEADER, String.valueOf(changes.getAdded().size()))
+                .header(EMPLOYEES_MOVED_HEADER, String.valueOf(changes.getMoved().size()))
+                .header(EMPLOYEES_REMOVED_HEADER, String.valueOf(changes.getRemoved().size()))
+                .body(createdEmployees.getEmployees());
     }
 
+    // Bulk import of the same body as createEmployees, it is read as a stream and saved in the background
+    @PostMapping("/imports")
+    public ResponseEntity<EmployeeImport> importEmployees(@PathVariable(required = false) String orgId,
+                                                          HttpServletRequest request) throws IOException {
+        String organisationId = organisationOf(orgId);
+        EmployeeHierarchyBuilder employees;
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+            employees = EmployeeHierarchyReader.readEmployees(parser);
+        }
+
+        EmployeeImport employeeImport = employeeImportService.submitImport(organisationId, employees);
+        String importsPath = orgId == null ? IMPORTS_PATH : ORGANISATIONS_PATH + organisationId + IMPORTS_PATH;
+        return ResponseEntity.accepted()
+                .location(URI.create(importsPath + employeeImport.getId()))
+                .body(employeeImport);
+    }
+
+    @GetMapping("/imports/{importId}")
+    public ResponseEntity<EmployeeImport> getImport(@PathVariable(required = false) String orgId,
+                                                    @PathVariable String importId) {
+        return ok(employeeImportService.getImport(organisationOf(orgId), importId));
+    }
+
+    // Merge patch of employees, null supervisor removes the employee
+    @PatchMapping
+    public ResponseEntity<HierarchyChanges> updateEmployees(@PathVariable(required = false) String orgId,
+                                                            @RequestBody Map<String, String> changes) {
+        return ok(employeeService.updateEmployees(organisationOf(orgId), changes));
+    }
+
+    // Set ETag of the version, true when the request already has it and gets 304.
+    // No Last-Modified is sent, If-Modified-Since alone would miss versions published within the same second.
+    // The version is read before the body is built, so a body is never tagged with a newer version than its own.
+    private static boolean isNotModified(WebRequest request, HierarchyVersion version) {
+        return request.checkNotModified(version.getETag());
+    }
+
+    // Same as isNotModified with the entity tag of one format, a tag cached for a format never matches another one
+    private static boolean isNotModified(WebRequest request, HierarchyVersion version, EmployeesFormat format) {
+        return request.checkNotModified(version.getETag(format.tag));
+    }
+
+    // Clients may keep versioned responses but have to revalidate them with the entity tag
+    private static ResponseEntity.BodyBuilder okRevalidated() {
+        return ok().cacheControl(CacheControl.noCache());
+    }
+
+    private byte[] getSerializedEmployees(String organisationId, EmployeeHierarchy hierarchy, EmployeesFormat format)
+            throws IOException {
+        byte[] bytes = serializedEmployees.get(organisationId, hierarchy.getVersion(), format.ordinal());
+        if (bytes == null) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            writeEmployees(hierarchy, format, outputStream);
+            bytes = outputStream.toByteArray();
+            serializedEmployees.put(organisationId, hierarchy.getVersion(), format.ordinal(), bytes);
+        }
+        return bytes;
+    }
+
+    private void writeEmployees(EmployeeHierarchy hierarchy, EmployeesFormat format, OutputStream outputStream)
+            throws IOException {
+        JsonGenerator generator = getFactory(format).createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format.flat) {
+            EmployeeHierarchyWriter.writeFlatEmployees(hierarchy, generator);
+        } else {
+            EmployeeHierarchyWriter.writeEmployees(hierarchy, generator);
+        }
+        generator.close();
+    }
+
+    private JsonFactory getFactory(EmployeesFormat format) {
+        switch (format) {
+            case FLAT_SMILE:
+                return smileFactory;
+            case FLAT_CBOR:
+                return cborFactory;
+            default:
+                return objectMapper.getFactory();
+        }
+    }
+
+    // Organisation of the path, the default organisation for paths without one
+    private static String organisationOf(String orgId) {
+        if (orgId == null) {
+            return EmployeeService.DEFAULT_ORGANISATION_ID;
+        }
+        if (!ORGANISATION_ID_PATTERN.matcher(orgId).matches()) {
+            throw new InvalidParameterException("orgId", orgId);
+        }
+        return orgId;
+    }
+
+    // Level is a positive number or all for the whole supervisor chain
+    private static int parseLevel(String level) {
+        if (ALL_LEVELS.equalsIgnoreCase(level)) {
+            return Integer.MAX_VALUE;
+        }
+
+        try {
+            int parsedLevel = Integer.parseInt(level);
+            if (parsedLevel > 0) {
+                return parsedLevel;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below as invalid level
+        }
+        throw new InvalidLevelException(level);
+    }
+
+    /**
+     * Representations of the employees hierarchy chosen by the Accept header, nested JSON when none is accepted.
+     * Binary formats carry the flat shape, they are meant for clients that care about bytes on the wire.
+     */
+    private enum EmployeesFormat {
+        NESTED_JSON(MediaType.APPLICATION_JSON, false, "json"),
+        FLAT_JSON(FLAT_JSON_MEDIA_TYPE, true, "flat-json"),
+        FLAT_SMILE(SMILE_MEDIA_TYPE, true, "smile"),
+        FLAT_CBOR(MediaType.APPLICATION_CBOR, true, "cbor");
+
+        private final MediaType mediaType;
+        private final boolean flat;
+        // Suffix of the entity tags of this format
+        private final String tag;
+
+        EmployeesFormat(MediaType mediaType, boolean flat, String tag) {
+            this.mediaType = mediaType;
+            this.flat = flat;
+            this.tag = tag;
+        }
+
+        private static EmployeesFormat of(WebRequest request) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            if (accept == null) {
+                return NESTED_JSON;
+            }
+
+            try {
+                List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+                MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+                for (MediaType acceptedMediaType : acceptedMediaTypes) {
+                    for (EmployeesFormat format : values()) {
+                        if (acceptedMediaType.includes(format.mediaType)) {
+                            return format;
+                        }
+                    }
+                }
+            } catch (InvalidMediaTypeException ignored) {
+                // Answered with the default format like an Accept header without known types
+            }
+            return NESTED_JSON;
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package personia.hr.controller;
+
+import personia.hr.hierarchy.HierarchyVersion;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Serialized employees of the latest version of each organisation, one body per format, bounded by their total bytes.
+ * Reads do not lock, they only stamp the entry with the time of the read. A put going over the bound evicts
+ * the least recently read bodies of other organisations, they are serialized again on their next read.
+ */
+final class SerializedEmployeesCache {
+    private final long maxBytes;
+    private final int formatCount;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Sum of the lengths of all cached bodies, only changed by puts holding the lock of the cache
+    private long bytes;
+
+    /**
+     * @param maxBytes:    Bound of the total length of cached bodies, longer bodies are not cached
+     * @param formatCount: Number of formats a version may be serialized in
+     */
+    SerializedEmployeesCache(long maxBytes, int formatCount) {
+        this.maxBytes = maxBytes;
+        this.formatCount = formatCount;
+    }
+
+    /**
+     * Get cached body
+     *
+     * @param organisationId: Organisation of the hierarchy
+     * @param version:        Version of the hierarchy
+     * @param format:         Index of the format
+     * @return Serialized employees, null when they are not cached for this version and format
+     */
+    byte[] get(String organisationId, HierarchyVersion version, int format) {
+        Entry entry = entries.get(organisationId);
+        if (entry == null || entry.versionNumber != version.getNumber()) {
+            return null;
+        }
+
+        entry.readAt = System.nanoTime();
+        return entry.bodies.get(format);
+    }
+
+    /**
+     * Put body of a version, bodies of previous versions of the organisation are dropped.
+     * Bodies of versions older than the cached one are not kept.
+     *
+     * @param organisationId: Organisation of the hierarchy
+     * @param version:        Version of the hierarchy
+     * @param format:         Index of the format
+     * @param body:           Serialized employees
+     */
+    synchronized void put(String organisationId, HierarchyVersion version, int format, byte[] body) {
+        if (body.length > maxBytes) {
+            return;
+        }
+
+        Entry entry = entries.get(organisationId);
+        if (entry == null || entry.versionNumber < version.getNumber()) {
+            if (entry != null) {
+                bytes -= entry.bytes;
+            }
+            entry = new Entry(version.getNumber(), formatCount);
+            entries.put(organisationId, entry);
+        } else if (entry.versionNumber > version.getNumber() || entry.bodies.get(format) != null) {
+            return;
+        }
+
+        entry.bodies.set(format, body);
+        entry.bytes += body.length;
+        bytes += body.length;
+        if (bytes > maxBytes) {
+            evictLeastRecentlyRead(organisationId, format);
+        }
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    // Read times are copied before sorting, readers keep stamping entries meanwhile.
+    // Bodies of the kept organisation are dropped last, other formats before the one just put.
+    private void evictLeastRecentlyRead(String keptOrganisationId, int keptFormat) {
+        ReadTime[] readTimes = entries.entrySet().stream()
+                .filter(it -> !it.getKey().equals(keptOrganisationId))
+                .map(it -> new ReadTime(it.getKey(), it.getValue().readAt))
+                .toArray(ReadTime[]::new);
+        Arrays.sort(readTimes, Comparator.comparingLong(it -> it.readAt));
+
+        for (int i = 0; i < readTimes.length && bytes > maxBytes; i++) {
+            bytes -= entries.remove(readTimes[i].organisationId).bytes;
+        }
+
+        Entry keptEntry = entries.get(keptOrganisationId);
+        for (int format = 0; format < formatCount && bytes > maxBytes; format++) {
+            byte[] body = keptEntry.bodies.get(format);
+            if (format != keptFormat && body != null) {
+                keptEntry.bodies.set(format, null);
+                keptEntry.bytes -= body.length;
+                bytes -= body.length;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long versionNumber;
+        private final AtomicReferenceArray<byte[]> bodies;
+        // Sum of the lengths of the bodies, only changed by puts holding the lock of the cache
+        private long bytes;
+        private volatile long readAt = System.nanoTime();
+
+        private Entry(long versionNumber, int formatCount) {
+            this.versionNumber = versionNumber;
+            this.bodies = new AtomicReferenceArray<>(formatCount);
+        }
+    }
+
+    private static final class ReadTime {
+        private final String organisationId;
+        private final long readAt;
+
+        private ReadTime(String organisationId, long readAt) {
+            this.organisationId = organisationId;
+            this.readAt = readAt;
+        }
+    }
+}
@@ -7,15 +7,44 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
+/**
+ * Employee of an organisation and his supervisor. Left and right bounds number employees as a nested set over the
+ * hierarchy of the organisation, the bounds of an employee's reports are between his own bounds, so his reports are
+ * one range of left bounds, and his supervisors are the rows whose bounds hold his own. Bounds leave gaps between
+ * them, employees added later are numbered in the gaps.
+ * The top supervisor is stored too, with no supervisor and depth 0.
+ */
 @Getter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@IdClass(EmployeeId.class)
+@Table(indexes = {
+        @Index(name = "idx_employee_supervisor_name", columnList = "organisationId,supervisorName"),
+        @Index(name = "idx_employee_left_bound", columnList = "organisationId,leftBound"),
+        @Index(name = "idx_employee_depth_left_bound", columnList = "organisationId,depth,leftBound")
+})
 public class Employee {
 
+    @Id
+    private String organisationId;
     @Id
     private String employeeName;
+    // Null for the top supervisor
     private String supervisorName;
+    private Long leftBound;
+    private Long rightBound;
+    // Number of levels below the top supervisor, 0 for himself and 1 for his direct employees
+    private Integer depth;
+
+    public Employee(String organisationId, String employeeName, String supervisorName) {
+        this.organisationId = organisationId;
+        this.employeeName = employeeName;
+        this.supervisorName = supervisorName;
+    }
 }
@@ -0,0 +1,22 @@
+package personia.hr.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Primary key of an employee, names are unique within an organisation only
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeId implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String organisationId;
+    private String employeeName;
+}
@@ -0,0 +1,24 @@
+package personia.hr.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Revision of the stored employees of an organisation, a new random one is written in the transaction of every write.
+ * Snapshots record the revision they were taken at, so a snapshot of other rows is told apart from the database
+ * without reading them.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class HierarchyRevision {
+
+    @Id
+    private String organisationId;
+    private Long revision;
+}
@@ -1,26 +1,64 @@
 package personia.hr.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 @Slf4j
+@RequiredArgsConstructor
 @ControllerAdvice
 public class ExceptionHandlerAdvisor {
+    private static final String EXCEPTION_COUNTER = "hr.exceptions";
 
-    @ExceptionHandler({MultipleRootFoundException.class, LoopHierarchyException.class, InvalidValueException.class})
+    private final MeterRegistry meterRegistry;
+
+    @ExceptionHandler({MultipleRootFoundException.class, LoopHierarchyException.class, InvalidValueException.class,
+            InvalidLevelException.class, InvalidParameterException.class, InvalidBodyException.class,
+            ReservedNameException.class})
     public ResponseEntity<?> handleEmployeeInputException(Exception ex) {
         log.error(ex.getMessage());
+        countException(ex);
         return ResponseEntity.badRequest().body(ex.getMessage());
     }
 
-    @ExceptionHandler(NoEmployeeFoundException.class)
+    @ExceptionHandler({NoEmployeeFoundException.class, NoImportFoundException.class})
     public ResponseEntity<?> handleEmployeeNotFoundException(Exception ex) {
         log.error(ex.getMessage());
+        countException(ex);
         return ResponseEntity.status(NOT_FOUND).body(ex.getMessage());
     }
 
+    @ExceptionHandler(ImportRejectedException.class)
+    public ResponseEntity<?> handleImportRejectedException(Exception ex) {
+        log.error(ex.getMessage());
+        countException(ex);
+        return ResponseEntity.status(SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(WriteRejectedException.class)
+    public ResponseEntity<?> handleWriteRejectedException(Exception ex) {
+        log.error(ex.getMessage());
+        countException(ex);
+        return ResponseEntity.status(TOO_MANY_REQUESTS).body(ex.getMessage());
+    }
+
+    // Not an error of the upload itself, the caller must not retry it over the newer one
+    @ExceptionHandler(UploadSupersededException.class)
+    public ResponseEntity<?> handleUploadSupersededException(Exception ex) {
+        log.info(ex.getMessage());
+        countException(ex);
+        return ResponseEntity.status(CONFLICT).body(ex.getMessage());
+    }
+
+    private void countException(Exception ex) {
+        meterRegistry.counter(EXCEPTION_COUNTER, "exception", ex.getClass().getSimpleName()).increment();
+    }
 }
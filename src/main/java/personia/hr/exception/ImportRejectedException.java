@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class ImportRejectedException extends RuntimeException {
+
+    public ImportRejectedException() {
+        super("Too many imports are waiting, try again later");
+    }
+}
@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class InvalidBodyException extends RuntimeException {
+
+    public InvalidBodyException(String message) {
+        super(message);
+    }
+}
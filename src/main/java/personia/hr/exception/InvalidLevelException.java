@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class InvalidLevelException extends RuntimeException {
+
+    public InvalidLevelException(String level) {
+        super("Level: " + level + " is invalid, it must be a positive number or all");
+    }
+}
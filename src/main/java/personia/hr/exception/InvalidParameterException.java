@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class InvalidParameterException extends RuntimeException {
+
+    public InvalidParameterException(String parameter, String value) {
+        super("Parameter: " + parameter + " has invalid value " + value);
+    }
+}
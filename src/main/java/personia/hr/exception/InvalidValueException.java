@@ -1,5 +1,7 @@
 package personia.hr.exception;
 
+import java.util.Collection;
+
 public class InvalidValueException extends RuntimeException {
 
     public InvalidValueException() {
@@ -9,4 +11,10 @@ public class InvalidValueException extends RuntimeException {
     public InvalidValueException(String employeeName) {
         super("Employee: " + employeeName + " has invalid value");
     }
+
+    public InvalidValueException(Collection<String> employeeNames) {
+        super(employeeNames.size() == 1
+                ? "Employee: " + employeeNames.iterator().next() + " has invalid value"
+                : "Employees: " + String.join(", ", employeeNames) + " have invalid values");
+    }
 }
@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class NoImportFoundException extends RuntimeException {
+
+    public NoImportFoundException(String importId) {
+        super("Import: " + importId + " not found");
+    }
+}
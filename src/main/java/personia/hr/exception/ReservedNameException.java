@@ -0,0 +1,11 @@
+package personia.hr.exception;
+
+import java.util.Collection;
+
+public class ReservedNameException extends RuntimeException {
+
+    public ReservedNameException(Collection<String> employeeNames) {
+        super((employeeNames.size() == 1 ? "Name: " : "Names: ") + String.join(", ", employeeNames)
+                + " reserved for other paths under /employees");
+    }
+}
@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class UploadSupersededException extends RuntimeException {
+
+    public UploadSupersededException() {
+        super("Upload was not applied, a newer upload of the organisation replaced it");
+    }
+}
@@ -0,0 +1,8 @@
+package personia.hr.exception;
+
+public class WriteRejectedException extends RuntimeException {
+
+    public WriteRejectedException() {
+        super("Too many writes are waiting, try again later");
+    }
+}
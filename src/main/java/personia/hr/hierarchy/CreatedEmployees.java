@@ -0,0 +1,16 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Employees hierarchy stored by a full upload and what the upload changed in the previous one
+ */
+@Getter
+@AllArgsConstructor
+public class CreatedEmployees {
+    private final Map<String, Object> employees;
+    private final HierarchyChanges changes;
+}
@@ -0,0 +1,605 @@
+package personia.hr.hierarchy;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Resident index of the employees hierarchy.
+ * It is built once per committed hierarchy and serves all reads without touching the database.
+ * Names are numbered by a dictionary, supervisors are kept as an int array and employees of every supervisor
+ * as a range of one shared int array, so an employee costs a few ints besides his name.
+ * Arrays are paged and shared with the hierarchies changed from this one, a change copies the pages it writes
+ * and appends new ranges for the supervisors whose employees changed, the old ranges are left to readers of this one.
+ */
+public final class EmployeeHierarchy {
+    // Chains up to this many levels are walked over the supervisors array without building the ancestor index
+    private static final int SHORT_CHAIN_LEVELS = 8;
+    // Employee ranges left behind by changes are compacted once they outgrow the live ones by this many ids
+    private static final int MAX_UNUSED_EMPLOYEE_IDS = 1024;
+    private static final EmployeeHierarchy EMPTY = new EmployeeHierarchy(new NameDictionary(0), new int[0], NO_ID);
+
+    // Employees and the top supervisor, numbered from 0
+    private final NameDictionary names;
+    // supervisorIds[id] is the id of the supervisor of id, NO_ID for the top supervisor
+    private final PagedIntArray supervisorIds;
+    // Employees of supervisor id are employeeIds[employeeStarts[id]] until employeeIds[employeeStarts[id] + employeeCounts[id]]
+    private final PagedIntArray employeeStarts;
+    private final PagedIntArray employeeCounts;
+    private final PagedIntArray employeeIds;
+    private final int topSupervisorId;
+    // Set when the hierarchy is published
+    private final HierarchyVersion version;
+    // Built on the first supervisor chain query
+    private volatile SupervisorChainIndex supervisorChainIndex;
+    // Built on the first stats query
+    private volatile HierarchyStatistics statistics;
+    // Built on the first search
+    private volatile NamePrefixIndex namePrefixIndex;
+    // Computed on first access, -1 until then
+    private volatile int depth = -1;
+    private volatile int maxFanOut = -1;
+
+    // Hierarchy of names numbered in input order, employees lists follow id order
+    EmployeeHierarchy(NameDictionary names, int[] supervisorIds, int topSupervisorId) {
+        this.names = names;
+        this.topSupervisorId = topSupervisorId;
+        this.version = null;
+
+        // Count employees of every supervisor, then place them in id order so employees lists follow input order
+        int size = supervisorIds.length;
+        this.supervisorIds = new PagedIntArray(size);
+        employeeCounts = new PagedIntArray(size);
+        for (int id = 0; id < size; id++) {
+            int supervisorId = supervisorIds[id];
+            this.supervisorIds.set(id, supervisorId);
+            if (supervisorId != NO_ID) {
+                employeeCounts.set(supervisorId, employeeCounts.get(supervisorId) + 1);
+            }
+        }
+
+        employeeStarts = new PagedIntArray(size);
+        int[] nextPositions = new int[size];
+        for (int id = 1; id < size; id++) {
+            nextPositions[id] = nextPositions[id - 1] + employeeCounts.get(id - 1);
+            employeeStarts.set(id, nextPositions[id]);
+        }
+
+        employeeIds = new PagedIntArray(Math.max(size - 1, 0));
+        for (int id = 0; id < size; id++) {
+            int supervisorId = supervisorIds[id];
+            if (supervisorId != NO_ID) {
+                employeeIds.set(nextPositions[supervisorId]++, id);
+            }
+        }
+    }
+
+    private EmployeeHierarchy(HierarchyChange change) {
+        this.names = change.names;
+        this.supervisorIds = change.supervisorIds;
+        this.employeeStarts = change.employeeStarts;
+        this.employeeCounts = change.employeeCounts;
+        this.employeeIds = change.employeeIds;
+        this.topSupervisorId = change.topSupervisorId;
+        this.version = null;
+    }
+
+    // Same hierarchy with another version, arrays and computed indexes are shared
+    private EmployeeHierarchy(EmployeeHierarchy hierarchy, HierarchyVersion version) {
+        this.names = hierarchy.names;
+        this.supervisorIds = hierarchy.supervisorIds;
+        this.employeeStarts = hierarchy.employeeStarts;
+        this.employeeCounts = hierarchy.employeeCounts;
+        this.employeeIds = hierarchy.employeeIds;
+        this.topSupervisorId = hierarchy.topSupervisorId;
+        this.version = version;
+        this.supervisorChainIndex = hierarchy.supervisorChainIndex;
+        this.statistics = hierarchy.statistics;
+        this.namePrefixIndex = hierarchy.namePrefixIndex;
+        this.depth = hierarchy.depth;
+        this.maxFanOut = hierarchy.maxFanOut;
+    }
+
+    public static EmployeeHierarchy empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return topSupervisorId == NO_ID;
+    }
+
+    public boolean containsEmployee(String employeeName) {
+        int id = names.idOf(employeeName);
+        return id != NO_ID && supervisorIds.get(id) != NO_ID;
+    }
+
+    // Employees and the top supervisor are members, other names are unknown
+    public boolean containsMember(String name) {
+        return names.idOf(name) != NO_ID;
+    }
+
+    public Optional<String> getSupervisor(String employeeName) {
+        int id = names.idOf(employeeName);
+        return id == NO_ID || supervisorIds.get(id) == NO_ID
+                ? Optional.empty()
+                : Optional.of(names.nameOf(supervisorIds.get(id)));
+    }
+
+    public List<String> getEmployees(String supervisorName) {
+        int id = names.idOf(supervisorName);
+        return id == NO_ID || getEmployeeCount(id) == 0 ? Collections.emptyList() : new EmployeeNames(id);
+    }
+
+    /**
+     * Get supervisor at given level above employee
+     *
+     * @param employeeName: Employee name
+     * @param level:        1 is the direct supervisor
+     * @return Supervisor name, empty when the chain up to the top supervisor is shorter than level
+     */
+    public Optional<String> getSupervisor(String employeeName, int level) {
+        int id = names.idOf(employeeName);
+        int supervisorId = id == NO_ID ? NO_ID : getSupervisorChainIndex().getSupervisor(id, level);
+        return supervisorId == NO_ID ? Optional.empty() : Optional.of(names.nameOf(supervisorId));
+    }
+
+    /**
+     * Get supervisors of employee, ordered from the direct supervisor upwards
+     *
+     * @param employeeName: Employee name
+     * @param levels:       Maximum number of supervisors
+     * @return Supervisor names, at most levels of them
+     */
+    public List<String> getSupervisorChain(String employeeName, int levels) {
+        int id = names.idOf(employeeName);
+        return id == NO_ID ? Collections.emptyList() : getSupervisorChain(id, levels);
+    }
+
+    /**
+     * Get supervisors of many members reading this hierarchy once.
+     * Chains are views over the supervisors of this hierarchy, names are read only when a chain is iterated,
+     * so a batch costs one dictionary lookup per name however deep and overlapping the chains are.
+     * Employees of the same supervisor share one view.
+     *
+     * @param employeeNames: Names to look up, unknown names are answered as not found
+     * @param levels:        Maximum number of supervisors of every chain
+     * @return Chains in the order of the names
+     */
+    public List<SupervisorChain> getSupervisorChains(List<String> employeeNames, int levels) {
+        Map<Integer, List<String>> chainsBySupervisor = new HashMap<>();
+        List<SupervisorChain> chains = new ArrayList<>(employeeNames.size());
+        for (String employeeName : employeeNames) {
+            int id = names.idOf(employeeName);
+            if (id == NO_ID) {
+                chains.add(new SupervisorChain(employeeName, false, Collections.emptyList()));
+            } else if (supervisorIds.get(id) == NO_ID) {
+                chains.add(new SupervisorChain(employeeName, true, Collections.emptyList()));
+            } else {
+                List<String> supervisorChain = chainsBySupervisor.computeIfAbsent(supervisorIds.get(id),
+                        supervisorId -> new SupervisorNames(id, getSupervisorChainSize(id, levels)));
+                chains.add(new SupervisorChain(employeeName, true, supervisorChain));
+            }
+        }
+        return chains;
+    }
+
+    private List<String> getSupervisorChain(int id, int levels) {
+        return new ArrayList<>(new SupervisorNames(id, getSupervisorChainSize(id, levels)));
+    }
+
+    // Number of supervisors in the chain of employee cut at levels, short chains are counted without the ancestor index
+    private int getSupervisorChainSize(int id, int levels) {
+        if (levels > SHORT_CHAIN_LEVELS) {
+            return Math.min(levels, getSupervisorChainIndex().getDepth(id));
+        }
+
+        int size = 0;
+        for (int supervisorId = supervisorIds.get(id); supervisorId != NO_ID && size < levels;
+             supervisorId = supervisorIds.get(supervisorId)) {
+            size++;
+        }
+        return size;
+    }
+
+    private SupervisorChainIndex getSupervisorChainIndex() {
+        SupervisorChainIndex index = supervisorChainIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = supervisorChainIndex;
+                if (index == null) {
+                    index = new SupervisorChainIndex(this);
+                    supervisorChainIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // Analytics of the whole organisation, computed once per hierarchy
+    public HierarchyStats getStats() {
+        return getStatistics().getHierarchyStats();
+    }
+
+    // Team of one member, empty when the name is unknown
+    public Optional<EmployeeStats> getStats(String name) {
+        int id = names.idOf(name);
+        return id == NO_ID ? Optional.empty() : Optional.of(getStatistics().getEmployeeStats(id));
+    }
+
+    private HierarchyStatistics getStatistics() {
+        HierarchyStatistics hierarchyStatistics = statistics;
+        if (hierarchyStatistics == null) {
+            synchronized (this) {
+                hierarchyStatistics = statistics;
+                if (hierarchyStatistics == null) {
+                    hierarchyStatistics = new HierarchyStatistics(this);
+                    statistics = hierarchyStatistics;
+                }
+            }
+        }
+        return hierarchyStatistics;
+    }
+
+    /**
+     * Find members whose name starts with prefix, ignoring case
+     *
+     * @param prefix: Start of the names, empty matches every member
+     * @param limit:  Maximum number of matches
+     * @return Matches with their direct supervisor, in name order ignoring case
+     */
+    public List<EmployeeMatch> search(String prefix, int limit) {
+        NamePrefixIndex index = namePrefixIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = namePrefixIndex;
+                if (index == null) {
+                    index = new NamePrefixIndex(this);
+                    namePrefixIndex = index;
+                }
+            }
+        }
+        return index.search(prefix, limit);
+    }
+
+    // Number of levels below the top supervisor
+    public int getDepth() {
+        if (depth < 0) {
+            int levels = 0;
+            if (!isEmpty()) {
+                // Breadth first over ids, each level is a range of the queue
+                int[] queue = new int[supervisorIds.length()];
+                int levelStart = 0;
+                int levelEnd = 1;
+                queue[0] = topSupervisorId;
+                while (true) {
+                    int next = levelEnd;
+                    for (int i = levelStart; i < levelEnd; i++) {
+                        for (int index = 0; index < getEmployeeCount(queue[i]); index++) {
+                            queue[next++] = getEmployeeId(queue[i], index);
+                        }
+                    }
+                    if (next == levelEnd) {
+                        break;
+                    }
+                    levels++;
+                    levelStart = levelEnd;
+                    levelEnd = next;
+                }
+            }
+            depth = levels;
+        }
+        return depth;
+    }
+
+    // Largest number of direct employees of one supervisor
+    public int getMaxFanOut() {
+        if (maxFanOut < 0) {
+            int max = 0;
+            for (int id = 0; id < supervisorIds.length(); id++) {
+                max = Math.max(max, getEmployeeCount(id));
+            }
+            maxFanOut = max;
+        }
+        return maxFanOut;
+    }
+
+    public EmployeeHierarchy withVersion(HierarchyVersion version) {
+        return new EmployeeHierarchy(this, version);
+    }
+
+    // Null until the hierarchy is published
+    public HierarchyVersion getVersion() {
+        return version;
+    }
+
+    public String getTopSupervisor() {
+        return isEmpty() ? null : names.nameOf(topSupervisorId);
+    }
+
+    public int size() {
+        return isEmpty() ? 0 : supervisorIds.length() - 1;
+    }
+
+    // Id based access for walks over the whole hierarchy, ids run from 0 to size()
+
+    int idOf(String name) {
+        return names.idOf(name);
+    }
+
+    String nameOf(int id) {
+        return names.nameOf(id);
+    }
+
+    int getTopSupervisorId() {
+        return topSupervisorId;
+    }
+
+    int getSupervisorId(int id) {
+        return supervisorIds.get(id);
+    }
+
+    int getEmployeeCount(int id) {
+        return employeeCounts.get(id);
+    }
+
+    // Get id of the employee at index of supervisor's employees
+    int getEmployeeId(int supervisorId, int index) {
+        return employeeIds.get(employeeStarts.get(supervisorId) + index);
+    }
+
+    // Number of employees and the top supervisor, ids run from 0 below it
+    int memberCount() {
+        return supervisorIds.length();
+    }
+
+    /**
+     * Copy this hierarchy with changes applied.
+     * Only the pages holding changed members and the ranges of supervisors whose employees changed are copied,
+     * unchanged employees keep their order and changed ones follow them,
+     * so a moved employee is listed last among his new supervisor's employees.
+     *
+     * @param changes:       Key is employee and value is new supervisor, null value removes the employee
+     * @param topSupervisor: Top supervisor after changes
+     * @return Changed hierarchy, this one is left unchanged for readers still using it
+     */
+    EmployeeHierarchy withChanges(Map<String, String> changes, String topSupervisor) {
+        HierarchyChange change = new HierarchyChange(this);
+        List<String> addedNames = new ArrayList<>();
+        List<String> removedNames = new ArrayList<>();
+
+        // New members get their ids first, so every supervisor named by the changes has one
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            if (entry.getValue() != null && change.addMember(entry.getKey())) {
+                addedNames.add(entry.getKey());
+            }
+        }
+        if (change.addMember(topSupervisor)) {
+            addedNames.add(topSupervisor);
+        }
+
+        // Changed employees leave the employees of their supervisor and join the end of their new supervisor's
+        Map<Integer, Set<Integer>> leavingIds = new HashMap<>();
+        Map<Integer, List<Integer>> joiningIds = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            int id = change.names.idOf(entry.getKey());
+            int supervisorId = change.supervisorIds.get(id);
+            int newSupervisorId = change.names.idOf(entry.getValue());
+            if (supervisorId != NO_ID) {
+                leavingIds.computeIfAbsent(supervisorId, it -> new HashSet<>()).add(id);
+            }
+            if (newSupervisorId != NO_ID) {
+                joiningIds.computeIfAbsent(newSupervisorId, it -> new ArrayList<>()).add(id);
+            }
+            change.supervisorIds.set(id, newSupervisorId);
+        }
+        Set<Integer> changedSupervisorIds = new LinkedHashSet<>(leavingIds.keySet());
+        changedSupervisorIds.addAll(joiningIds.keySet());
+        for (int supervisorId : changedSupervisorIds) {
+            change.replaceEmployees(supervisorId, leavingIds.getOrDefault(supervisorId, Collections.emptySet()),
+                    joiningIds.getOrDefault(supervisorId, Collections.emptyList()));
+        }
+        change.topSupervisorId = change.names.idOf(topSupervisor);
+
+        // Removed employees and a former top supervisor left without employees are dropped
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            if (entry.getValue() == null && !entry.getKey().equals(topSupervisor)) {
+                change.removeMember(change.names.idOf(entry.getKey()));
+                removedNames.add(entry.getKey());
+            }
+        }
+        int formerTopSupervisorId = isEmpty() ? NO_ID : change.names.idOf(getTopSupervisor());
+        if (formerTopSupervisorId != NO_ID && formerTopSupervisorId != change.topSupervisorId
+                && change.supervisorIds.get(formerTopSupervisorId) == NO_ID) {
+            change.removeMember(formerTopSupervisorId);
+            removedNames.add(getTopSupervisor());
+        }
+
+        change.compactEmployeeIds();
+        EmployeeHierarchy changedHierarchy = new EmployeeHierarchy(change);
+        // Searched hierarchies keep their name index up to date, others build it on their first search
+        NamePrefixIndex index = namePrefixIndex;
+        if (index != null) {
+            changedHierarchy.namePrefixIndex = index.withChanges(changedHierarchy, addedNames, removedNames);
+        }
+        return changedHierarchy;
+    }
+
+    // Copies of the arrays of a hierarchy being changed, they share pages with it until they write them
+    private static final class HierarchyChange {
+        private final NameDictionary names;
+        private final PagedIntArray supervisorIds;
+        private final PagedIntArray employeeStarts;
+        private final PagedIntArray employeeCounts;
+        private PagedIntArray employeeIds;
+        private int topSupervisorId;
+
+        private HierarchyChange(EmployeeHierarchy hierarchy) {
+            names = hierarchy.names.copy();
+            supervisorIds = hierarchy.supervisorIds.copy();
+            employeeStarts = hierarchy.employeeStarts.copy();
+            employeeCounts = hierarchy.employeeCounts.copy();
+            employeeIds = hierarchy.employeeIds.copy();
+            topSupervisorId = hierarchy.topSupervisorId;
+        }
+
+        // Add a member without supervisor nor employees, false when the name is a member already
+        private boolean addMember(String name) {
+            int id = names.add(name);
+            if (id < supervisorIds.length()) {
+                return false;
+            }
+            supervisorIds.add(NO_ID);
+            employeeStarts.add(0);
+            employeeCounts.add(0);
+            return true;
+        }
+
+        // Append the new employees range of a supervisor, the old one is no longer referenced
+        private void replaceEmployees(int supervisorId, Set<Integer> leavingIds, List<Integer> joiningIds) {
+            int start = employeeStarts.get(supervisorId);
+            int end = start + employeeCounts.get(supervisorId);
+            int newStart = employeeIds.length();
+            for (int position = start; position < end; position++) {
+                int employeeId = employeeIds.get(position);
+                if (!leavingIds.contains(employeeId)) {
+                    employeeIds.add(employeeId);
+                }
+            }
+            joiningIds.forEach(employeeIds::add);
+            employeeStarts.set(supervisorId, newStart);
+            employeeCounts.set(supervisorId, employeeIds.length() - newStart);
+        }
+
+        // Remove a member without supervisor nor employees, the last member takes its id
+        private void removeMember(int id) {
+            int lastId = supervisorIds.length() - 1;
+            names.remove(id);
+            if (id != lastId) {
+                int supervisorId = supervisorIds.get(lastId);
+                int start = employeeStarts.get(lastId);
+                int count = employeeCounts.get(lastId);
+                supervisorIds.set(id, supervisorId);
+                employeeStarts.set(id, start);
+                employeeCounts.set(id, count);
+                for (int position = start; position < start + count; position++) {
+                    supervisorIds.set(employeeIds.get(position), id);
+                }
+                if (supervisorId != NO_ID) {
+                    int position = employeeStarts.get(supervisorId);
+                    while (employeeIds.get(position) != lastId) {
+                        position++;
+                    }
+                    employeeIds.set(position, id);
+                }
+                if (topSupervisorId == lastId) {
+                    topSupervisorId = id;
+                }
+            }
+            supervisorIds.removeLast();
+            employeeStarts.removeLast();
+            employeeCounts.removeLast();
+        }
+
+        // Copy live ranges into a new array once unused ones take more room than them, which costs as many
+        // ids as the changes appended since the previous compaction
+        private void compactEmployeeIds() {
+            int employeeCount = Math.max(supervisorIds.length() - 1, 0);
+            if (employeeIds.length() - employeeCount <= Math.max(employeeCount, MAX_UNUSED_EMPLOYEE_IDS)) {
+                return;
+            }
+
+            PagedIntArray compactedEmployeeIds = new PagedIntArray(0);
+            for (int id = 0; id < supervisorIds.length(); id++) {
+                int start = employeeStarts.get(id);
+                employeeStarts.set(id, compactedEmployeeIds.length());
+                for (int position = start; position < start + employeeCounts.get(id); position++) {
+                    compactedEmployeeIds.add(employeeIds.get(position));
+                }
+            }
+            employeeIds = compactedEmployeeIds;
+        }
+    }
+
+    // Names of employees of one supervisor, read from the shared arrays
+    private final class EmployeeNames extends AbstractList<String> implements RandomAccess {
+        private final int supervisorId;
+
+        private EmployeeNames(int supervisorId) {
+            this.supervisorId = supervisorId;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return names.nameOf(getEmployeeId(supervisorId, index));
+        }
+
+        @Override
+        public int size() {
+            return getEmployeeCount(supervisorId);
+        }
+    }
+
+    // Supervisors of an employee from the direct one upwards, walked over the supervisors array when iterated
+    private final class SupervisorNames extends AbstractList<String> {
+        private final int employeeId;
+        private final int size;
+
+        private SupervisorNames(int employeeId, int size) {
+            this.employeeId = employeeId;
+            this.size = size;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return names.nameOf(getSupervisorChainIndex().getSupervisor(employeeId, index + 1));
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int supervisorId = supervisorIds.get(employeeId);
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String name = names.nameOf(supervisorId);
+                    supervisorId = supervisorIds.get(supervisorId);
+                    index++;
+                    return name;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
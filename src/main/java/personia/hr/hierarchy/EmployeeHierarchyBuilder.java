@@ -0,0 +1,97 @@
+package personia.hr.hierarchy;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Collect employees and supervisors one by one without a map of strings, for input read as a stream.
+ * Every name is kept once whatever number of times it is read, entries keep the order they were added in
+ * and adding an employee again replaces his supervisor like putting into a LinkedHashMap.
+ * Validate with EmployeeHierarchyValidator.validate(builder).
+ */
+public final class EmployeeHierarchyBuilder {
+    // Supervisor value given as null, reported as invalid on validation
+    private static final int NULL_SUPERVISOR = -2;
+
+    private final NameDictionary names;
+    // Name ids of employees in the order they were added
+    private int[] employeeIds;
+    // supervisorIds[name id] is the name id of his supervisor, NO_ID when the name was not added as an employee
+    private int[] supervisorIds;
+    private int size;
+
+    public EmployeeHierarchyBuilder() {
+        this(1024);
+    }
+
+    public EmployeeHierarchyBuilder(int expectedSize) {
+        names = new NameDictionary(expectedSize);
+        employeeIds = new int[Math.max(expectedSize, 16)];
+        supervisorIds = new int[Math.max(expectedSize, 16)];
+        Arrays.fill(supervisorIds, NO_ID);
+    }
+
+    /**
+     * Add employee with his supervisor
+     *
+     * @param employeeName:   Employee name
+     * @param supervisorName: Supervisor name, null is kept and reported as invalid on validation
+     * @return This builder
+     */
+    public EmployeeHierarchyBuilder add(String employeeName, String supervisorName) {
+        int employeeId = addName(employeeName);
+        int supervisorId = supervisorName == null ? NULL_SUPERVISOR : addName(supervisorName);
+
+        if (supervisorIds[employeeId] == NO_ID) {
+            if (size == employeeIds.length) {
+                employeeIds = Arrays.copyOf(employeeIds, size * 2);
+            }
+            employeeIds[size++] = employeeId;
+        }
+        supervisorIds[employeeId] = supervisorId;
+        return this;
+    }
+
+    // Number of employees added
+    public int size() {
+        return size;
+    }
+
+    // Employees and supervisors in the order they were added
+    Iterable<Map.Entry<String, String>> entries() {
+        return () -> new Iterator<Map.Entry<String, String>>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Map.Entry<String, String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int employeeId = employeeIds[next++];
+                int supervisorId = supervisorIds[employeeId];
+                return new AbstractMap.SimpleImmutableEntry<>(names.nameOf(employeeId),
+                        supervisorId == NULL_SUPERVISOR ? null : names.nameOf(supervisorId));
+            }
+        };
+    }
+
+    private int addName(String name) {
+        int id = names.add(name);
+        if (id == supervisorIds.length) {
+            int length = supervisorIds.length;
+            supervisorIds = Arrays.copyOf(supervisorIds, length * 2);
+            Arrays.fill(supervisorIds, length, length * 2, NO_ID);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,50 @@
+package personia.hr.hierarchy;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import personia.hr.exception.InvalidBodyException;
+
+import java.io.IOException;
+
+/**
+ * Read employees from a JSON object token by token, the same form as POST /employees body.
+ * Names go straight into the builder, so the body is never held as a tree or a map of strings.
+ */
+public final class EmployeeHierarchyReader {
+
+    private EmployeeHierarchyReader() {
+    }
+
+    /**
+     * Read employees
+     *
+     * @param parser: Parser positioned before the JSON object
+     * @return Builder of read employees and supervisors
+     * @throws InvalidBodyException: Body is not a JSON object of employee and supervisor names
+     */
+    public static EmployeeHierarchyBuilder readEmployees(JsonParser parser) throws IOException {
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder();
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidBodyException("Body is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String employeeName = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!value.isScalarValue()) {
+                    throw new InvalidBodyException("Employee: " + employeeName + " has no supervisor name");
+                }
+                employees.add(employeeName, value == JsonToken.VALUE_NULL ? null : parser.getText());
+            }
+
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new InvalidBodyException("Body has content after the JSON object");
+            }
+        } catch (JsonProcessingException ex) {
+            throw new InvalidBodyException(ex.getOriginalMessage());
+        }
+        return employees;
+    }
+}
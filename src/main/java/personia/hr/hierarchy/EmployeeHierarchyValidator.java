@@ -0,0 +1,308 @@
+package personia.hr.hierarchy;
+
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import personia.hr.exception.InvalidValueException;
+import personia.hr.exception.LoopHierarchyException;
+import personia.hr.exception.MultipleRootFoundException;
+import personia.hr.exception.ReservedNameException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Validate relationships between employees and supervisors and build their hierarchy index in linear time.
+ * Every offending employee is reported at once instead of stopping at the first one.
+ */
+public final class EmployeeHierarchyValidator {
+    // Paths of EmployeeController next to /employees/{employeeName}, employees with these names could not be read.
+    // EmployeeControllerTest checks every literal first segment of its mappings is listed here.
+    public static final Set<String> RESERVED_NAMES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("stats", "search", "lookup", "imports")));
+
+    private EmployeeHierarchyValidator() {
+    }
+
+    /**
+     * Validate employees and build hierarchy index
+     *
+     * @param inputEmployees: Key is employee and value is supervisor
+     * @return Hierarchy index of valid employees
+     * @throws InvalidValueException:      Empty input, empty supervisor or employee supervising himself
+     * @throws ReservedNameException:      Employee or supervisor named like another path under /employees
+     * @throws MultipleRootFoundException: More than one top supervisor found
+     * @throws LoopHierarchyException:     Some employees report to each other in a loop
+     */
+    public static EmployeeHierarchy validate(Map<String, String> inputEmployees) {
+        // Check input is empty or not
+        if (CollectionUtils.isEmpty(inputEmployees)) {
+            throw new InvalidValueException();
+        }
+
+        return validate(inputEmployees.entrySet(), inputEmployees.size(), true);
+    }
+
+    /**
+     * Validate employees read from the database and build hierarchy index.
+     * Names reserved for other paths are let through, employees stored before they were reserved stay readable
+     * in the hierarchy even though not by their own path.
+     *
+     * @param storedEmployees: Key is employee and value is supervisor
+     * @return Hierarchy index of stored employees
+     * @throws InvalidValueException:      Empty input, empty supervisor or employee supervising himself
+     * @throws MultipleRootFoundException: More than one top supervisor found
+     * @throws LoopHierarchyException:     Some employees report to each other in a loop
+     */
+    public static EmployeeHierarchy validateStored(Map<String, String> storedEmployees) {
+        // Check input is empty or not
+        if (CollectionUtils.isEmpty(storedEmployees)) {
+            throw new InvalidValueException();
+        }
+
+        return validate(storedEmployees.entrySet(), storedEmployees.size(), false);
+    }
+
+    /**
+     * Validate employees collected from a stream and build hierarchy index
+     *
+     * @param employees: Employees and supervisors in input order
+     * @return Hierarchy index of valid employees
+     * @throws InvalidValueException:      Empty input, empty supervisor or employee supervising himself
+     * @throws ReservedNameException:      Employee or supervisor named like another path under /employees
+     * @throws MultipleRootFoundException: More than one top supervisor found
+     * @throws LoopHierarchyException:     Some employees report to each other in a loop
+     */
+    public static EmployeeHierarchy validate(EmployeeHierarchyBuilder employees) {
+        // Check input is empty or not
+        if (employees.size() == 0) {
+            throw new InvalidValueException();
+        }
+
+        return validate(employees.entries(), employees.size(), true);
+    }
+
+    private static EmployeeHierarchy validate(Iterable<Map.Entry<String, String>> inputEmployees, int size,
+                                              boolean checkReservedNames) {
+        // Employees are numbered in input order, so employees lists and pages of reports follow it
+        NameDictionary names = new NameDictionary(size + 1);
+        inputEmployees.forEach(it -> names.add(it.getKey()));
+        int[] supervisorIds = new int[size + 1];
+        Set<String> invalidEmployees = new LinkedHashSet<>();
+        Set<String> reservedNames = new LinkedHashSet<>();
+        Set<String> topSupervisors = new LinkedHashSet<>();
+
+        // Collect invalid values, supervisor ids and top supervisors in one pass
+        int id = 0;
+        for (Map.Entry<String, String> entry : inputEmployees) {
+            String employeeName = entry.getKey();
+            String supervisorName = entry.getValue();
+            if (StringUtils.isEmpty(supervisorName) || employeeName.equalsIgnoreCase(supervisorName)) {
+                invalidEmployees.add(employeeName);
+                id++;
+                continue;
+            }
+            if (checkReservedNames) {
+                addReservedNames(reservedNames, employeeName, supervisorName);
+            }
+
+            int supervisorId = names.idOf(supervisorName);
+            if (supervisorId == NO_ID || supervisorId >= size) {
+                topSupervisors.add(supervisorName);
+                supervisorId = names.add(supervisorName);
+            }
+            supervisorIds[id++] = supervisorId;
+        }
+
+        if (!invalidEmployees.isEmpty()) {
+            throw new InvalidValueException(invalidEmployees);
+        }
+
+        if (!reservedNames.isEmpty()) {
+            throw new ReservedNameException(reservedNames);
+        }
+
+        if (topSupervisors.size() > 1) {
+            throw new MultipleRootFoundException(new ArrayList<>(topSupervisors));
+        }
+
+        supervisorIds[size] = NO_ID;
+        Set<String> loopEmployees = findLoopEmployees(names, supervisorIds, size);
+        if (!loopEmployees.isEmpty()) {
+            throw new LoopHierarchyException(loopEmployees);
+        }
+
+        return new EmployeeHierarchy(names, supervisorIds, size);
+    }
+
+    /**
+     * Validate changes against current hierarchy and build the changed hierarchy index.
+     * Only changed employees, their supervisors and their chains up to the top supervisor are visited.
+     *
+     * @param hierarchy: Current hierarchy index
+     * @param changes:   Key is employee and value is new supervisor, null value removes the employee
+     * @return Hierarchy index with changes applied
+     * @throws InvalidValueException:      Empty changes, empty supervisor, employee supervising himself
+     *                                     or removed employee not found
+     * @throws ReservedNameException:      Added or moved employee or his supervisor named like another path under
+     *                                     /employees
+     * @throws MultipleRootFoundException: Changes would leave more than one top supervisor
+     * @throws LoopHierarchyException:     Changes would make some employees report to each other in a loop
+     */
+    public static EmployeeHierarchy validateChanges(EmployeeHierarchy hierarchy, Map<String, String> changes) {
+        // Check changes are empty or not
+        if (CollectionUtils.isEmpty(changes)) {
+            throw new InvalidValueException();
+        }
+
+        Set<String> invalidEmployees = new LinkedHashSet<>();
+        Set<String> reservedNames = new LinkedHashSet<>();
+        // Key is supervisor and value is how many employees the supervisor gains or loses
+        Map<String, Integer> employeeCountChanges = new HashMap<>();
+        int employeeCount = hierarchy.size();
+
+        for (Map.Entry<String, String> entry : changes.entrySet()) {
+            String employeeName = entry.getKey();
+            String supervisorName = entry.getValue();
+            Optional<String> currentSupervisor = hierarchy.getSupervisor(employeeName);
+            if (supervisorName == null ? !currentSupervisor.isPresent()
+                    : supervisorName.isEmpty() || employeeName.equalsIgnoreCase(supervisorName)) {
+                invalidEmployees.add(employeeName);
+                continue;
+            }
+
+            currentSupervisor.ifPresent(it -> employeeCountChanges.merge(it, -1, Integer::sum));
+            if (supervisorName != null) {
+                addReservedNames(reservedNames, employeeName, supervisorName);
+                employeeCountChanges.merge(supervisorName, 1, Integer::sum);
+            }
+            employeeCount += (supervisorName == null ? -1 : 0) + (currentSupervisor.isPresent() ? 0 : 1);
+        }
+
+        if (!invalidEmployees.isEmpty()) {
+            throw new InvalidValueException(invalidEmployees);
+        }
+
+        if (!reservedNames.isEmpty()) {
+            throw new ReservedNameException(reservedNames);
+        }
+
+        Function<String, String> supervisorOf = name -> changes.containsKey(name)
+                ? changes.get(name)
+                : hierarchy.getSupervisor(name).orElse(null);
+
+        // Only current top supervisor, new supervisors and removed employees can be top supervisors after changes
+        Set<String> candidates = new LinkedHashSet<>();
+        Optional.ofNullable(hierarchy.getTopSupervisor()).ifPresent(candidates::add);
+        candidates.addAll(changes.values());
+        candidates.addAll(changes.keySet());
+        candidates.remove(null);
+
+        List<String> topSupervisors = new ArrayList<>();
+        for (String candidate : candidates) {
+            int candidateId = hierarchy.idOf(candidate);
+            int candidateEmployeeCount = (candidateId == NO_ID ? 0 : hierarchy.getEmployeeCount(candidateId))
+                    + employeeCountChanges.getOrDefault(candidate, 0);
+            if (supervisorOf.apply(candidate) == null && candidateEmployeeCount > 0) {
+                topSupervisors.add(candidate);
+            }
+        }
+
+        if (topSupervisors.size() > 1) {
+            throw new MultipleRootFoundException(topSupervisors);
+        }
+
+        // Any new loop has to go through a changed employee
+        Set<String> loopEmployees = findChangedLoopEmployees(changes.keySet(), supervisorOf);
+        if (!loopEmployees.isEmpty()) {
+            throw new LoopHierarchyException(loopEmployees);
+        }
+
+        if (employeeCount == 0) {
+            return EmployeeHierarchy.empty();
+        }
+
+        return hierarchy.withChanges(changes, topSupervisors.get(0));
+    }
+
+    private static void addReservedNames(Set<String> reservedNames, String employeeName, String supervisorName) {
+        if (RESERVED_NAMES.contains(employeeName)) {
+            reservedNames.add(employeeName);
+        }
+        if (RESERVED_NAMES.contains(supervisorName)) {
+            reservedNames.add(supervisorName);
+        }
+    }
+
+    // Walk up from every employee, stamping visited employees with the walk they were reached in.
+    // Reaching an employee stamped by the current walk means the walk went round a loop.
+    // Every employee is walked through only once, so all loops are found in linear time.
+    private static Set<String> findLoopEmployees(NameDictionary names, int[] supervisorIds, int employeeCount) {
+        // Walk of employee id is employee id + 1, 0 until the employee is visited
+        int[] walkById = new int[supervisorIds.length];
+        Set<String> loopEmployees = new LinkedHashSet<>();
+
+        for (int employeeId = 0; employeeId < employeeCount; employeeId++) {
+            int walk = employeeId + 1;
+            int id = employeeId;
+            while (walkById[id] == 0 && supervisorIds[id] != NO_ID) {
+                walkById[id] = walk;
+                id = supervisorIds[id];
+            }
+
+            if (walkById[id] == walk) {
+                // Collect the loop starting from the employee reached twice
+                int loopEmployeeId = id;
+                do {
+                    loopEmployees.add(names.nameOf(loopEmployeeId));
+                    loopEmployeeId = supervisorIds[loopEmployeeId];
+                } while (loopEmployeeId != id);
+            }
+        }
+
+        return loopEmployees;
+    }
+
+    // Same walk as findLoopEmployees over names, only changed employees and their chains are visited
+    private static Set<String> findChangedLoopEmployees(Collection<String> employeeNames, Function<String, String> supervisorOf) {
+        Map<String, Integer> walkByEmployee = new HashMap<>(employeeNames.size() * 2);
+        Set<String> loopEmployees = new LinkedHashSet<>();
+        int walk = 0;
+
+        for (String employeeName : employeeNames) {
+            walk++;
+            String name = employeeName;
+            while (!walkByEmployee.containsKey(name)) {
+                String supervisorName = supervisorOf.apply(name);
+                if (supervisorName == null) {
+                    break;
+                }
+                walkByEmployee.put(name, walk);
+                name = supervisorName;
+            }
+
+            Integer reachedWalk = walkByEmployee.get(name);
+            if (reachedWalk != null && reachedWalk == walk) {
+                // Collect the loop starting from the employee reached twice
+                String loopEmployee = name;
+                do {
+                    loopEmployees.add(loopEmployee);
+                    loopEmployee = supervisorOf.apply(loopEmployee);
+                } while (!loopEmployee.equals(name));
+            }
+        }
+
+        return loopEmployees;
+    }
+}
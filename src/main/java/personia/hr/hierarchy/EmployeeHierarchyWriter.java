@@ -0,0 +1,83 @@
+package personia.hr.hierarchy;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Write the employees hierarchy straight from the hierarchy index, as nested objects or as flat parallel arrays.
+ * Any Jackson generator can be used, so the same shapes are written as JSON or as binary Smile and CBOR.
+ */
+public final class EmployeeHierarchyWriter {
+
+    private EmployeeHierarchyWriter() {
+    }
+
+    // Nested objects keyed by name, only one position per level is kept so memory is proportional to the depth
+    public static void writeEmployees(EmployeeHierarchy hierarchy, JsonGenerator generator) throws IOException {
+        // Supervisor ids of the open objects and the index of the next employee to write in each of them
+        int[] supervisorIds = new int[16];
+        int[] nextIndexes = new int[16];
+        int level = 0;
+        supervisorIds[0] = hierarchy.getTopSupervisorId();
+
+        generator.writeStartObject();
+        generator.writeFieldName(hierarchy.getTopSupervisor());
+        generator.writeStartObject();
+
+        while (level >= 0) {
+            int supervisorId = supervisorIds[level];
+            if (nextIndexes[level] == hierarchy.getEmployeeCount(supervisorId)) {
+                generator.writeEndObject();
+                level--;
+                continue;
+            }
+
+            int employeeId = hierarchy.getEmployeeId(supervisorId, nextIndexes[level]++);
+            generator.writeFieldName(hierarchy.nameOf(employeeId));
+            generator.writeStartObject();
+            if (++level == supervisorIds.length) {
+                supervisorIds = Arrays.copyOf(supervisorIds, level * 2);
+                nextIndexes = Arrays.copyOf(nextIndexes, level * 2);
+            }
+            supervisorIds[level] = employeeId;
+            nextIndexes[level] = 0;
+        }
+
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * Write the hierarchy as {"names": [...], "employeeCounts": [...]}, where employeeCounts[i] is the number of
+     * direct employees of names[i]. Members are written level by level from the top supervisor, so the employees
+     * of each member follow those of the members before him and a client rebuilds the tree in one pass.
+     * Counts are mostly 0 or small, which keeps the arrays shorter than supervisor indexes or nested objects.
+     */
+    public static void writeFlatEmployees(EmployeeHierarchy hierarchy, JsonGenerator generator) throws IOException {
+        int[] order = new int[hierarchy.memberCount()];
+        int count = 0;
+        order[count++] = hierarchy.getTopSupervisorId();
+        for (int i = 0; i < count; i++) {
+            for (int index = 0; index < hierarchy.getEmployeeCount(order[i]); index++) {
+                order[count++] = hierarchy.getEmployeeId(order[i], index);
+            }
+        }
+
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("names");
+        for (int id : order) {
+            generator.writeString(hierarchy.nameOf(id));
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("employeeCounts");
+        for (int id : order) {
+            generator.writeNumber(hierarchy.getEmployeeCount(id));
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+}
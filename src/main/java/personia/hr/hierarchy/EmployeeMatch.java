@@ -0,0 +1,16 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Member whose name matches a search, supervisor name is null for the top supervisor
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class EmployeeMatch {
+    private final String employeeName;
+    private final String supervisorName;
+}
@@ -0,0 +1,23 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Team of one member of the hierarchy, level 0 is the top supervisor
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class EmployeeStats {
+    private final String employeeName;
+    private final String supervisorName;
+    private final int level;
+    // Span of control
+    private final int directReports;
+    // Headcount under the employee at all levels
+    private final int totalReports;
+    // Levels of reports under the employee, 0 when he has none
+    private final int levelsBelow;
+}
@@ -0,0 +1,105 @@
+package personia.hr.hierarchy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Hierarchies of organisations kept in memory, bounded by their total number of employees.
+ * Reads do not lock, they only stamp the entry with the time of the read. A put going over the bound evicts
+ * the least recently read hierarchies of other organisations, they are loaded again on their next read.
+ */
+public final class HierarchyCache {
+    private final long maxEmployees;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Sum of the weights of all entries, only changed by puts holding the lock of the cache
+    private long employees;
+
+    /**
+     * @param maxEmployees: Bound of the total weight, a hierarchy weighs its number of employees plus one
+     */
+    public HierarchyCache(long maxEmployees) {
+        this.maxEmployees = maxEmployees;
+    }
+
+    /**
+     * Get cached hierarchy
+     *
+     * @param organisationId: Organisation of the hierarchy
+     * @return Hierarchy index, null when it is not cached
+     */
+    public EmployeeHierarchy get(String organisationId) {
+        Entry entry = entries.get(organisationId);
+        if (entry == null) {
+            return null;
+        }
+
+        entry.readAt = System.nanoTime();
+        return entry.hierarchy;
+    }
+
+    /**
+     * Put hierarchy of an organisation in place of its previous one.
+     * A hierarchy heavier than the bound on its own is still kept until another organisation is put.
+     *
+     * @param organisationId: Organisation of the hierarchy
+     * @param hierarchy:      Hierarchy index
+     */
+    public synchronized void put(String organisationId, EmployeeHierarchy hierarchy) {
+        Entry entry = new Entry(hierarchy);
+        Entry previousEntry = entries.put(organisationId, entry);
+        employees += entry.weight - (previousEntry == null ? 0 : previousEntry.weight);
+        if (employees > maxEmployees) {
+            evictLeastRecentlyRead(organisationId);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Cached hierarchies without stamping them as read
+    public Stream<EmployeeHierarchy> hierarchies() {
+        return entries.values().stream().map(it -> it.hierarchy);
+    }
+
+    public synchronized long getEmployees() {
+        return employees;
+    }
+
+    // Read times are copied before sorting, readers keep stamping entries meanwhile
+    private void evictLeastRecentlyRead(String keptOrganisationId) {
+        ReadTime[] readTimes = entries.entrySet().stream()
+                .filter(it -> !it.getKey().equals(keptOrganisationId))
+                .map(it -> new ReadTime(it.getKey(), it.getValue().readAt))
+                .toArray(ReadTime[]::new);
+        Arrays.sort(readTimes, Comparator.comparingLong(it -> it.readAt));
+
+        for (int i = 0; i < readTimes.length && employees > maxEmployees; i++) {
+            employees -= entries.remove(readTimes[i].organisationId).weight;
+        }
+    }
+
+    private static final class Entry {
+        private final EmployeeHierarchy hierarchy;
+        private final long weight;
+        private volatile long readAt = System.nanoTime();
+
+        private Entry(EmployeeHierarchy hierarchy) {
+            this.hierarchy = hierarchy;
+            this.weight = hierarchy.size() + 1L;
+        }
+    }
+
+    private static final class ReadTime {
+        private final String organisationId;
+        private final long readAt;
+
+        private ReadTime(String organisationId, long readAt) {
+            this.organisationId = organisationId;
+            this.readAt = readAt;
+        }
+    }
+}
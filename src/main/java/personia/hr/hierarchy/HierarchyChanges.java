@@ -0,0 +1,17 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Summary of employees changed in the hierarchy
+ */
+@Getter
+@AllArgsConstructor
+public class HierarchyChanges {
+    private final List<String> added;
+    private final List<String> moved;
+    private final List<String> removed;
+}
@@ -0,0 +1,104 @@
+package personia.hr.hierarchy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Difference between the current hierarchy and a submitted full hierarchy, found in one pass over each of them.
+ * A submitted hierarchy with a few differences is applied as changes of the current one, which keeps unchanged
+ * employees in their order so that most stored rows keep their values and are not written again.
+ */
+public final class HierarchyDiff {
+    private final EmployeeHierarchy current;
+    private final EmployeeHierarchy submitted;
+    // Key is employee and value is new supervisor, null value removes the employee
+    private final Map<String, String> changes;
+    private final HierarchyChanges summary;
+
+    private HierarchyDiff(EmployeeHierarchy current, EmployeeHierarchy submitted, Map<String, String> changes,
+                          HierarchyChanges summary) {
+        this.current = current;
+        this.submitted = submitted;
+        this.changes = changes;
+        this.summary = summary;
+    }
+
+    /**
+     * Compare hierarchies by name
+     *
+     * @param current:   Current hierarchy index
+     * @param submitted: Validated hierarchy index of the submitted employees
+     * @return Members only in submitted are added, members only in current are removed
+     * and members with another supervisor, the top supervisor included, are moved
+     */
+    public static HierarchyDiff between(EmployeeHierarchy current, EmployeeHierarchy submitted) {
+        Map<String, String> changes = new LinkedHashMap<>();
+        List<String> added = new ArrayList<>();
+        List<String> moved = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        for (int id = 0; id < submitted.memberCount(); id++) {
+            String name = submitted.nameOf(id);
+            String supervisorName = supervisorNameOf(submitted, id);
+            int currentId = current.idOf(name);
+            if (currentId == NO_ID) {
+                added.add(name);
+            } else if (!Objects.equals(supervisorName, supervisorNameOf(current, currentId))) {
+                moved.add(name);
+            } else {
+                continue;
+            }
+            // A current employee who becomes the top supervisor is removed as employee and added back as top
+            if (supervisorName != null || currentId != NO_ID) {
+                changes.put(name, supervisorName);
+            }
+        }
+
+        for (int id = 0; id < current.memberCount(); id++) {
+            String name = current.nameOf(id);
+            if (submitted.idOf(name) == NO_ID) {
+                removed.add(name);
+                if (current.getSupervisorId(id) != NO_ID) {
+                    changes.put(name, null);
+                }
+            }
+        }
+
+        return new HierarchyDiff(current, submitted, changes, new HierarchyChanges(added, moved, removed));
+    }
+
+    public boolean isEmpty() {
+        return summary.getAdded().isEmpty() && summary.getMoved().isEmpty() && summary.getRemoved().isEmpty();
+    }
+
+    // More than half of the employees change, each of them is written anyway so replacing all rows is cheaper
+    // than planning the changed ones
+    public boolean isLarge() {
+        return changes.size() * 2 > submitted.size();
+    }
+
+    // Employees added, moved or removed as changes of the current hierarchy
+    public Set<String> getChangedNames() {
+        return changes.keySet();
+    }
+
+    // Current hierarchy with the differences applied, it has the same members and supervisors as submitted
+    public EmployeeHierarchy applyToCurrent() {
+        return current.withChanges(changes, submitted.getTopSupervisor());
+    }
+
+    public HierarchyChanges getSummary() {
+        return summary;
+    }
+
+    private static String supervisorNameOf(EmployeeHierarchy hierarchy, int id) {
+        int supervisorId = hierarchy.getSupervisorId(id);
+        return supervisorId == NO_ID ? null : hierarchy.nameOf(supervisorId);
+    }
+}
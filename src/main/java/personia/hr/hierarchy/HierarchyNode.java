@@ -0,0 +1,129 @@
+package personia.hr.hierarchy;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Node of an employees hierarchy response, key is employee name and value is the employee's own node.
+ * It is serialized, compared, hashed and printed without recursion so that very deep hierarchies
+ * do not overflow the thread stack. Nested values which are maps are walked as nodes whatever their class.
+ */
+@JsonSerialize(using = HierarchyNodeSerializer.class)
+public class HierarchyNode extends HashMap<String, Object> {
+
+    // Same contract as AbstractMap.equals, pairs of nested maps are compared from a stack
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Map)) {
+            return false;
+        }
+
+        Deque<Map<?, ?>> maps = new ArrayDeque<>();
+        Deque<Map<?, ?>> otherMaps = new ArrayDeque<>();
+        maps.push(this);
+        otherMaps.push((Map<?, ?>) other);
+        while (!maps.isEmpty()) {
+            Map<?, ?> map = maps.pop();
+            Map<?, ?> otherMap = otherMaps.pop();
+            if (map.size() != otherMap.size()) {
+                return false;
+            }
+
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object value = entry.getValue();
+                Object otherValue = otherMap.get(entry.getKey());
+                if (value instanceof Map && otherValue instanceof Map) {
+                    if (value != otherValue) {
+                        maps.push((Map<?, ?>) value);
+                        otherMaps.push((Map<?, ?>) otherValue);
+                    }
+                } else if (!Objects.equals(value, otherValue)
+                        || otherValue == null && !otherMap.containsKey(entry.getKey())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Same contract as AbstractMap.hashCode, the hash of a nested map is added to its parent when it is finished
+    @Override
+    public int hashCode() {
+        Deque<HashFrame> frames = new ArrayDeque<>();
+        frames.push(new HashFrame(null, this));
+        int hash = 0;
+
+        while (!frames.isEmpty()) {
+            HashFrame frame = frames.peek();
+            if (!frame.entries.hasNext()) {
+                frames.pop();
+                hash = frame.hash;
+                if (!frames.isEmpty()) {
+                    frames.peek().hash += Objects.hashCode(frame.key) ^ hash;
+                }
+                continue;
+            }
+
+            Map.Entry<?, ?> entry = frame.entries.next();
+            if (entry.getValue() instanceof Map) {
+                frames.push(new HashFrame(entry.getKey(), (Map<?, ?>) entry.getValue()));
+            } else {
+                frame.hash += Objects.hashCode(entry.getKey()) ^ Objects.hashCode(entry.getValue());
+            }
+        }
+        return hash;
+    }
+
+    // Same format as AbstractMap.toString, {A={B={}}}
+    @Override
+    public String toString() {
+        Deque<Iterator<? extends Map.Entry<?, ?>>> iterators = new ArrayDeque<>();
+        StringBuilder text = new StringBuilder("{");
+        iterators.push(entrySet().iterator());
+
+        while (!iterators.isEmpty()) {
+            Iterator<? extends Map.Entry<?, ?>> iterator = iterators.peek();
+            if (!iterator.hasNext()) {
+                text.append('}');
+                iterators.pop();
+                if (!iterators.isEmpty() && iterators.peek().hasNext()) {
+                    text.append(", ");
+                }
+                continue;
+            }
+
+            Map.Entry<?, ?> entry = iterator.next();
+            text.append(entry.getKey()).append('=');
+            if (entry.getValue() instanceof Map) {
+                text.append('{');
+                iterators.push(((Map<?, ?>) entry.getValue()).entrySet().iterator());
+            } else {
+                text.append(entry.getValue());
+                if (iterator.hasNext()) {
+                    text.append(", ");
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static final class HashFrame {
+        private final Object key;
+        private final Iterator<? extends Map.Entry<?, ?>> entries;
+        private int hash;
+
+        private HashFrame(Object key, Map<?, ?> map) {
+            this.key = key;
+            this.entries = map.entrySet().iterator();
+        }
+    }
+}
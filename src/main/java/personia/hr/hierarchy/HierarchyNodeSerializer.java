@@ -0,0 +1,47 @@
+package personia.hr.hierarchy;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Write nested employee maps with an explicit stack of entry iterators instead of recursion
+ */
+public class HierarchyNodeSerializer extends StdSerializer<HierarchyNode> {
+
+    public HierarchyNodeSerializer() {
+        super(HierarchyNode.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void serialize(HierarchyNode node, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        Deque<Iterator<? extends Map.Entry<String, ?>>> iterators = new ArrayDeque<>();
+        generator.writeStartObject();
+        iterators.push(node.entrySet().iterator());
+
+        while (!iterators.isEmpty()) {
+            Iterator<? extends Map.Entry<String, ?>> iterator = iterators.peek();
+            if (!iterator.hasNext()) {
+                generator.writeEndObject();
+                iterators.pop();
+                continue;
+            }
+
+            Map.Entry<String, ?> entry = iterator.next();
+            generator.writeFieldName(entry.getKey());
+            if (entry.getValue() instanceof Map) {
+                generator.writeStartObject();
+                iterators.push(((Map<String, ?>) entry.getValue()).entrySet().iterator());
+            } else {
+                provider.defaultSerializeValue(entry.getValue(), generator);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package personia.hr.hierarchy;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hierarchy read from a snapshot and the revision of the stored employees it was taken at
+ */
+@Getter
+@RequiredArgsConstructor
+public final class HierarchySnapshot {
+    private final EmployeeHierarchy hierarchy;
+    private final long revision;
+}
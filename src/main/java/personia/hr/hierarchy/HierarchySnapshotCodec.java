@@ -0,0 +1,126 @@
+package personia.hr.hierarchy;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Binary form of a hierarchy index: the name dictionary and the supervisor id of every name.
+ * Layout is magic, format version, revision of the stored employees, number of names, top supervisor id, names as
+ * UTF-8 bytes prefixed by their length, supervisor ids, then the CRC32 of everything before it. Employees lists are rebuilt from supervisor ids on read.
+ */
+public final class HierarchySnapshotCodec {
+    private static final int MAGIC = 0x48524853;
+    private static final int FORMAT_VERSION = 2;
+    private static final int CHECKSUM_BYTES = Long.BYTES;
+
+    private HierarchySnapshotCodec() {
+    }
+
+    public static void write(EmployeeHierarchy hierarchy, long revision, OutputStream outputStream) throws IOException {
+        CheckedOutputStream checkedOutputStream = new CheckedOutputStream(outputStream, new CRC32());
+        DataOutputStream dataOutputStream = new DataOutputStream(checkedOutputStream);
+        int size = hierarchy.isEmpty() ? 0 : hierarchy.size() + 1;
+
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeInt(FORMAT_VERSION);
+        dataOutputStream.writeLong(revision);
+        dataOutputStream.writeInt(size);
+        dataOutputStream.writeInt(hierarchy.getTopSupervisorId());
+        for (int id = 0; id < size; id++) {
+            byte[] name = hierarchy.nameOf(id).getBytes(StandardCharsets.UTF_8);
+            dataOutputStream.writeInt(name.length);
+            dataOutputStream.write(name);
+        }
+        for (int id = 0; id < size; id++) {
+            dataOutputStream.writeInt(hierarchy.getSupervisorId(id));
+        }
+
+        dataOutputStream.flush();
+        new DataOutputStream(outputStream).writeLong(checkedOutputStream.getChecksum().getValue());
+        outputStream.flush();
+    }
+
+    /**
+     * Read hierarchy index
+     *
+     * @param buffer: Whole snapshot, for example a mapped file
+     * @return Hierarchy index and revision of the stored employees
+     * @throws IOException: Snapshot is truncated, corrupt or of another format
+     */
+    public static HierarchySnapshot read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < CHECKSUM_BYTES) {
+            throw new IOException("Snapshot is truncated");
+        }
+
+        ByteBuffer content = buffer.duplicate();
+        content.limit(buffer.limit() - CHECKSUM_BYTES);
+        CRC32 checksum = new CRC32();
+        checksum.update(content.duplicate());
+        if (checksum.getValue() != buffer.getLong(buffer.limit() - CHECKSUM_BYTES)) {
+            throw new IOException("Snapshot checksum does not match");
+        }
+
+        try {
+            return readContent(content);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException ex) {
+            throw new IOException("Snapshot content is invalid", ex);
+        }
+    }
+
+    private static HierarchySnapshot readContent(ByteBuffer content) throws IOException {
+        if (content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+            throw new IOException("Snapshot format is not supported");
+        }
+
+        long revision = content.getLong();
+        int size = content.getInt();
+        int topSupervisorId = content.getInt();
+        if (size == 0) {
+            return new HierarchySnapshot(EmployeeHierarchy.empty(), revision);
+        }
+        checkId(topSupervisorId, size);
+
+        NameDictionary names = new NameDictionary(size);
+        byte[] name = new byte[64];
+        for (int id = 0; id < size; id++) {
+            int length = content.getInt();
+            if (length > name.length) {
+                name = new byte[Math.max(length, name.length * 2)];
+            }
+            content.get(name, 0, length);
+            if (names.add(new String(name, 0, length, StandardCharsets.UTF_8)) != id) {
+                throw new IOException("Snapshot has duplicated names");
+            }
+        }
+
+        int[] supervisorIds = new int[size];
+        for (int id = 0; id < size; id++) {
+            supervisorIds[id] = content.getInt();
+            if ((supervisorIds[id] == NO_ID) != (id == topSupervisorId)) {
+                throw new IOException("Snapshot has more than one top supervisor");
+            }
+            if (id != topSupervisorId) {
+                checkId(supervisorIds[id], size);
+            }
+        }
+
+        if (content.hasRemaining()) {
+            throw new IOException("Snapshot has unexpected content");
+        }
+        return new HierarchySnapshot(new EmployeeHierarchy(names, supervisorIds, topSupervisorId), revision);
+    }
+
+    private static void checkId(int id, int size) throws IOException {
+        if (id < 0 || id >= size) {
+            throw new IOException("Snapshot has invalid id " + id);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package personia.hr.hierarchy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Team aggregates of every member of the hierarchy over its integer ids.
+ * Members are ordered level by level from the top supervisor once, levels are set walking that order forwards
+ * and headcounts are added up walking it backwards, where every employee comes before his supervisor as in a
+ * post-order traversal. Afterwards the stats of a member are read from the arrays in O(1).
+ */
+final class HierarchyStatistics {
+    private static final int WIDEST_TEAMS = 10;
+
+    private final EmployeeHierarchy hierarchy;
+    private final int[] levels;
+    private final int[] totalReports;
+    private final int[] levelsBelow;
+    private final HierarchyStats hierarchyStats;
+
+    HierarchyStatistics(EmployeeHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        int size = hierarchy.memberCount();
+        levels = new int[size];
+        totalReports = new int[size];
+        levelsBelow = new int[size];
+
+        int[] order = new int[size];
+        int count = 0;
+        int depth = 0;
+        if (size > 0) {
+            order[count++] = hierarchy.getTopSupervisorId();
+        }
+        for (int i = 0; i < count; i++) {
+            int id = order[i];
+            for (int index = 0; index < hierarchy.getEmployeeCount(id); index++) {
+                int employeeId = hierarchy.getEmployeeId(id, index);
+                levels[employeeId] = levels[id] + 1;
+                depth = Math.max(depth, levels[employeeId]);
+                order[count++] = employeeId;
+            }
+        }
+
+        int[] depthHistogram = new int[size > 0 ? depth + 1 : 0];
+        int managers = 0;
+        int maxSpanOfControl = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            int id = order[i];
+            depthHistogram[levels[id]]++;
+            int directReports = hierarchy.getEmployeeCount(id);
+            if (directReports > 0) {
+                managers++;
+                maxSpanOfControl = Math.max(maxSpanOfControl, directReports);
+            }
+
+            int supervisorId = hierarchy.getSupervisorId(id);
+            if (supervisorId != NO_ID) {
+                totalReports[supervisorId] += totalReports[id] + 1;
+                levelsBelow[supervisorId] = Math.max(levelsBelow[supervisorId], levelsBelow[id] + 1);
+            }
+        }
+
+        List<Integer> histogram = new ArrayList<>(depthHistogram.length);
+        for (int members : depthHistogram) {
+            histogram.add(members);
+        }
+        hierarchyStats = new HierarchyStats(hierarchy.getTopSupervisor(), size, managers, depth, maxSpanOfControl,
+                managers == 0 ? 0 : (double) (size - 1) / managers,
+                Collections.unmodifiableList(histogram), getWidestTeams());
+    }
+
+    HierarchyStats getHierarchyStats() {
+        return hierarchyStats;
+    }
+
+    EmployeeStats getEmployeeStats(int id) {
+        int supervisorId = hierarchy.getSupervisorId(id);
+        return new EmployeeStats(hierarchy.nameOf(id), supervisorId == NO_ID ? null : hierarchy.nameOf(supervisorId),
+                levels[id], hierarchy.getEmployeeCount(id), totalReports[id], levelsBelow[id]);
+    }
+
+    // Keep the widest teams seen so far in a heap whose head is the narrowest of them, earlier ids win ties
+    private List<EmployeeStats> getWidestTeams() {
+        Comparator<Integer> widerTeam = Comparator.<Integer>comparingInt(hierarchy::getEmployeeCount).reversed()
+                .thenComparingInt(id -> id);
+        PriorityQueue<Integer> widestIds = new PriorityQueue<>(WIDEST_TEAMS + 1, widerTeam.reversed());
+        for (int id = 0; id < levels.length; id++) {
+            if (hierarchy.getEmployeeCount(id) > 0) {
+                widestIds.add(id);
+                if (widestIds.size() > WIDEST_TEAMS) {
+                    widestIds.poll();
+                }
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(widestIds);
+        ids.sort(widerTeam);
+        List<EmployeeStats> widestTeams = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            widestTeams.add(getEmployeeStats(id));
+        }
+        return Collections.unmodifiableList(widestTeams);
+    }
+}
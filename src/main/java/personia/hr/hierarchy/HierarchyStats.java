@@ -0,0 +1,27 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Organisation analytics of the whole hierarchy
+ */
+@Getter
+@AllArgsConstructor
+public class HierarchyStats {
+    private final String topSupervisor;
+    // Employees and the top supervisor
+    private final int headcount;
+    // Members with at least one direct report
+    private final int managers;
+    private final int depth;
+    private final int maxSpanOfControl;
+    // Direct reports per manager
+    private final double averageSpanOfControl;
+    // Number of members at each level, index 0 is the top supervisor
+    private final List<Integer> depthHistogram;
+    // Managers with the most direct reports, widest first
+    private final List<EmployeeStats> widestTeams;
+}
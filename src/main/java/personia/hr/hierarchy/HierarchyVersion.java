@@ -0,0 +1,27 @@
+package personia.hr.hierarchy;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Version of a published hierarchy.
+ * Numbers restart from 1 with the application, the epoch keeps entity tags of different runs apart.
+ * There is no modification time, several versions may be published within the one second resolution of dates.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class HierarchyVersion {
+    // Start time of the application in milliseconds
+    private final long epoch;
+    private final long number;
+
+    // Weak entity tag shared by every content encoding of this version
+    public String getETag() {
+        return "W/\"" + Long.toString(epoch, Character.MAX_RADIX) + "-" + number + "\"";
+    }
+
+    // Weak entity tag of one representation of this version, responses varying by Accept get one per format
+    public String getETag(String representation) {
+        return "W/\"" + Long.toString(epoch, Character.MAX_RADIX) + "-" + number + "-" + representation + "\"";
+    }
+}
@@ -0,0 +1,158 @@
+package personia.hr.hierarchy;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dictionary numbering names from 0 in the order they are added.
+ * Names are kept once in an array and found through an open addressing table of ids,
+ * so a name costs one array slot and one int slot instead of a map entry.
+ * Both are paged, a copy shares them with the dictionary it was copied from until it changes them.
+ * Names are hashed by their hash code until one of them lands too far from its home slot, which takes many names
+ * sharing a hash code like "AaAa", "AaBB", "BBAa" and "BBBB". Their characters are hashed with a random seed then.
+ */
+final class NameDictionary {
+    static final int NO_ID = -1;
+    private static final int MIN_CAPACITY = 16;
+    // Most slots a name may be placed after its home slot before names are hashed with a seed
+    private static final int MAX_PROBES = 64;
+
+    private final PagedStringArray names;
+    // Slot holds id + 1 of the name hashed there, 0 for a free slot
+    private PagedIntArray slots;
+    private int mask;
+    // Seed of the character hash, 0 while names are hashed by their hash code
+    private int seed;
+
+    NameDictionary(int expectedSize) {
+        names = new PagedStringArray(expectedSize);
+        slots = new PagedIntArray(tableCapacity(expectedSize));
+        mask = slots.length() - 1;
+    }
+
+    private NameDictionary(NameDictionary dictionary) {
+        names = dictionary.names.copy();
+        slots = dictionary.slots.copy();
+        mask = dictionary.mask;
+        seed = dictionary.seed;
+    }
+
+    /**
+     * Add name unless it is already known
+     *
+     * @param name: Name
+     * @return Id of the name
+     */
+    int add(String name) {
+        int slot = findSlot(name);
+        if (slots.get(slot) != 0) {
+            return slots.get(slot) - 1;
+        }
+
+        names.add(name);
+        slots.set(slot, names.length());
+        if (names.length() * 2 > slots.length()) {
+            rehash(slots.length() * 2);
+        } else if (seed == 0 && ((slot - hash(name)) & mask) > MAX_PROBES) {
+            seed = ThreadLocalRandom.current().nextInt() | 1;
+            rehash(slots.length());
+        }
+        return names.length() - 1;
+    }
+
+    /**
+     * Remove name of an id, the last name takes its id so ids stay numbered from 0
+     *
+     * @param id: Id of the name to remove
+     */
+    void remove(int id) {
+        deleteSlot(findSlot(names.get(id)));
+        int lastId = names.length() - 1;
+        if (id != lastId) {
+            String lastName = names.get(lastId);
+            slots.set(findSlot(lastName), id + 1);
+            names.set(id, lastName);
+        }
+        names.removeLast();
+    }
+
+    // Get id of name, NO_ID when it is unknown
+    int idOf(String name) {
+        return name == null ? NO_ID : slots.get(findSlot(name)) - 1;
+    }
+
+    String nameOf(int id) {
+        return names.get(id);
+    }
+
+    int size() {
+        return names.length();
+    }
+
+    // Copy sharing the pages of this dictionary, this one is left unchanged by changes of the copy
+    NameDictionary copy() {
+        return new NameDictionary(this);
+    }
+
+    // Free slot for the name or the slot already holding it, the table is never more than half full
+    private int findSlot(String name) {
+        int slot = hash(name) & mask;
+        int id = slots.get(slot);
+        while (id != 0 && !names.get(id - 1).equals(name)) {
+            slot = (slot + 1) & mask;
+            id = slots.get(slot);
+        }
+        return slot;
+    }
+
+    // Free a slot and move later slots of the probe sequence back into it, so lookups never stop at a hole
+    private void deleteSlot(int slot) {
+        int free = slot;
+        for (int next = (free + 1) & mask; slots.get(next) != 0; next = (next + 1) & mask) {
+            int home = hash(names.get(slots.get(next) - 1)) & mask;
+            // The name at next stays unless its home slot is not between the free slot and next
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                slots.set(free, slots.get(next));
+                free = next;
+            }
+        }
+        slots.set(free, 0);
+    }
+
+    private void rehash(int capacity) {
+        slots = new PagedIntArray(capacity);
+        mask = capacity - 1;
+        for (int id = 0; id < names.length(); id++) {
+            int slot = hash(names.get(id)) & mask;
+            while (slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, id + 1);
+        }
+    }
+
+    private int hash(String name) {
+        if (seed == 0) {
+            return mix(name.hashCode());
+        }
+
+        int hash = seed;
+        for (int i = 0; i < name.length(); i++) {
+            hash = mix(hash ^ name.charAt(i));
+        }
+        return hash;
+    }
+
+    // Spread hash bits, names like E1, E2, ... have close hash codes
+    private static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static int tableCapacity(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
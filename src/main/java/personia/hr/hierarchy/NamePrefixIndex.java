@@ -0,0 +1,143 @@
+package personia.hr.hierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Names of all members sorted ignoring case, so the names starting with a prefix are one range of the array.
+ * The range is found by binary search and read up to the limit, a search costs log of the size plus the matches.
+ * String.CASE_INSENSITIVE_ORDER and regionMatches ignoring case fold characters alike, which keeps the range
+ * contiguous without lower casing copies of the names.
+ */
+final class NamePrefixIndex {
+    private static final Comparator<String> NAME_ORDER = String.CASE_INSENSITIVE_ORDER;
+
+    private final EmployeeHierarchy hierarchy;
+    private final String[] sortedNames;
+
+    NamePrefixIndex(EmployeeHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        int size = hierarchy.memberCount();
+        sortedNames = new String[size];
+        for (int id = 0; id < size; id++) {
+            sortedNames[id] = hierarchy.nameOf(id);
+        }
+        Arrays.sort(sortedNames, NAME_ORDER);
+    }
+
+    private NamePrefixIndex(EmployeeHierarchy hierarchy, String[] sortedNames) {
+        this.hierarchy = hierarchy;
+        this.sortedNames = sortedNames;
+    }
+
+    /**
+     * Index of a changed hierarchy. Removed names are found by binary search and added names are inserted at
+     * the positions binary search gives them, runs of names in between are copied as blocks, so a few changes cost
+     * their number times the log of the size plus copying the references instead of sorting or hashing every name.
+     *
+     * @param changedHierarchy: Hierarchy with changes applied
+     * @param addedNames:       Members of the changed hierarchy which are not members of this one
+     * @param removedNames:     Members of this hierarchy which are not members of the changed one
+     * @return Index of the changed hierarchy
+     */
+    NamePrefixIndex withChanges(EmployeeHierarchy changedHierarchy, List<String> addedNames, List<String> removedNames) {
+        int[] removedPositions = removedNames.stream().mapToInt(this::positionOf).sorted().toArray();
+        List<String> sortedAddedNames = new ArrayList<>(addedNames);
+        sortedAddedNames.sort(NAME_ORDER);
+
+        String[] changedSortedNames = new String[sortedNames.length - removedPositions.length + sortedAddedNames.size()];
+        int count = 0;
+        int from = 0;
+        int removedIndex = 0;
+        int addedIndex = 0;
+        while (from < sortedNames.length || addedIndex < sortedAddedNames.size()) {
+            // Copy names up to the next removed name or the position of the next added name, whichever comes first.
+            // Added names go after names equal to them ignoring case.
+            int removedPosition = removedIndex < removedPositions.length ? removedPositions[removedIndex] : sortedNames.length;
+            int addedPosition = addedIndex < sortedAddedNames.size()
+                    ? firstAfter(from, removedPosition, sortedAddedNames.get(addedIndex))
+                    : removedPosition;
+            int to = Math.min(removedPosition, addedPosition);
+            System.arraycopy(sortedNames, from, changedSortedNames, count, to - from);
+            count += to - from;
+            from = to;
+
+            if (addedPosition < removedPosition || addedPosition == sortedNames.length && addedIndex < sortedAddedNames.size()) {
+                changedSortedNames[count++] = sortedAddedNames.get(addedIndex++);
+            } else if (removedIndex < removedPositions.length) {
+                removedIndex++;
+                from++;
+            }
+        }
+        return new NamePrefixIndex(changedHierarchy, changedSortedNames);
+    }
+
+    /**
+     * Find members whose name starts with prefix ignoring case
+     *
+     * @param prefix: Start of the names, empty matches every member
+     * @param limit:  Maximum number of matches
+     * @return Matches in name order
+     */
+    List<EmployeeMatch> search(String prefix, int limit) {
+        int position = firstNotBefore(prefix);
+        if (position == sortedNames.length || limit < 1) {
+            return Collections.emptyList();
+        }
+
+        List<EmployeeMatch> matches = new ArrayList<>(Math.min(limit, sortedNames.length - position));
+        for (; position < sortedNames.length && matches.size() < limit; position++) {
+            String name = sortedNames[position];
+            if (!name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                break;
+            }
+            int supervisorId = hierarchy.getSupervisorId(hierarchy.idOf(name));
+            matches.add(new EmployeeMatch(name, supervisorId == NO_ID ? null : hierarchy.nameOf(supervisorId)));
+        }
+        return matches;
+    }
+
+    // Position of the first name not ordered before prefix, a name starting with prefix is never ordered before it
+    private int firstNotBefore(String prefix) {
+        int low = 0;
+        int high = sortedNames.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (NAME_ORDER.compare(sortedNames[middle], prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Position of a member, names equal to it ignoring case are next to it
+    private int positionOf(String name) {
+        int position = firstNotBefore(name);
+        while (!sortedNames[position].equals(name)) {
+            position++;
+        }
+        return position;
+    }
+
+    // Position of the first name between from and to which is ordered after name, to when there is none
+    private int firstAfter(int from, int to, String name) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (NAME_ORDER.compare(sortedNames[middle], name) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,145 @@
+package personia.hr.hierarchy;
+
+import personia.hr.domain.Employee;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Number employees of a hierarchy as a nested set in one depth first pass with an explicit stack.
+ * Bounds are spread evenly over the range they are given instead of counted one by one, so employees added or moved
+ * later are numbered in the gaps left between them and only their own rows are written.
+ */
+public final class NestedSetEncoder {
+    public static final long TOP_SUPERVISOR_LEFT_BOUND = 0;
+    public static final long TOP_SUPERVISOR_RIGHT_BOUND = 1L << 62;
+
+    private NestedSetEncoder() {
+    }
+
+    /**
+     * Encode hierarchy into employee rows
+     *
+     * @param organisationId: Organisation of the hierarchy
+     * @param hierarchy:      Hierarchy index
+     * @return Employees with supervisor, bounds and depth, reports before their supervisors and the top supervisor last
+     */
+    public static List<Employee> encode(String organisationId, EmployeeHierarchy hierarchy) {
+        List<Employee> employees = new ArrayList<>(hierarchy.size() + 1);
+        if (hierarchy.isEmpty()) {
+            return employees;
+        }
+
+        int topSupervisorId = hierarchy.getTopSupervisorId();
+        encodeReports(organisationId, hierarchy, topSupervisorId, 0, TOP_SUPERVISOR_LEFT_BOUND,
+                TOP_SUPERVISOR_RIGHT_BOUND, employees);
+        employees.add(Employee.builder()
+                .organisationId(organisationId)
+                .employeeName(hierarchy.nameOf(topSupervisorId))
+                .leftBound(TOP_SUPERVISOR_LEFT_BOUND)
+                .rightBound(TOP_SUPERVISOR_RIGHT_BOUND)
+                .depth(0)
+                .build());
+        return employees;
+    }
+
+    /**
+     * Encode all reports of a supervisor between his bounds, his own row is left as it is
+     *
+     * @param supervisorId: Id of the supervisor in hierarchy
+     * @param depth:        Depth of the supervisor
+     * @param leftBound:    Left bound of the supervisor
+     * @param rightBound:   Right bound of the supervisor
+     * @param employees:    Rows the reports are added to, reports before their supervisors
+     */
+    static void encodeReports(String organisationId, EmployeeHierarchy hierarchy, int supervisorId, int depth,
+                              long leftBound, long rightBound, List<Employee> employees) {
+        List<Integer> employeeIds = new ArrayList<>(hierarchy.getEmployeeCount(supervisorId));
+        for (int index = 0; index < hierarchy.getEmployeeCount(supervisorId); index++) {
+            employeeIds.add(hierarchy.getEmployeeId(supervisorId, index));
+        }
+        encodeSubtrees(organisationId, hierarchy, employeeIds, depth + 1, leftBound, rightBound, employees);
+    }
+
+    /**
+     * Encode employees and all their reports strictly between two bounds
+     *
+     * @param employeeIds: Ids of employees in hierarchy, none of them reports to another one
+     * @param depth:       Depth of the employees
+     * @param fromBound:   Bound before the first left bound
+     * @param toBound:     Bound after the last right bound
+     * @param employees:   Rows the employees are added to, reports before their supervisors
+     */
+    static void encodeSubtrees(String organisationId, EmployeeHierarchy hierarchy, List<Integer> employeeIds, int depth,
+                               long fromBound, long toBound, List<Employee> employees) {
+        int memberCount = 0;
+        for (int employeeId : employeeIds) {
+            memberCount += subtreeSize(hierarchy, employeeId);
+        }
+        if (!fits(memberCount, fromBound, toBound)) {
+            throw new IllegalArgumentException("No room for " + memberCount + " employees between bounds "
+                    + fromBound + " and " + toBound);
+        }
+
+        long step = (toBound - fromBound) / (2L * memberCount + 1);
+        long bound = fromBound;
+        Deque<Frame> frames = new ArrayDeque<>();
+        for (int employeeId : employeeIds) {
+            frames.push(new Frame(employeeId, bound += step, depth));
+            while (!frames.isEmpty()) {
+                Frame frame = frames.peek();
+                if (frame.next < hierarchy.getEmployeeCount(frame.id)) {
+                    int reportId = hierarchy.getEmployeeId(frame.id, frame.next++);
+                    frames.push(new Frame(reportId, bound += step, frame.depth + 1));
+                    continue;
+                }
+
+                frames.pop();
+                employees.add(Employee.builder()
+                        .organisationId(organisationId)
+                        .employeeName(hierarchy.nameOf(frame.id))
+                        .supervisorName(hierarchy.nameOf(hierarchy.getSupervisorId(frame.id)))
+                        .leftBound(frame.leftBound)
+                        .rightBound(bound += step)
+                        .depth(frame.depth)
+                        .build());
+            }
+        }
+    }
+
+    // Check given number of employees can be numbered strictly between two bounds
+    static boolean fits(int memberCount, long fromBound, long toBound) {
+        return toBound - fromBound >= 2L * memberCount + 1;
+    }
+
+    // Number of members of the subtree of an employee, himself included
+    static int subtreeSize(EmployeeHierarchy hierarchy, int employeeId) {
+        int size = 0;
+        Deque<Integer> ids = new ArrayDeque<>(Collections.singletonList(employeeId));
+        while (!ids.isEmpty()) {
+            int id = ids.pop();
+            size++;
+            for (int index = 0; index < hierarchy.getEmployeeCount(id); index++) {
+                ids.push(hierarchy.getEmployeeId(id, index));
+            }
+        }
+        return size;
+    }
+
+    private static final class Frame {
+        private final int id;
+        private final long leftBound;
+        private final int depth;
+        // Index of the next employee to visit
+        private int next;
+
+        private Frame(int id, long leftBound, int depth) {
+            this.id = id;
+            this.leftBound = leftBound;
+            this.depth = depth;
+        }
+    }
+}
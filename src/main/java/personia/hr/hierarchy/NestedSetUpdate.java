@@ -0,0 +1,163 @@
+package personia.hr.hierarchy;
+
+import personia.hr.domain.Employee;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Rows to write and delete so that the stored rows of a hierarchy become those of a changed hierarchy.
+ * Employees added or moved are numbered with all their reports in the first half of the gap after the last report
+ * of their new supervisor, so the rows of everybody else keep their bounds. When that gap is too small, all reports
+ * of the supervisor are numbered again between his own bounds, and when those are too close, the reports of his
+ * supervisor, up to the top supervisor.
+ */
+public final class NestedSetUpdate {
+    private final List<Employee> employees;
+    private final List<String> removedEmployeeNames;
+
+    private NestedSetUpdate(List<Employee> employees, List<String> removedEmployeeNames) {
+        this.employees = employees;
+        this.removedEmployeeNames = removedEmployeeNames;
+    }
+
+    /**
+     * Plan rows of a change from the stored rows around it, without numbering the whole hierarchy again
+     *
+     * @param organisationId:   Organisation of the hierarchy
+     * @param changedHierarchy: Hierarchy to store
+     * @param changedNames:     Employees added, moved or removed since the stored hierarchy
+     * @param topSupervisor:    Top supervisor of the stored hierarchy
+     * @param storedEmployees:  Stored rows of the organisation
+     * @param maxRows:          Most rows worth writing and deleting
+     * @return Rows to write and names to delete, empty when the change takes more rows than maxRows, changes the top
+     * supervisor or misses a stored row, the changed hierarchy is replaced in full then
+     */
+    public static Optional<NestedSetUpdate> plan(String organisationId, EmployeeHierarchy changedHierarchy,
+                                                 Collection<String> changedNames, String topSupervisor,
+                                                 StoredNestedSet storedEmployees, int maxRows) {
+        if (changedHierarchy.isEmpty() || !Objects.equals(changedHierarchy.getTopSupervisor(), topSupervisor)) {
+            return Optional.empty();
+        }
+
+        List<String> removedEmployeeNames = new ArrayList<>();
+        // Employees whose own row and rows of all their reports are written
+        Set<Integer> rootIds = new HashSet<>();
+        for (String name : changedNames) {
+            int id = changedHierarchy.idOf(name);
+            if (id == NO_ID) {
+                removedEmployeeNames.add(name);
+            } else {
+                rootIds.add(id);
+            }
+        }
+
+        // Supervisors whose reports are all numbered again between his bounds
+        Set<Integer> renumberedIds = new HashSet<>();
+        Map<Integer, Integer> subtreeSizes = new HashMap<>();
+        Map<Integer, Optional<Employee>> storedRows = new HashMap<>();
+        while (true) {
+            removeReportsOfOtherRoots(changedHierarchy, rootIds);
+
+            int rowCount = removedEmployeeNames.size();
+            Map<Integer, List<Integer>> rootIdsBySupervisor = new LinkedHashMap<>();
+            for (int rootId : rootIds) {
+                rootIdsBySupervisor.computeIfAbsent(changedHierarchy.getSupervisorId(rootId), it -> new ArrayList<>())
+                        .add(rootId);
+                rowCount += subtreeSizes.computeIfAbsent(rootId,
+                        it -> NestedSetEncoder.subtreeSize(changedHierarchy, it));
+            }
+            if (rowCount > maxRows) {
+                return Optional.empty();
+            }
+
+            List<Employee> employees = new ArrayList<>(rowCount);
+            Integer crowdedSupervisorId = null;
+            for (Map.Entry<Integer, List<Integer>> entry : rootIdsBySupervisor.entrySet()) {
+                Optional<Employee> supervisor = storedRows.computeIfAbsent(entry.getKey(),
+                        it -> storedEmployees.find(changedHierarchy.nameOf(it)));
+                if (!supervisor.isPresent()) {
+                    return Optional.empty();
+                }
+
+                long fromBound = supervisor.get().getLeftBound();
+                long toBound = supervisor.get().getRightBound();
+                if (!renumberedIds.contains(entry.getKey())) {
+                    fromBound = storedEmployees.findLastReport(supervisor.get()).map(Employee::getRightBound)
+                            .orElse(fromBound);
+                    toBound = fromBound + (toBound - fromBound) / 2;
+                }
+                int memberCount = entry.getValue().stream().mapToInt(subtreeSizes::get).sum();
+                if (!NestedSetEncoder.fits(memberCount, fromBound, toBound)) {
+                    crowdedSupervisorId = entry.getKey();
+                    break;
+                }
+                NestedSetEncoder.encodeSubtrees(organisationId, changedHierarchy, entry.getValue(),
+                        supervisor.get().getDepth() + 1, fromBound, toBound, employees);
+            }
+            if (crowdedSupervisorId == null) {
+                return Optional.of(new NestedSetUpdate(employees, removedEmployeeNames));
+            }
+
+            // Number all reports of the crowded supervisor again, or those of his supervisor when they already were
+            int renumberedId = renumberedIds.contains(crowdedSupervisorId)
+                    ? changedHierarchy.getSupervisorId(crowdedSupervisorId) : crowdedSupervisorId;
+            if (renumberedId == NO_ID) {
+                return Optional.empty();
+            }
+            renumberedIds.add(renumberedId);
+            for (int index = 0; index < changedHierarchy.getEmployeeCount(renumberedId); index++) {
+                rootIds.add(changedHierarchy.getEmployeeId(renumberedId, index));
+            }
+        }
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    public List<String> getRemovedEmployeeNames() {
+        return removedEmployeeNames;
+    }
+
+    // Remove employees reporting directly or indirectly to another one of the set, they are numbered with him.
+    // Supervisors passed on the way up are remembered, so each of them is visited once.
+    private static void removeReportsOfOtherRoots(EmployeeHierarchy hierarchy, Set<Integer> rootIds) {
+        // Key is a supervisor above some employee of the set, value is whether a supervisor of the set is above him
+        Map<Integer, Boolean> belowRoot = new HashMap<>();
+        List<Integer> path = new ArrayList<>();
+        for (Iterator<Integer> iterator = rootIds.iterator(); iterator.hasNext(); ) {
+            int id = hierarchy.getSupervisorId(iterator.next());
+            Boolean isBelowRoot = null;
+            path.clear();
+            while (isBelowRoot == null) {
+                if (id == NO_ID) {
+                    isBelowRoot = false;
+                } else if (rootIds.contains(id)) {
+                    isBelowRoot = true;
+                } else if ((isBelowRoot = belowRoot.get(id)) == null) {
+                    path.add(id);
+                    id = hierarchy.getSupervisorId(id);
+                }
+            }
+
+            for (int supervisorId : path) {
+                belowRoot.put(supervisorId, isBelowRoot);
+            }
+            if (isBelowRoot) {
+                iterator.remove();
+            }
+        }
+    }
+}
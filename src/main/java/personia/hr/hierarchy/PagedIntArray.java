@@ -0,0 +1,83 @@
+package personia.hr.hierarchy;
+
+import java.util.Arrays;
+
+/**
+ * Growable int array split in fixed size pages, which a copy shares with the array it was copied from.
+ * The copy clones a page on its first write to it, so changing a few values of a large array costs
+ * the pages holding them and the list of pages instead of the whole array.
+ * An array is not written after it was copied, only its copies are.
+ */
+final class PagedIntArray {
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private int[][] pages;
+    // Pages this array may write in place, the other ones are shared with the array it was copied from
+    private boolean[] ownedPages;
+    private int length;
+
+    // Array of given length filled with 0
+    PagedIntArray(int length) {
+        int pageCount = Math.max(pageCount(length), 1);
+        pages = new int[pageCount][];
+        ownedPages = new boolean[pageCount];
+        for (int page = 0; page < pageCount(length); page++) {
+            pages[page] = new int[PAGE_SIZE];
+            ownedPages[page] = true;
+        }
+        this.length = length;
+    }
+
+    private PagedIntArray(int[][] pages, int length) {
+        this.pages = pages;
+        this.ownedPages = new boolean[pages.length];
+        this.length = length;
+    }
+
+    int get(int index) {
+        return pages[index >>> PAGE_SHIFT][index & PAGE_MASK];
+    }
+
+    void set(int index, int value) {
+        int page = index >>> PAGE_SHIFT;
+        if (!ownedPages[page]) {
+            pages[page] = pages[page].clone();
+            ownedPages[page] = true;
+        }
+        pages[page][index & PAGE_MASK] = value;
+    }
+
+    void add(int value) {
+        int page = length >>> PAGE_SHIFT;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, page * 2);
+            ownedPages = Arrays.copyOf(ownedPages, page * 2);
+        }
+        if (pages[page] == null) {
+            pages[page] = new int[PAGE_SIZE];
+            ownedPages[page] = true;
+        }
+        length++;
+        set(length - 1, value);
+    }
+
+    // Drop the last value
+    void removeLast() {
+        length--;
+    }
+
+    int length() {
+        return length;
+    }
+
+    // Copy sharing all pages, it clones them when it writes to them
+    PagedIntArray copy() {
+        return new PagedIntArray(pages.clone(), length);
+    }
+
+    private static int pageCount(int length) {
+        return (length + PAGE_MASK) >>> PAGE_SHIFT;
+    }
+}
@@ -0,0 +1,72 @@
+package personia.hr.hierarchy;
+
+import java.util.Arrays;
+
+/**
+ * Growable String array split in fixed size pages, shared with its copies like PagedIntArray.
+ * An array is not written after it was copied, only its copies are.
+ */
+final class PagedStringArray {
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private String[][] pages;
+    // Pages this array may write in place, the other ones are shared with the array it was copied from
+    private boolean[] ownedPages;
+    private int length;
+
+    // Empty array with room for given number of values before the list of pages grows
+    PagedStringArray(int capacity) {
+        int pageCount = Math.max((capacity + PAGE_MASK) >>> PAGE_SHIFT, 1);
+        pages = new String[pageCount][];
+        ownedPages = new boolean[pageCount];
+    }
+
+    private PagedStringArray(String[][] pages, int length) {
+        this.pages = pages;
+        this.ownedPages = new boolean[pages.length];
+        this.length = length;
+    }
+
+    String get(int index) {
+        return pages[index >>> PAGE_SHIFT][index & PAGE_MASK];
+    }
+
+    void set(int index, String value) {
+        int page = index >>> PAGE_SHIFT;
+        if (!ownedPages[page]) {
+            pages[page] = pages[page].clone();
+            ownedPages[page] = true;
+        }
+        pages[page][index & PAGE_MASK] = value;
+    }
+
+    void add(String value) {
+        int page = length >>> PAGE_SHIFT;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, page * 2);
+            ownedPages = Arrays.copyOf(ownedPages, page * 2);
+        }
+        if (pages[page] == null) {
+            pages[page] = new String[PAGE_SIZE];
+            ownedPages[page] = true;
+        }
+        length++;
+        set(length - 1, value);
+    }
+
+    // Drop the last value, its slot is cleared so the name can be collected
+    void removeLast() {
+        set(--length, null);
+    }
+
+    int length() {
+        return length;
+    }
+
+    // Copy sharing all pages, it clones them when it writes to them
+    PagedStringArray copy() {
+        return new PagedStringArray(pages.clone(), length);
+    }
+}
@@ -0,0 +1,17 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Direct or indirect report of a supervisor, level 1 is a direct report
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class Report {
+    private final String employeeName;
+    private final String supervisorName;
+    private final int level;
+}
@@ -0,0 +1,17 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of reports of a supervisor, next cursor is null on the last page
+ */
+@Getter
+@AllArgsConstructor
+public class ReportsPage {
+    private final String supervisorName;
+    private final List<Report> reports;
+    private final String nextCursor;
+}
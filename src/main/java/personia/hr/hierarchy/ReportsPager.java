@@ -0,0 +1,135 @@
+package personia.hr.hierarchy;
+
+import personia.hr.exception.InvalidParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Page through reports of a supervisor in depth first order, reports deeper than the requested depth are skipped.
+ * The cursor keeps the position in each employees list from the supervisor down to the last returned report,
+ * so resuming costs the depth of that report and a page costs its size, whatever the size of the organisation.
+ * The cursor carries the version of the hierarchy it was issued for, positions would point at other reports
+ * after a change, so a cursor of another version is rejected and paging starts over.
+ */
+public final class ReportsPager {
+    private static final String CURSOR_SEPARATOR = ".";
+    private static final String VERSION_SEPARATOR = ":";
+    // Version of hierarchies not published yet
+    private static final String NO_VERSION = "0";
+
+    private ReportsPager() {
+    }
+
+    /**
+     * Get one page of reports
+     *
+     * @param hierarchy:      Hierarchy index
+     * @param supervisorName: Supervisor whose reports are listed
+     * @param depth:          Deepest level of reports, 1 lists direct reports only
+     * @param limit:          Maximum number of reports in the page
+     * @param cursor:         Next cursor of the previous page, null for the first page
+     * @return Page of reports
+     * @throws InvalidParameterException: Cursor does not belong to this supervisor's reports or was issued for
+     *                                    another version of the hierarchy
+     */
+    public static ReportsPage getReports(EmployeeHierarchy hierarchy, String supervisorName, int depth, int limit,
+                                         String cursor) {
+        Deque<Position> positions = restorePositions(hierarchy, supervisorName, cursor);
+        List<Report> reports = new ArrayList<>(Math.min(limit, 1024));
+
+        while (reports.size() < limit && skipFinishedPositions(positions)) {
+            Position position = positions.peekLast();
+            String employeeName = position.employees.get(position.next++);
+            int level = positions.size();
+            reports.add(new Report(employeeName, position.supervisorName, level));
+
+            List<String> employees = hierarchy.getEmployees(employeeName);
+            if (level < depth && !employees.isEmpty()) {
+                positions.addLast(new Position(employeeName, employees, 0));
+            }
+        }
+
+        String nextCursor = skipFinishedPositions(positions) ? encodeCursor(hierarchy, positions) : null;
+        return new ReportsPage(supervisorName, reports, nextCursor);
+    }
+
+    // Drop employees lists already walked through, false when nothing is left
+    private static boolean skipFinishedPositions(Deque<Position> positions) {
+        while (!positions.isEmpty() && positions.peekLast().next >= positions.peekLast().employees.size()) {
+            positions.removeLast();
+        }
+        return !positions.isEmpty();
+    }
+
+    private static String encodeCursor(EmployeeHierarchy hierarchy, Deque<Position> positions) {
+        StringJoiner cursor = new StringJoiner(CURSOR_SEPARATOR, versionOf(hierarchy) + VERSION_SEPARATOR, "");
+        positions.forEach(it -> cursor.add(String.valueOf(it.next)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String versionOf(EmployeeHierarchy hierarchy) {
+        HierarchyVersion version = hierarchy.getVersion();
+        return version == null ? NO_VERSION
+                : Long.toString(version.getEpoch(), Character.MAX_RADIX) + "-" + version.getNumber();
+    }
+
+    // Walk down from the supervisor along the cursor, each list below the first one belongs to the last report
+    // returned from the list above it
+    private static Deque<Position> restorePositions(EmployeeHierarchy hierarchy, String supervisorName, String cursor) {
+        Deque<Position> positions = new ArrayDeque<>();
+        positions.addLast(new Position(supervisorName, hierarchy.getEmployees(supervisorName), 0));
+        if (cursor == null) {
+            return positions;
+        }
+
+        try {
+            String decodedCursor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String versionPrefix = versionOf(hierarchy) + VERSION_SEPARATOR;
+            if (!decodedCursor.startsWith(versionPrefix)) {
+                throw new InvalidParameterException("cursor", cursor);
+            }
+            Iterator<String> nextPositions = Arrays.asList(decodedCursor.substring(versionPrefix.length())
+                    .split("\\.")).iterator();
+            Position position = positions.peekLast();
+            position.next = Integer.parseInt(nextPositions.next());
+            while (nextPositions.hasNext()) {
+                checkPosition(position, 1, cursor);
+                String employeeName = position.employees.get(position.next - 1);
+                position = new Position(employeeName, hierarchy.getEmployees(employeeName), Integer.parseInt(nextPositions.next()));
+                positions.addLast(position);
+            }
+            checkPosition(position, 0, cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidParameterException("cursor", cursor);
+        }
+
+        return positions;
+    }
+
+    private static void checkPosition(Position position, int min, String cursor) {
+        if (position.next < min || position.next > position.employees.size()) {
+            throw new InvalidParameterException("cursor", cursor);
+        }
+    }
+
+    // Next employee to return from the employees list of a supervisor
+    private static final class Position {
+        private final String supervisorName;
+        private final List<String> employees;
+        private int next;
+
+        private Position(String supervisorName, List<String> employees, int next) {
+            this.supervisorName = supervisorName;
+            this.employees = employees;
+            this.next = next;
+        }
+    }
+}
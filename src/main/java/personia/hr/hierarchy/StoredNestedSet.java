@@ -0,0 +1,16 @@
+package personia.hr.hierarchy;
+
+import personia.hr.domain.Employee;
+
+import java.util.Optional;
+
+/**
+ * Stored rows of the employees of an organisation, which changes of its nested set are planned against
+ */
+public interface StoredNestedSet {
+
+    Optional<Employee> find(String employeeName);
+
+    // Direct report of the employee with the greatest bounds, empty when he has none
+    Optional<Employee> findLastReport(Employee employee);
+}
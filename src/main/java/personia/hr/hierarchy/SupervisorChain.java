@@ -0,0 +1,20 @@
+package personia.hr.hierarchy;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Supervisors of one looked up name from the direct supervisor upwards.
+ * Found is false for a name which is not a member, its supervisors are empty like those of the top supervisor.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class SupervisorChain {
+    private final String employeeName;
+    private final boolean found;
+    private final List<String> supervisors;
+}
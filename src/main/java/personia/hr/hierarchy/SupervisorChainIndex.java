@@ -0,0 +1,71 @@
+package personia.hr.hierarchy;
+
+import static personia.hr.hierarchy.NameDictionary.NO_ID;
+
+/**
+ * Ancestor index of the hierarchy over its integer ids.
+ * Jump tables keep the 2^k-th supervisor of every employee, so the supervisor at any level is found in O(log depth).
+ */
+final class SupervisorChainIndex {
+    private final int[] depths;
+    // jumps[k][id] is the id of the 2^k-th supervisor of employee id, jumps[0] holds the direct supervisors
+    private final int[][] jumps;
+
+    SupervisorChainIndex(EmployeeHierarchy hierarchy) {
+        int size = hierarchy.memberCount();
+        int[] supervisorIds = new int[size];
+        for (int id = 0; id < size; id++) {
+            supervisorIds[id] = hierarchy.getSupervisorId(id);
+        }
+        depths = new int[size];
+
+        // Walk level by level from the top supervisor, so supervisors get their depth before their employees
+        int[] queue = new int[size];
+        int count = 0;
+        int maxDepth = 0;
+        if (size > 0) {
+            queue[count++] = hierarchy.getTopSupervisorId();
+        }
+        for (int i = 0; i < count; i++) {
+            int id = queue[i];
+            for (int index = 0; index < hierarchy.getEmployeeCount(id); index++) {
+                int employeeId = hierarchy.getEmployeeId(id, index);
+                depths[employeeId] = depths[id] + 1;
+                maxDepth = Math.max(maxDepth, depths[employeeId]);
+                queue[count++] = employeeId;
+            }
+        }
+
+        jumps = new int[Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDepth))][];
+        jumps[0] = supervisorIds;
+        for (int k = 1; k < jumps.length; k++) {
+            int[] previousJumps = jumps[k - 1];
+            int[] currentJumps = new int[size];
+            for (int id = 0; id < size; id++) {
+                int middle = previousJumps[id];
+                currentJumps[id] = middle == NO_ID ? NO_ID : previousJumps[middle];
+            }
+            jumps[k] = currentJumps;
+        }
+    }
+
+    // Get id of supervisor at given level above employee, NO_ID when the chain is shorter than level
+    int getSupervisor(int id, int level) {
+        if (level > depths[id]) {
+            return NO_ID;
+        }
+
+        int supervisorId = id;
+        for (int k = 0; level > 0; k++, level >>>= 1) {
+            if ((level & 1) == 1) {
+                supervisorId = jumps[k][supervisorId];
+            }
+        }
+        return supervisorId;
+    }
+
+    // Number of supervisors above employee
+    int getDepth(int id) {
+        return depths[id];
+    }
+}
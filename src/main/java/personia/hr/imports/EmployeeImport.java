@@ -0,0 +1,67 @@
+package personia.hr.imports;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import personia.hr.hierarchy.EmployeeHierarchy;
+
+import java.time.Instant;
+
+/**
+ * Progress and result of one bulk import of employees.
+ * It is changed by the import thread and read by status requests, so every field is volatile.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EmployeeImport {
+    private final String id;
+    private final String organisationId;
+    // Number of employees read from the body
+    private final int employees;
+    private final Instant submittedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    // Set when the import succeeded
+    private volatile String topSupervisor;
+    private volatile Integer depth;
+    // Set when the import failed
+    private volatile String error;
+
+    public EmployeeImport(String id, String organisationId, int employees) {
+        this.id = id;
+        this.organisationId = organisationId;
+        this.employees = employees;
+        this.submittedAt = Instant.now();
+    }
+
+    public void start(Status status) {
+        if (startedAt == null) {
+            startedAt = Instant.now();
+        }
+        this.status = status;
+    }
+
+    public void succeed(EmployeeHierarchy hierarchy) {
+        topSupervisor = hierarchy.getTopSupervisor();
+        depth = hierarchy.getDepth();
+        finish(Status.SUCCEEDED);
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status status) {
+        finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public enum Status {
+        QUEUED,
+        VALIDATING,
+        SAVING,
+        SUCCEEDED,
+        FAILED
+    }
+}
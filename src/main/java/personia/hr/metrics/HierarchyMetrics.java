@@ -0,0 +1,100 @@
+package personia.hr.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.HierarchyCache;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Timers of each phase of the hierarchy pipeline and gauges of the published hierarchies of cached organisations.
+ * Timers are registered once up front, so recording on the read path does not look meters up.
+ * Gauges are totals over organisations, they are not tagged by organisation to keep their number fixed.
+ */
+@Component
+public class HierarchyMetrics {
+    public static final String PHASE_TIMER = "hr.hierarchy.phase";
+
+    private final Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+
+    // Cache of the hierarchies served to readers, set by the service, gauges are computed from it on scrape
+    private final AtomicReference<HierarchyCache> hierarchyCache = new AtomicReference<>();
+
+    public HierarchyMetrics(MeterRegistry meterRegistry) {
+        for (Phase phase : Phase.values()) {
+            timers.put(phase, Timer.builder(PHASE_TIMER)
+                    .description("Time spent in a phase of the employees hierarchy pipeline")
+                    .tag("operation", phase.getOperation())
+                    .tag("phase", phase.getPhase())
+                    .register(meterRegistry));
+        }
+
+        registerGauge(meterRegistry, "hr.hierarchy.organisations", "Number of organisations whose hierarchy is in memory",
+                Stream::count);
+        registerGauge(meterRegistry, "hr.hierarchy.employees", "Number of employees of all organisations in memory",
+                it -> it.mapToDouble(EmployeeHierarchy::size).sum());
+        registerGauge(meterRegistry, "hr.hierarchy.depth", "Largest number of levels below a top supervisor",
+                it -> it.mapToDouble(EmployeeHierarchy::getDepth).max().orElse(0));
+        registerGauge(meterRegistry, "hr.hierarchy.max.fan.out", "Largest number of direct employees of one supervisor",
+                it -> it.mapToDouble(EmployeeHierarchy::getMaxFanOut).max().orElse(0));
+    }
+
+    private void registerGauge(MeterRegistry meterRegistry, String name, String description,
+                               ToDoubleFunction<Stream<EmployeeHierarchy>> value) {
+        Gauge.builder(name, hierarchyCache, it -> value.applyAsDouble(hierarchiesOf(it.get())))
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    public <T> T record(Phase phase, Supplier<T> supplier) {
+        return timers.get(phase).record(supplier);
+    }
+
+    public void record(Phase phase, Runnable runnable) {
+        timers.get(phase).record(runnable);
+    }
+
+    public void monitor(HierarchyCache hierarchyCache) {
+        this.hierarchyCache.set(hierarchyCache);
+    }
+
+    private static Stream<EmployeeHierarchy> hierarchiesOf(HierarchyCache hierarchyCache) {
+        return hierarchyCache == null ? Stream.empty() : hierarchyCache.hierarchies();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Phase {
+        CREATE_VALIDATE("create", "validate"),
+        CREATE_DIFF("create", "diff"),
+        CREATE_SAVE("create", "save"),
+        CREATE_BUILD("create", "build"),
+        IMPORT_VALIDATE("import", "validate"),
+        IMPORT_SAVE("import", "save"),
+        UPDATE_VALIDATE("update", "validate"),
+        UPDATE_SAVE("update", "save"),
+        LOAD("load", "load"),
+        SNAPSHOT_LOAD("snapshot", "load"),
+        SNAPSHOT_SAVE("snapshot", "save"),
+        GET_EMPLOYEES("read", "employees"),
+        GET_SPECIFIED_EMPLOYEE("read", "specified-employee"),
+        GET_SUPERVISOR("read", "supervisor"),
+        LOOKUP("read", "lookup"),
+        GET_REPORTS("read", "reports"),
+        GET_STATS("read", "stats"),
+        SEARCH("read", "search");
+
+        private final String operation;
+        private final String phase;
+    }
+}
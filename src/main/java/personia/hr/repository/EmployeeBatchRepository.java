@@ -0,0 +1,38 @@
+package personia.hr.repository;
+
+import personia.hr.domain.Employee;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface EmployeeBatchRepository {
+
+    /**
+     * Replace all stored employees of an organisation by the given ones in a single transaction
+     * using one bulk delete and JDBC-batched inserts, other organisations are not touched
+     *
+     * @param organisationId: Organisation of the employees
+     * @param employees:      Employees to store
+     * @param revision:       Revision of the stored employees after this write
+     */
+    void replaceAll(String organisationId, Collection<Employee> employees, long revision);
+
+    /**
+     * Delete given employees of an organisation and store new values of changed ones in a single transaction
+     *
+     * @param organisationId:       Organisation of the employees
+     * @param employees:            Added or changed employees to store
+     * @param removedEmployeeNames:  Names of employees to delete
+     * @param revision:             Revision of the stored employees after this write
+     */
+    void applyChanges(String organisationId, Collection<Employee> employees, Collection<String> removedEmployeeNames,
+                      long revision);
+
+    /**
+     * Get revision written with the stored employees of an organisation
+     *
+     * @param organisationId: Organisation of the employees
+     * @return Revision, empty when no employees were written
+     */
+    Optional<Long> findRevision(String organisationId);
+}
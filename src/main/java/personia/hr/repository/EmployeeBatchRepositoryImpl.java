@@ -0,0 +1,73 @@
+package personia.hr.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+import personia.hr.domain.Employee;
+import personia.hr.domain.HierarchyRevision;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class EmployeeBatchRepositoryImpl implements EmployeeBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${hr.persistence.batch-size:1000}")
+    private int batchSize;
+
+    @Transactional
+    @Override
+    public void replaceAll(String organisationId, Collection<Employee> employees, long revision) {
+        // Delete all old data of the organisation by one statement instead of loading and deleting row by row
+        entityManager.createQuery("delete from Employee e where e.organisationId = :organisationId")
+                .setParameter("organisationId", organisationId)
+                .executeUpdate();
+
+        persistInBatches(employees);
+        entityManager.merge(new HierarchyRevision(organisationId, revision));
+    }
+
+    @Transactional
+    @Override
+    public void applyChanges(String organisationId, Collection<Employee> employees, Collection<String> removedEmployeeNames,
+                             long revision) {
+        // Changed employees are deleted too, so all of them can be inserted without existence checks
+        List<String> deletedEmployeeNames = new ArrayList<>(removedEmployeeNames);
+        employees.forEach(it -> deletedEmployeeNames.add(it.getEmployeeName()));
+
+        for (int from = 0; from < deletedEmployeeNames.size(); from += batchSize) {
+            entityManager.createQuery("delete from Employee e where e.organisationId = :organisationId and e.employeeName in :employeeNames")
+                    .setParameter("organisationId", organisationId)
+                    .setParameter("employeeNames", deletedEmployeeNames.subList(from, Math.min(from + batchSize, deletedEmployeeNames.size())))
+                    .executeUpdate();
+        }
+
+        persistInBatches(employees);
+        entityManager.merge(new HierarchyRevision(organisationId, revision));
+    }
+
+    @Override
+    public Optional<Long> findRevision(String organisationId) {
+        return Optional.ofNullable(entityManager.find(HierarchyRevision.class, organisationId))
+                .map(HierarchyRevision::getRevision);
+    }
+
+    // Persist does not check existence of the assigned id, inserts are flushed as JDBC batches
+    private void persistInBatches(Collection<Employee> employees) {
+        int count = 0;
+        for (Employee employee : employees) {
+            entityManager.persist(employee);
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -3,7 +3,49 @@ package personia.hr.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import personia.hr.domain.Employee;
+import personia.hr.domain.EmployeeId;
+
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, String> {
+public interface EmployeeRepository extends JpaRepository<Employee, EmployeeId>, EmployeeBatchRepository {
+
+    List<Employee> findByOrganisationId(String organisationId);
+
+    long countByOrganisationId(String organisationId);
+
+    List<Employee> findByOrganisationIdAndSupervisorName(String organisationId, String supervisorName);
+
+    List<Employee> findByOrganisationIdAndLeftBoundBetweenOrderByLeftBound(String organisationId, Long fromLeftBound,
+                                                                           Long toLeftBound);
+
+    List<Employee> findByOrganisationIdAndLeftBoundLessThanAndRightBoundGreaterThanOrderByDepth(String organisationId,
+                                                                                               Long leftBound,
+                                                                                               Long rightBound);
+
+    Optional<Employee> findFirstByOrganisationIdAndDepthAndLeftBoundBetweenOrderByLeftBoundDesc(String organisationId,
+                                                                                            Integer depth,
+                                                                                            Long fromLeftBound,
+                                                                                            Long toLeftBound);
+
+    // Get all direct and indirect reports of employee, ordered depth first, those of the top supervisor too.
+    // It is one range of the left bound index.
+    default List<Employee> findReports(Employee employee) {
+        return findByOrganisationIdAndLeftBoundBetweenOrderByLeftBound(employee.getOrganisationId(),
+                employee.getLeftBound() + 1, employee.getRightBound() - 1);
+    }
+
+    // Get all supervisors above employee, from the top supervisor down to the direct supervisor.
+    // Their bounds hold his bounds, so it is one query over the left bound index before his left bound.
+    default List<Employee> findSupervisors(Employee employee) {
+        return findByOrganisationIdAndLeftBoundLessThanAndRightBoundGreaterThanOrderByDepth(
+                employee.getOrganisationId(), employee.getLeftBound(), employee.getRightBound());
+    }
+
+    // Get the direct report of employee with the greatest bounds, a single seek of the depth and left bound index
+    default Optional<Employee> findLastReport(Employee employee) {
+        return findFirstByOrganisationIdAndDepthAndLeftBoundBetweenOrderByLeftBoundDesc(employee.getOrganisationId(),
+                employee.getDepth() + 1, employee.getLeftBound() + 1, employee.getRightBound() - 1);
+    }
 }
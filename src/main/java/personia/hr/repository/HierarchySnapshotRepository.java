@@ -0,0 +1,107 @@
+package personia.hr.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.HierarchySnapshot;
+import personia.hr.hierarchy.HierarchySnapshotCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Local snapshot files of the committed hierarchies, so a restart can serve them without reading and validating all rows.
+ * Every organisation has its own file named by its id in the snapshot directory.
+ * The database stays the source of truth, a missing or corrupt snapshot only means loading from the database,
+ * and a snapshot is only used when it was taken at the revision of the stored employees.
+ * Disabled when no directory is configured.
+ */
+@Slf4j
+@Repository
+public class HierarchySnapshotRepository {
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+    private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+
+    private final Path snapshotDirectory;
+
+    public HierarchySnapshotRepository(@Value("${hr.snapshot.directory:}") String snapshotDirectory) {
+        this.snapshotDirectory = StringUtils.isEmpty(snapshotDirectory) ? null : Paths.get(snapshotDirectory);
+    }
+
+    /**
+     * Load snapshot by mapping the file into memory
+     *
+     * @param organisationId: Organisation of the hierarchy, it is part of the file name
+     * @return Hierarchy index and revision it was taken at, empty when disabled, missing or corrupt
+     */
+    public Optional<HierarchySnapshot> load(String organisationId) {
+        if (snapshotDirectory == null) {
+            return Optional.empty();
+        }
+
+        Path snapshotFile = snapshotFileOf(organisationId);
+        if (!Files.isRegularFile(snapshotFile)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(HierarchySnapshotCodec.read(buffer));
+        } catch (IOException ex) {
+            log.error("Snapshot: {} cannot be loaded: {}", snapshotFile, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replace snapshot, the file is written aside and moved over the old one so it is never seen half written.
+     * A snapshot that cannot be written is deleted, so a restart does not load an older hierarchy.
+     *
+     * @param organisationId: Organisation of the hierarchy, it is part of the file name
+     * @param hierarchy:      Committed hierarchy index
+     * @param revision:       Revision of the stored employees the hierarchy was committed at
+     */
+    public void save(String organisationId, EmployeeHierarchy hierarchy, long revision) {
+        if (snapshotDirectory == null) {
+            return;
+        }
+
+        Path snapshotFile = snapshotFileOf(organisationId);
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshotDirectory);
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryFile), WRITE_BUFFER_BYTES)) {
+                HierarchySnapshotCodec.write(hierarchy, revision, outputStream);
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.error("Snapshot: {} cannot be saved: {}", snapshotFile, ex.getMessage());
+            delete(temporaryFile);
+            delete(snapshotFile);
+        }
+    }
+
+    // Organisation ids are checked by callers to be plain names, they cannot point outside of the directory
+    private Path snapshotFileOf(String organisationId) {
+        return snapshotDirectory.resolve(organisationId + SNAPSHOT_FILE_SUFFIX);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.error("Snapshot: {} cannot be deleted: {}", file, ex.getMessage());
+        }
+    }
+}
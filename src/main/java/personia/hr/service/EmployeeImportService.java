@@ -0,0 +1,10 @@
+package personia.hr.service;
+
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.imports.EmployeeImport;
+
+public interface EmployeeImportService {
+    EmployeeImport submitImport(String organisationId, EmployeeHierarchyBuilder employees);
+
+    EmployeeImport getImport(String organisationId, String importId);
+}
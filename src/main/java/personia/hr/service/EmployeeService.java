@@ -1,11 +1,50 @@
 package personia.hr.service;
 
+import personia.hr.hierarchy.CreatedEmployees;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.hierarchy.EmployeeMatch;
+import personia.hr.hierarchy.EmployeeStats;
+import personia.hr.hierarchy.HierarchyChanges;
+import personia.hr.hierarchy.HierarchyStats;
+import personia.hr.hierarchy.HierarchyVersion;
+import personia.hr.hierarchy.ReportsPage;
+import personia.hr.hierarchy.SupervisorChain;
+import personia.hr.imports.EmployeeImport;
+
+import java.util.List;
 import java.util.Map;
 
 public interface EmployeeService {
-    Map<String, Object> getSpecifiedEmployee(String employeeName);
+    // Organisation of requests without one, it keeps the employees of single organisation deployments
+    String DEFAULT_ORGANISATION_ID = "default";
+
+    Map<String, Object> getSpecifiedEmployee(String organisationId, String employeeName);
+
+    Map<String, Object> getSpecifiedEmployee(String organisationId, String employeeName, int levels);
+
+    List<SupervisorChain> getSupervisorChains(String organisationId, List<String> employeeNames, int levels);
+
+    String getSupervisor(String organisationId, String employeeName, int level);
+
+    ReportsPage getReports(String organisationId, String employeeName, int depth, int limit, String cursor);
+
+    HierarchyStats getStats(String organisationId);
+
+    EmployeeStats getStats(String organisationId, String employeeName);
+
+    List<EmployeeMatch> searchEmployees(String organisationId, String prefix, int limit);
+
+    Map<String, Object> getEmployees(String organisationId);
+
+    EmployeeHierarchy getEmployeeHierarchy(String organisationId);
+
+    HierarchyVersion getHierarchyVersion(String organisationId);
+
+    CreatedEmployees createEmployees(String organisationId, Map<String, String> requestEmployees);
 
-    Map<String, Object> getEmployees();
+    EmployeeHierarchy importEmployees(String organisationId, EmployeeHierarchyBuilder employees,
+                                      EmployeeImport employeeImport);
 
-    Map<String, Object> createEmployees(Map<String, String> requestEmployees);
+    HierarchyChanges updateEmployees(String organisationId, Map<String, String> changes);
 }
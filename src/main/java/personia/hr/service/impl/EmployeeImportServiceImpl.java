@@ -0,0 +1,170 @@
+package personia.hr.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import personia.hr.exception.ImportRejectedException;
+import personia.hr.exception.NoImportFoundException;
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.imports.EmployeeImport;
+import personia.hr.service.EmployeeImportService;
+import personia.hr.service.EmployeeService;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Run bulk imports of employees on background threads.
+ * Each import replaces the whole hierarchy of its organisation, imports of an organisation wait in its own queue and
+ * run one at a time in the order they were submitted, so that the last one submitted is the one kept.
+ * Imports of different organisations run in parallel on up to hr.imports.threads threads.
+ * Queues are bounded per organisation and in total, imports beyond them are rejected instead of piling parsed bodies
+ * up in memory.
+ */
+@Slf4j
+@Service
+public class EmployeeImportServiceImpl implements EmployeeImportService {
+    private static final int MAX_RETAINED_IMPORTS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final EmployeeService employeeService;
+    private final int queueCapacity;
+    private final int totalQueueCapacity;
+    // Runs one drain of the queue of each organisation with waiting imports
+    private final ThreadPoolExecutor importExecutor;
+
+    // Waiting imports by organisation, an organisation is kept while its queue is drained
+    private final Map<String, Deque<Runnable>> queuedImports = new HashMap<>();
+    // Waiting imports of all organisations, guarded by queuedImports
+    private int queuedImportCount;
+
+    // Latest imports by id, the oldest one is forgotten once more than MAX_RETAINED_IMPORTS are kept
+    private final Map<String, EmployeeImport> imports = Collections.synchronizedMap(
+            new LinkedHashMap<String, EmployeeImport>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EmployeeImport> eldest) {
+                    return size() > MAX_RETAINED_IMPORTS;
+                }
+            });
+
+    public EmployeeImportServiceImpl(EmployeeService employeeService,
+                                     @Value("${hr.imports.queue-capacity:4}") int queueCapacity,
+                                     @Value("${hr.imports.total-queue-capacity:16}") int totalQueueCapacity,
+                                     @Value("${hr.imports.threads:2}") int threads) {
+        this.employeeService = employeeService;
+        this.queueCapacity = queueCapacity;
+        this.totalQueueCapacity = totalQueueCapacity;
+        this.importExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("employee-import-"));
+    }
+
+    /**
+     * Queue import of employees read from a request body
+     *
+     * @param organisationId: Organisation of the employees
+     * @param employees:      Employees and supervisors read from the body
+     * @return Queued import, its status is updated while it runs
+     * @throws ImportRejectedException: Import queue of the organisation or imports of all organisations are full
+     */
+    @Override
+    public EmployeeImport submitImport(String organisationId, EmployeeHierarchyBuilder employees) {
+        EmployeeImport employeeImport = new EmployeeImport(UUID.randomUUID().toString(), organisationId, employees.size());
+        synchronized (queuedImports) {
+            Deque<Runnable> organisationImports = queuedImports.get(organisationId);
+            if (queuedImportCount >= totalQueueCapacity
+                    || !isNull(organisationImports) && organisationImports.size() >= queueCapacity) {
+                throw new ImportRejectedException();
+            }
+
+            if (isNull(organisationImports)) {
+                try {
+                    importExecutor.execute(() -> runImports(organisationId));
+                } catch (RejectedExecutionException ex) {
+                    throw new ImportRejectedException();
+                }
+                organisationImports = new ArrayDeque<>();
+                queuedImports.put(organisationId, organisationImports);
+            }
+            organisationImports.add(() -> runImport(employees, employeeImport));
+            queuedImportCount++;
+        }
+
+        imports.put(employeeImport.getId(), employeeImport);
+        return employeeImport;
+    }
+
+    /**
+     * Get import by id
+     *
+     * @param organisationId: Organisation the import was submitted to
+     * @param importId:       Import id
+     * @return Import with its current status
+     * @throws NoImportFoundException: Import not found, already forgotten or submitted to another organisation
+     */
+    @Override
+    public EmployeeImport getImport(String organisationId, String importId) {
+        EmployeeImport employeeImport = imports.get(importId);
+        if (isNull(employeeImport) || !employeeImport.getOrganisationId().equals(organisationId)) {
+            throw new NoImportFoundException(importId);
+        }
+
+        return employeeImport;
+    }
+
+    // Run imports of the organisation until its queue is empty, imports submitted meanwhile are run too
+    private void runImports(String organisationId) {
+        while (true) {
+            Runnable organisationImport;
+            synchronized (queuedImports) {
+                organisationImport = queuedImports.get(organisationId).poll();
+                if (isNull(organisationImport)) {
+                    queuedImports.remove(organisationId);
+                    return;
+                }
+                queuedImportCount--;
+            }
+            organisationImport.run();
+        }
+    }
+
+    // Errors are kept in the import too, so that it never stays unfinished and the next import of the organisation runs
+    private void runImport(EmployeeHierarchyBuilder employees, EmployeeImport employeeImport) {
+        try {
+            employeeImport.succeed(employeeService.importEmployees(employeeImport.getOrganisationId(), employees,
+                    employeeImport));
+        } catch (RuntimeException ex) {
+            log.error("Import: {} failed: {}", employeeImport.getId(), errorOf(ex));
+            employeeImport.fail(errorOf(ex));
+        } catch (Throwable ex) {
+            log.error("Import: {} failed", employeeImport.getId(), ex);
+            employeeImport.fail(errorOf(ex));
+        }
+    }
+
+    // Message of the failure, the type of failures without message such as NullPointerException
+    private static String errorOf(Throwable ex) {
+        return isNull(ex.getMessage()) ? ex.getClass().getSimpleName() : ex.getMessage();
+    }
+
+    // Let running and queued imports finish before the application stops
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        importExecutor.shutdown();
+        if (!importExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.error("Imports did not finish in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+        }
+    }
+}
@@ -1,161 +1,663 @@
 package personia.hr.service.impl;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.StringUtils;
 import personia.hr.domain.Employee;
+import personia.hr.domain.EmployeeId;
 import personia.hr.exception.InvalidValueException;
 import personia.hr.exception.LoopHierarchyException;
 import personia.hr.exception.MultipleRootFoundException;
+import personia.hr.exception.InvalidParameterException;
 import personia.hr.exception.NoEmployeeFoundException;
+import personia.hr.exception.UploadSupersededException;
+import personia.hr.exception.WriteRejectedException;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.hierarchy.EmployeeMatch;
+import personia.hr.hierarchy.CreatedEmployees;
+import personia.hr.hierarchy.EmployeeStats;
+import personia.hr.hierarchy.HierarchyCache;
+import personia.hr.hierarchy.HierarchyChanges;
+import personia.hr.hierarchy.HierarchyDiff;
+import personia.hr.hierarchy.HierarchySnapshot;
+import personia.hr.hierarchy.HierarchyStats;
+import personia.hr.hierarchy.HierarchyNode;
+import personia.hr.hierarchy.HierarchyVersion;
+import personia.hr.hierarchy.NestedSetEncoder;
+import personia.hr.hierarchy.NestedSetUpdate;
+import personia.hr.hierarchy.ReportsPage;
+import personia.hr.hierarchy.ReportsPager;
+import personia.hr.hierarchy.StoredNestedSet;
+import personia.hr.hierarchy.SupervisorChain;
+import personia.hr.imports.EmployeeImport;
+import personia.hr.metrics.HierarchyMetrics;
 import personia.hr.repository.EmployeeRepository;
+import personia.hr.repository.HierarchySnapshotRepository;
 import personia.hr.service.EmployeeService;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import static java.lang.Boolean.FALSE;
+import static java.util.Collections.emptyList;
+import static personia.hr.metrics.HierarchyMetrics.Phase.CREATE_BUILD;
+import static personia.hr.metrics.HierarchyMetrics.Phase.CREATE_DIFF;
+import static personia.hr.metrics.HierarchyMetrics.Phase.CREATE_SAVE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.CREATE_VALIDATE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.GET_EMPLOYEES;
+import static personia.hr.metrics.HierarchyMetrics.Phase.GET_REPORTS;
+import static personia.hr.metrics.HierarchyMetrics.Phase.GET_SPECIFIED_EMPLOYEE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.GET_STATS;
+import static personia.hr.metrics.HierarchyMetrics.Phase.GET_SUPERVISOR;
+import static personia.hr.metrics.HierarchyMetrics.Phase.IMPORT_SAVE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.IMPORT_VALIDATE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.LOAD;
+import static personia.hr.metrics.HierarchyMetrics.Phase.LOOKUP;
+import static personia.hr.metrics.HierarchyMetrics.Phase.SEARCH;
+import static personia.hr.metrics.HierarchyMetrics.Phase.SNAPSHOT_LOAD;
+import static personia.hr.metrics.HierarchyMetrics.Phase.SNAPSHOT_SAVE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.UPDATE_SAVE;
+import static personia.hr.metrics.HierarchyMetrics.Phase.UPDATE_VALIDATE;
 import static java.util.Objects.isNull;
-import static java.util.stream.Collectors.*;
-
-@RequiredArgsConstructor
+import static personia.hr.imports.EmployeeImport.Status.SAVING;
+import static personia.hr.imports.EmployeeImport.Status.VALIDATING;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Hierarchies of employees partitioned by organisation, every organisation has its own rows, snapshot file
+ * and hierarchy index. Indexes of recently read organisations are cached, the others are loaded on their next read.
+ */
+@Slf4j
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
     private static final int MAX_SUPERVISOR_LEVEL = 2;
-    private static final int FIRST_SUPERVISOR_LEVEL = 1;
+    private static final int WRITE_LOCK_STRIPES = 64;
 
     private final EmployeeRepository employeeRepository;
+    private final HierarchyMetrics hierarchyMetrics;
+    private final HierarchySnapshotRepository hierarchySnapshotRepository;
+
+    // Writers of an organisation are serialized by the lock of its stripe, so that each one validates
+    // against the last committed hierarchy, while writers of organisations on other stripes run in parallel.
+    // Reads of an organisation which is not cached take it too, while one of them loads its hierarchy.
+    // Uploads and updates are validated by their callers and queued in the stripe, the caller holding the lock
+    // applies every queued write in order, so callers which come later find theirs done when they get the lock.
+    private final WriteStripe[] writeStripes = new WriteStripe[WRITE_LOCK_STRIPES];
+
+    // Transactions of different organisations run in parallel up to hr.persistence.max-concurrent-writes,
+    // further ones wait for a permit: the embedded database slows down several times over when many large
+    // transactions on the employee table overlap
+    private final Semaphore databaseWritePermits;
+
+    // Immutable snapshots of the last committed employees by organisation, readers only ever read these references.
+    // Writers build and save a new snapshot aside and swap it in after the database transaction committed.
+    private final HierarchyCache hierarchyCache;
+
+    // Every published hierarchy gets the next version number
+    private final long versionEpoch = System.currentTimeMillis();
+    private final AtomicLong versionNumber = new AtomicLong();
+
+    // Organisations whose hierarchy was loaded from the snapshot file into an empty database,
+    // their rows are written by the next writer before it changes them
+    private final Set<String> databaseSeedPending = ConcurrentHashMap.newKeySet();
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, HierarchyMetrics hierarchyMetrics,
+                               HierarchySnapshotRepository hierarchySnapshotRepository,
+                               @Value("${hr.hierarchy.cache.max-employees:5000000}") long cacheMaxEmployees,
+                               @Value("${hr.writes.queue-capacity:16}") int writeQueueCapacity,
+                               @Value("${hr.persistence.max-concurrent-writes:2}") int maxConcurrentDatabaseWrites) {
+        this.employeeRepository = employeeRepository;
+        this.hierarchyMetrics = hierarchyMetrics;
+        this.hierarchySnapshotRepository = hierarchySnapshotRepository;
+        this.hierarchyCache = new HierarchyCache(cacheMaxEmployees);
+        this.databaseWritePermits = new Semaphore(maxConcurrentDatabaseWrites, true);
+        for (int stripe = 0; stripe < WRITE_LOCK_STRIPES; stripe++) {
+            writeStripes[stripe] = new WriteStripe(writeQueueCapacity);
+        }
+        hierarchyMetrics.monitor(hierarchyCache);
+    }
 
     /**
-     * Create employees hierarchy
+     * Create employees hierarchy, only employees that differ from the current hierarchy are written to DB
      *
+     * @param organisationId: Organisation of the employees
      * @param inputEmployees: Json input describe relationship between employee and supervisor
-     * @return Employees hierarchy
+     * @return Employees hierarchy and employees added, moved and removed by it
      * @throws InvalidValueException:      Invalid input value found
      * @throws MultipleRootFoundException: Multiple top supervisor found
      * @throws LoopHierarchyException:     Input hierarchy contain loops
+     * @throws WriteRejectedException:     Too many writes are waiting
+     * @throws UploadSupersededException:  A newer upload was waiting too and was applied instead
      */
     @Override
-    public Map<String, Object> createEmployees(Map<String, String> inputEmployees) {
-        validateInputEmployees(inputEmployees);
-
-        Map<String, List<String>> supervisors = getSupervisors(inputEmployees);
-        List<String> topSupervisors = getTopSupervisors(inputEmployees, supervisors);
+    public CreatedEmployees createEmployees(String organisationId, Map<String, String> inputEmployees) {
+        EmployeeHierarchy submittedHierarchy = hierarchyMetrics.record(CREATE_VALIDATE,
+                () -> EmployeeHierarchyValidator.validate(inputEmployees));
+
+        AppliedUpload appliedUpload = write(organisationId, true,
+                () -> applyUpload(organisationId, submittedHierarchy));
+        return new CreatedEmployees(
+                hierarchyMetrics.record(CREATE_BUILD, () -> buildHighestSupervisorHierarchy(appliedUpload.hierarchy)),
+                appliedUpload.changes);
+    }
 
-        if (hasMultipleRoots(topSupervisors)) {
-            throw new MultipleRootFoundException(topSupervisors);
+    // Store the difference between the current and the submitted hierarchy, called by the writer of the stripe
+    private AppliedUpload applyUpload(String organisationId, EmployeeHierarchy submittedHierarchy) {
+        EmployeeHierarchy currentHierarchy = getLoadedEmployeeHierarchy(organisationId);
+        HierarchyDiff diff = hierarchyMetrics.record(CREATE_DIFF,
+                () -> HierarchyDiff.between(currentHierarchy, submittedHierarchy));
+
+        if (databaseSeedPending.remove(organisationId) || diff.isLarge()) {
+            long revision = hierarchyMetrics.record(CREATE_SAVE,
+                    () -> saveEmployeesInDB(organisationId, submittedHierarchy));
+            return new AppliedUpload(publishEmployeeHierarchy(organisationId, submittedHierarchy, revision),
+                    diff.getSummary());
         }
-
-        if (hasLoopHierarchy(topSupervisors)) {
-            throw new LoopHierarchyException(supervisors.keySet());
+        if (diff.isEmpty()) {
+            // Same employees and supervisors, the current version stays valid for clients
+            return new AppliedUpload(currentHierarchy, diff.getSummary());
         }
 
-        saveEmployeesInDB(inputEmployees);
+        EmployeeHierarchy changedHierarchy = diff.applyToCurrent();
+        long revision = hierarchyMetrics.record(CREATE_SAVE,
+                () -> saveChangesInDB(organisationId, currentHierarchy, changedHierarchy, diff.getChangedNames()));
+        return new AppliedUpload(publishEmployeeHierarchy(organisationId, changedHierarchy, revision),
+                diff.getSummary());
+    }
 
-        return buildHighestSupervisorHierarchy(supervisors, topSupervisors);
+    /**
+     * Replace employees hierarchy by employees read from a bulk import
+     *
+     * @param organisationId: Organisation of the employees
+     * @param employees:      Employees and supervisors read from the import body
+     * @param employeeImport: Import whose status follows the phases
+     * @return Hierarchy index of imported employees
+     * @throws InvalidValueException:      Invalid input value found
+     * @throws MultipleRootFoundException: Multiple top supervisor found
+     * @throws LoopHierarchyException:     Input hierarchy contain loops
+     * @throws WriteRejectedException:     Too many writes are waiting
+     * @throws UploadSupersededException:  A newer upload or import was waiting too and was applied instead
+     */
+    @Override
+    public EmployeeHierarchy importEmployees(String organisationId, EmployeeHierarchyBuilder employees,
+                                             EmployeeImport employeeImport) {
+        employeeImport.start(VALIDATING);
+        EmployeeHierarchy hierarchy = hierarchyMetrics.record(IMPORT_VALIDATE,
+                () -> EmployeeHierarchyValidator.validate(employees));
+
+        // Queued with uploads of the organisation, it replaces the whole hierarchy like them
+        return write(organisationId, true, () -> {
+            employeeImport.start(SAVING);
+            long revision = hierarchyMetrics.record(IMPORT_SAVE, () -> saveEmployeesInDB(organisationId, hierarchy));
+            databaseSeedPending.remove(organisationId);
+            return publishEmployeeHierarchy(organisationId, hierarchy, revision);
+        });
     }
 
-    private void validateInputEmployees(Map<String, String> inputEmployees) {
+    /**
+     * Add, move or remove some employees of current hierarchy
+     *
+     * @param organisationId: Organisation of the employees
+     * @param changes:        Key is employee and value is new supervisor, null value removes the employee
+     * @return Summary of added, moved and removed employees
+     * @throws InvalidValueException:      Invalid change value found
+     * @throws MultipleRootFoundException: Changes would leave multiple top supervisor
+     * @throws LoopHierarchyException:     Changes would make hierarchy contain loops
+     * @throws WriteRejectedException:     Too many writes are waiting
+     */
+    @Override
+    public HierarchyChanges updateEmployees(String organisationId, Map<String, String> changes) {
         // Check input is empty or not
-        if (CollectionUtils.isEmpty(inputEmployees)) {
+        if (CollectionUtils.isEmpty(changes)) {
             throw new InvalidValueException();
         }
 
-        // Validate value of each employee
-        inputEmployees.entrySet().stream()
-                .filter(it -> StringUtils.isEmpty(it.getValue()) || it.getKey().equalsIgnoreCase(it.getValue()))
-                .findFirst()
-                .ifPresent(it -> {
-                    throw new InvalidValueException(it.getKey());
-                });
+        return write(organisationId, false, () -> applyChanges(organisationId, changes));
     }
 
-    // Get a supervisors's structure contains key is supervisor and value is supervisor's employees
-    private Map<String, List<String>> getSupervisors(Map<String, String> employees) {
-        return employees.entrySet().stream()
-                .collect(groupingBy(Map.Entry::getValue, mapping(Map.Entry::getKey, toList())));
+    // Validate changes against the current hierarchy and store them, called by the writer of the stripe
+    private HierarchyChanges applyChanges(String organisationId, Map<String, String> changes) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+
+        // Ignore changes which keep employee with the same supervisor
+        Map<String, String> effectiveChanges = new LinkedHashMap<>();
+        changes.forEach((employeeName, supervisorName) -> {
+            if (supervisorName == null || !supervisorName.equals(hierarchy.getSupervisor(employeeName).orElse(null))) {
+                effectiveChanges.put(employeeName, supervisorName);
+            }
+        });
+        if (effectiveChanges.isEmpty()) {
+            return new HierarchyChanges(emptyList(), emptyList(), emptyList());
+        }
+
+        EmployeeHierarchy changedHierarchy = hierarchyMetrics.record(UPDATE_VALIDATE,
+                () -> EmployeeHierarchyValidator.validateChanges(hierarchy, effectiveChanges));
+
+        HierarchyChanges hierarchyChanges = getHierarchyChanges(hierarchy, effectiveChanges);
+        if (databaseSeedPending.remove(organisationId)) {
+            hierarchyMetrics.record(UPDATE_SAVE, () -> saveEmployeesInDB(organisationId, hierarchy));
+        }
+        long revision = hierarchyMetrics.record(UPDATE_SAVE,
+                () -> saveChangesInDB(organisationId, hierarchy, changedHierarchy, effectiveChanges.keySet()));
+        publishEmployeeHierarchy(organisationId, changedHierarchy, revision);
+
+        return hierarchyChanges;
     }
 
-    // Get top supervisor - Top supervisor is the person who is not an employee of another supervisor
-    private List<String> getTopSupervisors(Map<String, String> inputEmployees,
-                                           Map<String, List<String>> supervisors) {
-        return supervisors.keySet().stream()
-                .filter(supervisor -> isNull(inputEmployees.get(supervisor)))
-                .collect(toList());
+    /**
+     * Queue a write and wait until it is applied, by this caller or by the one holding the lock of the stripe
+     *
+     * @param organisationId: Organisation of the write
+     * @param replacesAll:    Write replaces the whole hierarchy, newer writes of the kind supersede it
+     * @param write:          Write applied while holding the lock of the stripe
+     * @return Result of the write
+     * @throws WriteRejectedException:    Queue of the stripe is full
+     * @throws UploadSupersededException: A newer upload of the organisation was queued right after it
+     */
+    private <T> T write(String organisationId, boolean replacesAll, Supplier<T> write) {
+        WriteStripe stripe = writeStripeOf(organisationId);
+        PendingWrite<T> pendingWrite = new PendingWrite<>(organisationId, replacesAll, write);
+        if (!stripe.pendingWrites.offer(pendingWrite)) {
+            throw new WriteRejectedException();
+        }
+
+        synchronized (stripe) {
+            // Writes queued before this one are applied by earlier holders of the lock or drained here
+            if (!pendingWrite.isDone()) {
+                applyPendingWrites(stripe);
+            }
+        }
+        return pendingWrite.getResult();
+    }
+
+    // Apply queued writes in order. A full upload followed by a newer one of its organisation, with no update
+    // of that organisation between them, is superseded: the newer one would replace what it stored anyway.
+    private void applyPendingWrites(WriteStripe stripe) {
+        List<PendingWrite<?>> pendingWrites = new ArrayList<>();
+        stripe.pendingWrites.drainTo(pendingWrites);
+
+        boolean[] superseded = new boolean[pendingWrites.size()];
+        Set<String> replacedLater = new HashSet<>();
+        for (int i = pendingWrites.size() - 1; i >= 0; i--) {
+            PendingWrite<?> pendingWrite = pendingWrites.get(i);
+            if (pendingWrite.replacesAll()) {
+                superseded[i] = !replacedLater.add(pendingWrite.getOrganisationId());
+            } else {
+                replacedLater.remove(pendingWrite.getOrganisationId());
+            }
+        }
+
+        for (int i = 0; i < pendingWrites.size(); i++) {
+            if (superseded[i]) {
+                pendingWrites.get(i).supersede();
+            } else {
+                pendingWrites.get(i).apply();
+            }
+        }
+    }
+
+    private HierarchyChanges getHierarchyChanges(EmployeeHierarchy hierarchy, Map<String, String> changes) {
+        List<String> added = new ArrayList<>();
+        List<String> moved = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        changes.forEach((employeeName, supervisorName) -> {
+            if (supervisorName == null) {
+                removed.add(employeeName);
+            } else if (hierarchy.containsEmployee(employeeName)) {
+                moved.add(employeeName);
+            } else {
+                added.add(employeeName);
+            }
+        });
+        return new HierarchyChanges(added, moved, removed);
     }
 
-    // Check hierarchy contain loop or not
-    private boolean hasLoopHierarchy(List<String> topSupervisors) {
-        return topSupervisors.size() == 0;
+    // Write rows of the changed employees and their reports in the gaps of the stored nested set and delete removed
+    // ones. When that takes more rows than half of the hierarchy, all rows are replaced instead.
+    // Returns the revision written with the rows.
+    private long saveChangesInDB(String organisationId, EmployeeHierarchy hierarchy, EmployeeHierarchy changedHierarchy,
+                                 Collection<String> changedNames) {
+        StoredNestedSet storedEmployees = new StoredNestedSet() {
+            @Override
+            public Optional<Employee> find(String employeeName) {
+                return employeeRepository.findById(new EmployeeId(organisationId, employeeName));
+            }
+
+            @Override
+            public Optional<Employee> findLastReport(Employee employee) {
+                return employeeRepository.findLastReport(employee);
+            }
+        };
+        Optional<NestedSetUpdate> update = NestedSetUpdate.plan(organisationId, changedHierarchy, changedNames,
+                hierarchy.getTopSupervisor(), storedEmployees, (changedHierarchy.size() + 1) / 2);
+        if (!update.isPresent()) {
+            return saveEmployeesInDB(organisationId, changedHierarchy);
+        }
+
+        long revision = nextRevision();
+        writeInDB(() -> employeeRepository.applyChanges(organisationId, update.get().getEmployees(),
+                update.get().getRemovedEmployeeNames(), revision));
+        return revision;
     }
 
-    private boolean hasMultipleRoots(List<String> topSupervisors) {
-        return topSupervisors.size() > 1;
+    // Returns the revision written with the rows
+    private long saveEmployeesInDB(String organisationId, EmployeeHierarchy hierarchy) {
+        // Replace all old data of the organisation by new employees in one transaction
+        List<Employee> employees = NestedSetEncoder.encode(organisationId, hierarchy);
+        long revision = nextRevision();
+        writeInDB(() -> employeeRepository.replaceAll(organisationId, employees, revision));
+        return revision;
     }
 
-    private void saveEmployeesInDB(Map<String, String> employeeMap) {
-        // Delete all old data before saving new one
-        employeeRepository.deleteAll();
+    // Random, so a revision written before a restart is not written again for other rows after it
+    private static long nextRevision() {
+        return ThreadLocalRandom.current().nextLong();
+    }
 
-        // Save new employees into DB
-        employeeMap.entrySet().stream()
-                .map(it -> Employee.builder()
-                        .employeeName(it.getKey())
-                        .supervisorName(it.getValue())
-                        .build())
-                .forEach(employeeRepository::save);
+    // Run a transaction once a database write permit is free
+    private void writeInDB(Runnable transaction) {
+        databaseWritePermits.acquireUninterruptibly();
+        try {
+            transaction.run();
+        } finally {
+            databaseWritePermits.release();
+        }
     }
 
     // Create hierarchy of the highest supervisor
-    private Map<String, Object> buildHighestSupervisorHierarchy(Map<String, List<String>> supervisors, List<String> topSupervisors) {
-        String highestSupervisor = topSupervisors.get(0);
-        Map<String, Object> employeesHierarchy = new HashMap<>();
-        employeesHierarchy.put(highestSupervisor, buildSubSupervisorHierarchy(highestSupervisor, supervisors));
+    private Map<String, Object> buildHighestSupervisorHierarchy(EmployeeHierarchy hierarchy) {
+        String highestSupervisor = hierarchy.getTopSupervisor();
+        HierarchyNode employeesHierarchy = new HierarchyNode();
+        HierarchyNode highestSupervisorNode = new HierarchyNode();
+        employeesHierarchy.put(highestSupervisor, highestSupervisorNode);
+        buildSubSupervisorHierarchy(highestSupervisor, highestSupervisorNode, hierarchy);
         return employeesHierarchy;
     }
 
-    // Create hierarchy of the sub supervisor
-    private Map<String, Object> buildSubSupervisorHierarchy(String supervisorName, Map<String, List<String>> supervisors) {
-        Map<String, Object> employee = new HashMap<>();
-        Optional.ofNullable(supervisors.get(supervisorName))
-                .ifPresent(employees -> employees.forEach(it -> employee.put(it, buildSubSupervisorHierarchy(it, supervisors))));
-        return employee;
+    // Create hierarchy of the sub supervisors with an explicit stack, so deep hierarchies do not overflow the thread stack
+    private void buildSubSupervisorHierarchy(String supervisorName, HierarchyNode supervisorNode, EmployeeHierarchy hierarchy) {
+        Deque<String> supervisorNames = new ArrayDeque<>();
+        Deque<HierarchyNode> supervisorNodes = new ArrayDeque<>();
+        supervisorNames.push(supervisorName);
+        supervisorNodes.push(supervisorNode);
+
+        while (!supervisorNames.isEmpty()) {
+            String name = supervisorNames.pop();
+            HierarchyNode node = supervisorNodes.pop();
+            for (String employeeName : hierarchy.getEmployees(name)) {
+                HierarchyNode employeeNode = new HierarchyNode();
+                node.put(employeeName, employeeNode);
+                supervisorNames.push(employeeName);
+                supervisorNodes.push(employeeNode);
+            }
+        }
     }
 
     /**
      * Get specified employee hierarchy
      *
-     * @param employeeName: Employee name
+     * @param organisationId: Organisation of the employee
+     * @param employeeName:   Employee name
+     * @return Employee hierarchy of specified employee
+     * @throws NoEmployeeFoundException: No employee found
+     */
+    @Override
+    public Map<String, Object> getSpecifiedEmployee(String organisationId, String employeeName) {
+        return getSpecifiedEmployee(organisationId, employeeName, MAX_SUPERVISOR_LEVEL);
+    }
+
+    /**
+     * Get specified employee hierarchy up to given levels of supervisors
+     *
+     * @param organisationId: Organisation of the employee
+     * @param employeeName:   Employee name
+     * @param levels:         Maximum number of supervisors, Integer.MAX_VALUE for the whole chain
      * @return Employee hierarchy of specified employee
      * @throws NoEmployeeFoundException: No employee found
      */
     @Override
-    public Map<String, Object> getSpecifiedEmployee(String employeeName) {
-        Map<String, String> employeeMap = getEmployeesFromDB();
+    public Map<String, Object> getSpecifiedEmployee(String organisationId, String employeeName, int levels) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+
+        if (hierarchy.containsEmployee(employeeName) == FALSE) {
+            throw new NoEmployeeFoundException();
+        }
+
+        return hierarchyMetrics.record(GET_SPECIFIED_EMPLOYEE,
+                () -> buildSupervisorHierarchyByEmployee(hierarchy.getSupervisorChain(employeeName, levels)));
+    }
+
+    /**
+     * Get supervisor chains of many employees from one hierarchy snapshot
+     *
+     * @param organisationId: Organisation of the employees
+     * @param employeeNames:  Names to look up
+     * @param levels:         Maximum number of supervisors, Integer.MAX_VALUE for whole chains
+     * @return Chains in the order of the names, names which are not members are marked as not found
+     */
+    @Override
+    public List<SupervisorChain> getSupervisorChains(String organisationId, List<String> employeeNames, int levels) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+        return hierarchyMetrics.record(LOOKUP, () -> hierarchy.getSupervisorChains(employeeNames, levels));
+    }
+
+    /**
+     * Get supervisor at given level above specified employee
+     *
+     * @param organisationId: Organisation of the employee
+     * @param employeeName:   Employee name
+     * @param level:          1 is the direct supervisor
+     * @return Supervisor name
+     * @throws NoEmployeeFoundException: No employee found or no supervisor at that level
+     */
+    @Override
+    public String getSupervisor(String organisationId, String employeeName, int level) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+
+        if (hierarchy.containsEmployee(employeeName) == FALSE) {
+            throw new NoEmployeeFoundException();
+        }
+
+        return hierarchyMetrics.record(GET_SUPERVISOR, () -> hierarchy.getSupervisor(employeeName, level))
+                .orElseThrow(() -> new NoEmployeeFoundException("No supervisor found at level " + level));
+    }
+
+    /**
+     * Get one page of direct and indirect reports of specified employee
+     *
+     * @param organisationId: Organisation of the employee
+     * @param employeeName:   Employee name, the top supervisor included
+     * @param depth:          Deepest level of reports, 1 lists direct reports only
+     * @param limit:          Maximum number of reports in the page
+     * @param cursor:         Next cursor of the previous page, null for the first page
+     * @return Page of reports
+     * @throws NoEmployeeFoundException:  No employee found
+     * @throws InvalidParameterException: Cursor is not valid for this employee
+     */
+    @Override
+    public ReportsPage getReports(String organisationId, String employeeName, int depth, int limit, String cursor) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
 
-        if (employeeMap.containsKey(employeeName) == FALSE) {
+        if (hierarchy.containsMember(employeeName) == FALSE) {
             throw new NoEmployeeFoundException();
         }
 
-        return buildSupervisorHierarchyByEmployee(employeeName, employeeMap, FIRST_SUPERVISOR_LEVEL);
+        return hierarchyMetrics.record(GET_REPORTS,
+                () -> ReportsPager.getReports(hierarchy, employeeName, depth, limit, cursor));
+    }
+
+    /**
+     * Get analytics of the whole organisation, computed on the first request after every change
+     *
+     * @param organisationId: Organisation
+     * @return Headcount, span of control, depth histogram and widest teams
+     * @throws NoEmployeeFoundException: No data available
+     */
+    @Override
+    public HierarchyStats getStats(String organisationId) {
+        EmployeeHierarchy hierarchy = getEmployeeHierarchy(organisationId);
+        return hierarchyMetrics.record(GET_STATS, () -> hierarchy.getStats());
+    }
+
+    /**
+     * Get team analytics of specified employee
+     *
+     * @param organisationId: Organisation of the employee
+     * @param employeeName:   Employee name, the top supervisor included
+     * @return Span of control, headcount and levels under the employee
+     * @throws NoEmployeeFoundException: No employee found
+     */
+    @Override
+    public EmployeeStats getStats(String organisationId, String employeeName) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+        return hierarchyMetrics.record(GET_STATS, () -> hierarchy.getStats(employeeName))
+                .orElseThrow(NoEmployeeFoundException::new);
+    }
+
+    /**
+     * Search members by the start of their name, the name index is built on the first search after every change
+     *
+     * @param organisationId: Organisation of the members
+     * @param prefix:         Start of the names ignoring case, empty matches every member
+     * @param limit:          Maximum number of matches
+     * @return Matches with their direct supervisor in name order, empty when none matches
+     */
+    @Override
+    public List<EmployeeMatch> searchEmployees(String organisationId, String prefix, int limit) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+        return hierarchyMetrics.record(SEARCH, () -> hierarchy.search(prefix, limit));
+    }
+
+    // Get hierarchy snapshot of the organisation, it is loaded from the snapshot file or DB when it is not cached
+    private EmployeeHierarchy getLoadedEmployeeHierarchy(String organisationId) {
+        EmployeeHierarchy hierarchy = hierarchyCache.get(organisationId);
+        return isNull(hierarchy) ? loadEmployeeHierarchy(organisationId) : hierarchy;
+    }
+
+    // Writers of the organisation hold the same lock, so none of them publishes while its stores are read
+    private EmployeeHierarchy loadEmployeeHierarchy(String organisationId) {
+        synchronized (writeStripeOf(organisationId)) {
+            EmployeeHierarchy hierarchy = hierarchyCache.get(organisationId);
+            if (!isNull(hierarchy)) {
+                return hierarchy;
+            }
+
+            EmployeeHierarchy loadedHierarchy = withNextVersion(loadEmployeeHierarchyFromStores(organisationId));
+            hierarchyCache.put(organisationId, loadedHierarchy);
+            return loadedHierarchy;
+        }
+    }
+
+    // Swap in a committed hierarchy under the next version and snapshot it at the revision of its rows,
+    // called by writers holding the lock of the stripe
+    private EmployeeHierarchy publishEmployeeHierarchy(String organisationId, EmployeeHierarchy hierarchy,
+                                                       long revision) {
+        EmployeeHierarchy versionedHierarchy = withNextVersion(hierarchy);
+        hierarchyCache.put(organisationId, versionedHierarchy);
+        hierarchyMetrics.record(SNAPSHOT_SAVE,
+                () -> hierarchySnapshotRepository.save(organisationId, versionedHierarchy, revision));
+        return versionedHierarchy;
+    }
+
+    // Employees stored before their names were reserved for other paths are kept, but they cannot be read by name
+    private EmployeeHierarchy loadEmployeeHierarchyFromStores(String organisationId) {
+        EmployeeHierarchy hierarchy = readEmployeeHierarchyFromStores(organisationId);
+        List<String> reservedNames = EmployeeHierarchyValidator.RESERVED_NAMES.stream()
+                .filter(hierarchy::containsMember)
+                .sorted()
+                .collect(toList());
+        if (!reservedNames.isEmpty()) {
+            log.warn("Employees {} of {} are named like other paths under /employees and cannot be read by name, "
+                    + "rename them", reservedNames, organisationId);
+        }
+        return hierarchy;
+    }
+
+    // Use the snapshot file when it was taken at the revision of the rows in DB or DB has none, otherwise read all rows
+    // from DB. A write committed without its snapshot, for example before a crash, left another revision in DB.
+    private EmployeeHierarchy readEmployeeHierarchyFromStores(String organisationId) {
+        Optional<HierarchySnapshot> snapshot = hierarchyMetrics.record(SNAPSHOT_LOAD,
+                () -> hierarchySnapshotRepository.load(organisationId));
+        if (snapshot.isPresent()) {
+            Optional<Long> revision = employeeRepository.findRevision(organisationId);
+            if (revision.isPresent() && revision.get() == snapshot.get().getRevision()) {
+                return snapshot.get().getHierarchy();
+            }
+            if (employeeRepository.countByOrganisationId(organisationId) == 0) {
+                databaseSeedPending.add(organisationId);
+                return snapshot.get().getHierarchy();
+            }
+            log.warn("Snapshot of {} was taken at revision {} but DB has revision {}, loading DB",
+                    organisationId, snapshot.get().getRevision(), revision.orElse(null));
+        }
+
+        return hierarchyMetrics.record(LOAD, () -> loadEmployeeHierarchyFromDB(organisationId));
+    }
+
+    // Load hierarchy of the default organisation before the first request, so it does not wait for the snapshot file
+    // or DB. Other organisations are loaded by their first request.
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        getLoadedEmployeeHierarchy(DEFAULT_ORGANISATION_ID);
+    }
+
+    private WriteStripe writeStripeOf(String organisationId) {
+        int hash = organisationId.hashCode();
+        return writeStripes[(hash ^ (hash >>> 16)) & (WRITE_LOCK_STRIPES - 1)];
+    }
+
+    private EmployeeHierarchy withNextVersion(EmployeeHierarchy hierarchy) {
+        return hierarchy.withVersion(new HierarchyVersion(versionEpoch, versionNumber.incrementAndGet()));
+    }
+
+    private EmployeeHierarchy loadEmployeeHierarchyFromDB(String organisationId) {
+        Map<String, String> employeeMap = getEmployeesFromDB(organisationId);
+        if (CollectionUtils.isEmpty(employeeMap)) {
+            return EmployeeHierarchy.empty();
+        }
+
+        return EmployeeHierarchyValidator.validateStored(employeeMap);
     }
 
-    // Get employees from DB and create map with key is employee and value is supervisor
-    private Map<String, String> getEmployeesFromDB() {
-        List<Employee> employees = employeeRepository.findAll();
-        return employees.stream().collect(toMap(Employee::getEmployeeName, Employee::getSupervisorName));
+    // Get employees from DB and create map with key is employee and value is supervisor, the top supervisor
+    // is the supervisor who is no employee
+    private Map<String, String> getEmployeesFromDB(String organisationId) {
+        List<Employee> employees = employeeRepository.findByOrganisationId(organisationId);
+        return employees.stream()
+                .filter(it -> !isNull(it.getSupervisorName()))
+                .collect(toMap(Employee::getEmployeeName, Employee::getSupervisorName));
     }
 
-    // Create hierarchy of employee's supervisor
-    private Map<String, Object> buildSupervisorHierarchyByEmployee(String employeeName, Map<String, String> employeeMap, int count) {
-        Map<String, Object> employee = new HashMap<>();
+    // Create hierarchy of employee's supervisors, the direct supervisor is the outermost one
+    private Map<String, Object> buildSupervisorHierarchyByEmployee(List<String> supervisorChain) {
+        HierarchyNode employee = new HierarchyNode();
+        HierarchyNode node = employee;
 
-        if (count <= MAX_SUPERVISOR_LEVEL) {
-            Optional.ofNullable(employeeMap.get(employeeName))
-                    .ifPresent(supervisor -> employee.put(supervisor, buildSupervisorHierarchyByEmployee(supervisor, employeeMap, count + 1)));
+        for (String supervisorName : supervisorChain) {
+            HierarchyNode supervisorNode = new HierarchyNode();
+            node.put(supervisorName, supervisorNode);
+            node = supervisorNode;
         }
 
         return employee;
@@ -164,21 +666,64 @@ public class EmployeeServiceImpl implements EmployeeService {
     /**
      * Get employees hierarchy
      *
+     * @param organisationId: Organisation
      * @return Hierarchy of all employees
      * @throws NoEmployeeFoundException: No data available
      */
     @Override
-    public Map<String, Object> getEmployees() {
-        Map<String, String> employeeMap = getEmployeesFromDB();
-        // Check data from DB empty or not
-        if (CollectionUtils.isEmpty(employeeMap)) {
+    public Map<String, Object> getEmployees(String organisationId) {
+        EmployeeHierarchy hierarchy = getEmployeeHierarchy(organisationId);
+        return hierarchyMetrics.record(GET_EMPLOYEES, () -> buildHighestSupervisorHierarchy(hierarchy));
+    }
+
+    /**
+     * Get version of current hierarchy, it changes whenever employees are created, imported or updated
+     * and when the hierarchy is loaded again after it was evicted from the cache
+     *
+     * @param organisationId: Organisation
+     * @return Hierarchy version
+     */
+    @Override
+    public HierarchyVersion getHierarchyVersion(String organisationId) {
+        return getLoadedEmployeeHierarchy(organisationId).getVersion();
+    }
+
+    /**
+     * Get hierarchy index of all employees
+     *
+     * @param organisationId: Organisation
+     * @return Hierarchy index, it can be walked without reading DB
+     * @throws NoEmployeeFoundException: No data available
+     */
+    @Override
+    public EmployeeHierarchy getEmployeeHierarchy(String organisationId) {
+        EmployeeHierarchy hierarchy = getLoadedEmployeeHierarchy(organisationId);
+        // Check data available or not
+        if (hierarchy.isEmpty()) {
             throw new NoEmployeeFoundException("No data available");
         }
 
-        Map<String, List<String>> supervisors = getSupervisors(employeeMap);
-        List<String> topSupervisors = getTopSupervisors(employeeMap, supervisors);
+        return hierarchy;
+    }
+
+
+    // Lock of the writers of some organisations and their queued writes. The queue is bounded, writes beyond it
+    // are rejected instead of piling validated hierarchies up in memory while the writer is busy.
+    private static final class WriteStripe {
+        private final BlockingQueue<PendingWrite<?>> pendingWrites;
 
-        return buildHighestSupervisorHierarchy(supervisors, topSupervisors);
+        private WriteStripe(int queueCapacity) {
+            this.pendingWrites = new ArrayBlockingQueue<>(queueCapacity);
+        }
     }
 
+    private static final class AppliedUpload {
+        private final EmployeeHierarchy hierarchy;
+        private final HierarchyChanges changes;
+
+        private AppliedUpload(EmployeeHierarchy hierarchy, HierarchyChanges changes) {
+            this.hierarchy = hierarchy;
+            this.changes = changes;
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package personia.hr.service.impl;
+
+import personia.hr.exception.UploadSupersededException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Write of an organisation waiting in the queue of its stripe, it is applied or superseded by whichever writer
+ * drains the queue and its caller reads the outcome afterwards.
+ *
+ * @param <T> Result of the write
+ */
+final class PendingWrite<T> {
+    private final String organisationId;
+    // Full uploads replace the whole hierarchy, so a newer one makes an older one pointless
+    private final boolean replacesAll;
+    private final Supplier<T> write;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    PendingWrite(String organisationId, boolean replacesAll, Supplier<T> write) {
+        this.organisationId = organisationId;
+        this.replacesAll = replacesAll;
+        this.write = write;
+    }
+
+    String getOrganisationId() {
+        return organisationId;
+    }
+
+    boolean replacesAll() {
+        return replacesAll;
+    }
+
+    // Failures are kept for the caller, the writer goes on with the next writes
+    void apply() {
+        try {
+            result.complete(write.get());
+        } catch (Throwable ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    void supersede() {
+        result.completeExceptionally(new UploadSupersededException());
+    }
+
+    boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Get outcome of the write, it must be done
+     *
+     * @return Result of the write
+     * @throws UploadSupersededException: A newer upload of the organisation was applied instead
+     */
+    T getResult() {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+}
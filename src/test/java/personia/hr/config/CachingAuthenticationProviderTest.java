@@ -0,0 +1,110 @@
+package personia.hr.config;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingAuthenticationProviderTest {
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    @Mock
+    private Clock clock;
+
+    @Test
+    public void shouldVerifyCredentialsOnceUntilTheyExpire() {
+        // Given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, TTL, 10, clock);
+        Authentication authenticated = authenticated("admin", "admin");
+        Mockito.when(delegate.authenticate(Mockito.any())).thenReturn(authenticated);
+        Mockito.when(clock.millis()).thenReturn(0L, TTL.toMillis() - 1, TTL.toMillis());
+
+        // When
+        Authentication first = provider.authenticate(credentials("admin", "admin"));
+        Authentication second = provider.authenticate(credentials("admin", "admin"));
+        provider.authenticate(credentials("admin", "admin"));
+
+        // Then
+        Assert.assertSame(first, authenticated);
+        Assert.assertSame(second, authenticated);
+        Mockito.verify(delegate, Mockito.times(2)).authenticate(Mockito.any());
+    }
+
+    @Test
+    public void shouldAlwaysVerifyBadCredentials() {
+        // Given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, TTL, 10, clock);
+        Mockito.when(delegate.authenticate(Mockito.any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // When
+        Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("admin", "wrong")));
+        Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("admin", "wrong")));
+
+        // Then
+        Mockito.verify(delegate, Mockito.times(2)).authenticate(Mockito.any());
+        Assert.assertEquals(provider.size(), 0);
+    }
+
+    @Test
+    public void shouldNotServeCachedAuthenticationForOtherPassword() {
+        // Given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, TTL, 10, clock);
+        Mockito.when(delegate.authenticate(Mockito.any())).then(it -> {
+            Authentication authentication = it.getArgument(0);
+            if (!"admin".equals(authentication.getCredentials())) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+            return authenticated("admin", "admin");
+        });
+
+        // When
+        provider.authenticate(credentials("admin", "admin"));
+
+        // Then
+        Assertions.assertThrows(BadCredentialsException.class, () -> provider.authenticate(credentials("admin", "other")));
+    }
+
+    @Test
+    public void shouldKeepCacheWithinMaxSize() {
+        // Given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, TTL,
+                2, Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        Mockito.when(delegate.authenticate(Mockito.any())).then(it -> {
+            Authentication authentication = it.getArgument(0);
+            return authenticated(authentication.getName(), authentication.getCredentials().toString());
+        });
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            provider.authenticate(credentials("user" + i, "password"));
+        }
+
+        // Then
+        Assert.assertEquals(provider.size(), 2);
+    }
+
+    private static Authentication credentials(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+
+    private static Authentication authenticated(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password, AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+    }
+}
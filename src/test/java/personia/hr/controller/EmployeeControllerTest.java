@@ -1,19 +1,56 @@
 package personia.hr.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import personia.hr.exception.InvalidLevelException;
+import personia.hr.exception.InvalidParameterException;
+import personia.hr.hierarchy.CreatedEmployees;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.hierarchy.EmployeeMatch;
+import personia.hr.hierarchy.EmployeeStats;
+import personia.hr.hierarchy.HierarchyChanges;
+import personia.hr.hierarchy.HierarchyVersion;
+import personia.hr.hierarchy.Report;
+import personia.hr.hierarchy.ReportsPage;
+import personia.hr.hierarchy.SupervisorChain;
+import personia.hr.imports.EmployeeImport;
+import personia.hr.service.EmployeeImportService;
 import personia.hr.service.EmployeeService;
 
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
+import static org.springframework.http.HttpStatus.ACCEPTED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
+import static personia.hr.service.EmployeeService.DEFAULT_ORGANISATION_ID;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EmployeeControllerTest {
@@ -21,9 +58,24 @@ public class EmployeeControllerTest {
     @Mock
     private EmployeeService employeeService;
 
-    @InjectMocks
+    @Mock
+    private EmployeeImportService employeeImportService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private EmployeeController employeeController;
 
+    private final HierarchyVersion hierarchyVersion = new HierarchyVersion(1L, 1L);
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/employees");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final WebRequest webRequest = new ServletWebRequest(request, response);
+
+    @Before
+    public void setUp() {
+        employeeController = new EmployeeController(employeeService, employeeImportService, objectMapper, 1 << 20);
+    }
+
     @Test
     public void shouldCreateEmployeesHierarchySuccessfully() {
         // Given
@@ -40,37 +92,155 @@ public class EmployeeControllerTest {
         Map<String, Object> expectedEmployeesHierarchy = new HashMap<>();
         expectedEmployeesHierarchy.put("C", firstSubHierarchy);
 
-        Mockito.when(employeeService.createEmployees(inputTestEmployees))
-                .thenReturn(expectedEmployeesHierarchy);
+        Mockito.when(employeeService.createEmployees(DEFAULT_ORGANISATION_ID, inputTestEmployees))
+                .thenReturn(new CreatedEmployees(expectedEmployeesHierarchy,
+                        new HierarchyChanges(Arrays.asList("A", "B"), Collections.emptyList(), Collections.emptyList())));
 
         // When
-        ResponseEntity<Map<String, Object>> employeesHierarchyResponse = employeeController.createEmployees(inputTestEmployees);
+        ResponseEntity<Map<String, Object>> employeesHierarchyResponse = employeeController.createEmployees(null, inputTestEmployees);
 
         // Then
         Assert.assertEquals(employeesHierarchyResponse.getStatusCode(), OK);
         Assert.assertEquals(employeesHierarchyResponse.getBody(), expectedEmployeesHierarchy);
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getFirst("X-Employees-Added"), "2");
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getFirst("X-Employees-Moved"), "0");
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getFirst("X-Employees-Removed"), "0");
     }
 
     @Test
-    public void shouldGetEmployeesHierarchySuccessfully() {
+    public void shouldGetEmployeesHierarchySuccessfully() throws Exception {
         // Given
-        Map<String, Object> secondSubHierarchy = new HashMap<>();
-        secondSubHierarchy.put("A", new HashMap<>());
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
 
-        Map<String, Object> firstSubHierarchy = new HashMap<>();
-        firstSubHierarchy.put("B", secondSubHierarchy);
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
 
-        Map<String, Object> expectedEmployeesHierarchy = new HashMap<>();
-        expectedEmployeesHierarchy.put("C", firstSubHierarchy);
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getStatusCode(), OK);
+        Assert.assertEquals(new String(employeesHierarchyResponse.getBody(), StandardCharsets.UTF_8), "{\"C\":{\"B\":{\"A\":{}}}}");
+        Assert.assertEquals(response.getHeader(HttpHeaders.ETAG), hierarchyVersion.getETag("json"));
+        Assert.assertNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void shouldGetFlatEmployeesHierarchyWhenAccepted() throws Exception {
+        // Given
+        request.addHeader(HttpHeaders.ACCEPT, "application/vnd.hr.flat+json, application/json;q=0.5");
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
+
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getContentType().toString(),
+                "application/vnd.hr.flat+json");
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getVary(), Collections.singletonList(HttpHeaders.ACCEPT));
+        Assert.assertEquals(new String(employeesHierarchyResponse.getBody(), StandardCharsets.UTF_8),
+                "{\"names\":[\"C\",\"B\",\"A\"],\"employeeCounts\":[1,1,0]}");
+    }
+
+    @Test
+    public void shouldGetSmileEmployeesHierarchyWhenAccepted() throws Exception {
+        // Given
+        request.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
+
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getContentType().toString(),
+                "application/x-jackson-smile");
+        Assert.assertEquals(new ObjectMapper(new SmileFactory()).readTree(employeesHierarchyResponse.getBody()).toString(),
+                "{\"names\":[\"C\",\"B\",\"A\"],\"employeeCounts\":[1,1,0]}");
+    }
+
+    @Test
+    public void shouldGetNestedJsonEmployeesHierarchyWhenAcceptIsUnknown() throws Exception {
+        // Given
+        request.addHeader(HttpHeaders.ACCEPT, "text/html");
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
+
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getHeaders().getContentType(), MediaType.APPLICATION_JSON);
+        Assert.assertEquals(new String(employeesHierarchyResponse.getBody(), StandardCharsets.UTF_8), "{\"C\":{\"B\":{\"A\":{}}}}");
+    }
 
-        Mockito.when(employeeService.getEmployees()).thenReturn(expectedEmployeesHierarchy);
+    @Test
+    public void shouldSerializeEmployeesHierarchyOncePerVersion() throws Exception {
+        // Given
+        EmployeeHierarchy hierarchy = createHierarchy();
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchy);
 
         // When
-        ResponseEntity<Map<String, Object>> employeesHierarchyResponse = employeeController.getEmployees();
+        byte[] firstBody = employeeController.getEmployees(null, webRequest).getBody();
+        byte[] secondBody = employeeController.getEmployees(null,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/employees"), new MockHttpServletResponse())).getBody();
+
+        // Then
+        Assert.assertSame(secondBody, firstBody);
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWhenETagMatches() throws Exception {
+        // Given
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, hierarchyVersion.getETag("json"));
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
+
+        // Then
+        Assert.assertNull(employeesHierarchyResponse);
+        Assert.assertEquals(response.getStatus(), NOT_MODIFIED.value());
+    }
+
+    @Test
+    public void shouldNotAnswerNotModifiedWhenOnlyModifiedSinceIsSent() throws Exception {
+        // Given
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis());
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
 
         // Then
         Assert.assertEquals(employeesHierarchyResponse.getStatusCode(), OK);
-        Assert.assertEquals(employeesHierarchyResponse.getBody(), expectedEmployeesHierarchy);
+        Assert.assertEquals(response.getHeader(HttpHeaders.ETAG), hierarchyVersion.getETag("json"));
+    }
+
+    @Test
+    public void shouldNotAnswerNotModifiedWithETagOfAnotherFormat() throws Exception {
+        // Given
+        request.addHeader(HttpHeaders.ACCEPT, "application/vnd.hr.flat+json");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, hierarchyVersion.getETag("json"));
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<byte[]> employeesHierarchyResponse = employeeController.getEmployees(null, webRequest);
+
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getStatusCode(), OK);
+        Assert.assertEquals(response.getHeader(HttpHeaders.ETAG), hierarchyVersion.getETag("flat-json"));
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWithoutGettingSpecifiedEmployee() {
+        // Given
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, hierarchyVersion.getETag());
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+
+        // When
+        ResponseEntity<Map<String, Object>> specifiedEmployeeHierarchyResponse =
+                employeeController.getSpecifiedEmployee(null, "B", null, webRequest);
+
+        // Then
+        Assert.assertNull(specifiedEmployeeHierarchyResponse);
+        Assert.assertEquals(response.getStatus(), NOT_MODIFIED.value());
+        Mockito.verify(employeeService, Mockito.never()).getSpecifiedEmployee(DEFAULT_ORGANISATION_ID, "B");
     }
 
     @Test
@@ -79,15 +249,264 @@ public class EmployeeControllerTest {
         Map<String, Object> expectedEmployeesHierarchy = new HashMap<>();
         expectedEmployeesHierarchy.put("C", new HashMap<>());
 
-        Mockito.when(employeeService.getSpecifiedEmployee("B"))
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+        Mockito.when(employeeService.getSpecifiedEmployee(DEFAULT_ORGANISATION_ID, "B"))
+                .thenReturn(expectedEmployeesHierarchy);
+
+        // When
+        ResponseEntity<Map<String, Object>> specifiedEmployeeHierarchyResponse = employeeController.getSpecifiedEmployee(null, "B", null, webRequest);
+
+        // Then
+        Assert.assertEquals(specifiedEmployeeHierarchyResponse.getStatusCode(), OK);
+        Assert.assertEquals(specifiedEmployeeHierarchyResponse.getBody(), expectedEmployeesHierarchy);
+    }
+
+    @Test
+    public void shouldStreamEmployeesHierarchySuccessfully() throws Exception {
+        // Given
+        Mockito.when(employeeService.getEmployeeHierarchy(DEFAULT_ORGANISATION_ID)).thenReturn(createHierarchy());
+
+        // When
+        ResponseEntity<StreamingResponseBody> employeesHierarchyResponse = employeeController.streamEmployees(null, webRequest);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        employeesHierarchyResponse.getBody().writeTo(outputStream);
+
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getStatusCode(), OK);
+        Assert.assertEquals(outputStream.toString("UTF-8"), "{\"C\":{\"B\":{\"A\":{}}}}");
+    }
+
+    @Test
+    public void shouldUpdateEmployeesSuccessfully() {
+        // Given
+        Map<String, String> changes = new HashMap<>();
+        changes.put("A", "C");
+
+        HierarchyChanges expectedHierarchyChanges = new HierarchyChanges(Collections.emptyList(),
+                Collections.singletonList("A"), Collections.emptyList());
+
+        Mockito.when(employeeService.updateEmployees(DEFAULT_ORGANISATION_ID, changes)).thenReturn(expectedHierarchyChanges);
+
+        // When
+        ResponseEntity<HierarchyChanges> hierarchyChangesResponse = employeeController.updateEmployees(null, changes);
+
+        // Then
+        Assert.assertEquals(hierarchyChangesResponse.getStatusCode(), OK);
+        Assert.assertEquals(hierarchyChangesResponse.getBody(), expectedHierarchyChanges);
+    }
+
+    @Test
+    public void shouldGetWholeSupervisorChainOfSpecifiedEmployee() {
+        // Given
+        Map<String, Object> expectedEmployeesHierarchy = new HashMap<>();
+        expectedEmployeesHierarchy.put("C", new HashMap<>());
+
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+        Mockito.when(employeeService.getSpecifiedEmployee(DEFAULT_ORGANISATION_ID, "B", Integer.MAX_VALUE))
                 .thenReturn(expectedEmployeesHierarchy);
 
         // When
-        ResponseEntity<Map<String, Object>> specifiedEmployeeHierarchyResponse = employeeController.getSpecifiedEmployee("B");
+        ResponseEntity<Map<String, Object>> specifiedEmployeeHierarchyResponse = employeeController.getSpecifiedEmployee(null, "B", "all", webRequest);
 
         // Then
         Assert.assertEquals(specifiedEmployeeHierarchyResponse.getStatusCode(), OK);
         Assert.assertEquals(specifiedEmployeeHierarchyResponse.getBody(), expectedEmployeesHierarchy);
     }
 
+    @Test
+    public void shouldGetSupervisorAtLevelOfSpecifiedEmployee() {
+        // Given
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+        Mockito.when(employeeService.getSupervisor(DEFAULT_ORGANISATION_ID, "A", 3)).thenReturn("D");
+
+        // When
+        ResponseEntity<Map<String, String>> supervisorResponse = employeeController.getSupervisor(null, "A", "3", webRequest);
+
+        // Then
+        Assert.assertEquals(supervisorResponse.getStatusCode(), OK);
+        Assert.assertEquals(supervisorResponse.getBody(), Collections.singletonMap("supervisor", "D"));
+    }
+
+    @Test
+    public void shouldLookupSupervisorChainsOfManyEmployees() {
+        // Given
+        List<String> employeeNames = Arrays.asList("A", "X");
+        List<SupervisorChain> expectedChains = Arrays.asList(
+                new SupervisorChain("A", true, Arrays.asList("B", "C")),
+                new SupervisorChain("X", false, Collections.emptyList()));
+
+        Mockito.when(employeeService.getSupervisorChains(DEFAULT_ORGANISATION_ID, employeeNames, Integer.MAX_VALUE))
+                .thenReturn(expectedChains);
+
+        // When
+        ResponseEntity<List<SupervisorChain>> lookupResponse = employeeController.lookupEmployees(null, "all", employeeNames);
+
+        // Then
+        Assert.assertEquals(lookupResponse.getStatusCode(), OK);
+        Assert.assertEquals(lookupResponse.getBody(), expectedChains);
+    }
+
+    @Test(expected = InvalidLevelException.class)
+    public void shouldThrowInvalidLevelExceptionWhenLookupLevelsIsNotPositive() {
+        // When
+        employeeController.lookupEmployees(null, "-1", Collections.singletonList("A"));
+    }
+
+    @Test(expected = InvalidLevelException.class)
+    public void shouldThrowInvalidLevelExceptionWhenLevelsIsNotPositive() {
+        // Given
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+
+        // When
+        employeeController.getSpecifiedEmployee(null, "B", "0", webRequest);
+    }
+
+    @Test
+    public void shouldGetReportsOfSpecifiedEmployee() {
+        // Given
+        ReportsPage expectedReportsPage = new ReportsPage("C", Collections.singletonList(new Report("B", "C", 1)), null);
+
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+        Mockito.when(employeeService.getReports(DEFAULT_ORGANISATION_ID, "C", 1, 100, null)).thenReturn(expectedReportsPage);
+
+        // When
+        ResponseEntity<ReportsPage> reportsPageResponse = employeeController.getReports(null, "C", "1", 100, null, webRequest);
+
+        // Then
+        Assert.assertEquals(reportsPageResponse.getStatusCode(), OK);
+        Assert.assertEquals(reportsPageResponse.getBody(), expectedReportsPage);
+    }
+
+    @Test
+    public void shouldGetStatsOfEmployee() {
+        // Given
+        EmployeeStats expectedEmployeeStats = new EmployeeStats("B", "C", 1, 1, 1, 1);
+
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+        Mockito.when(employeeService.getStats(DEFAULT_ORGANISATION_ID, "B")).thenReturn(expectedEmployeeStats);
+
+        // When
+        ResponseEntity<EmployeeStats> employeeStatsResponse = employeeController.getStats(null, "B", webRequest);
+
+        // Then
+        Assert.assertEquals(employeeStatsResponse.getStatusCode(), OK);
+        Assert.assertEquals(employeeStatsResponse.getBody(), expectedEmployeeStats);
+    }
+
+    @Test
+    public void shouldSearchEmployeesByPrefix() {
+        // Given
+        List<EmployeeMatch> expectedMatches = Collections.singletonList(new EmployeeMatch("Bob", "Alice"));
+
+        Mockito.when(employeeService.getHierarchyVersion(DEFAULT_ORGANISATION_ID)).thenReturn(hierarchyVersion);
+        Mockito.when(employeeService.searchEmployees(DEFAULT_ORGANISATION_ID, "bo", 10)).thenReturn(expectedMatches);
+
+        // When
+        ResponseEntity<List<EmployeeMatch>> searchResponse = employeeController.searchEmployees(null, "bo", 10, webRequest);
+
+        // Then
+        Assert.assertEquals(searchResponse.getStatusCode(), OK);
+        Assert.assertEquals(searchResponse.getBody(), expectedMatches);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void shouldThrowInvalidParameterExceptionWhenSearchLimitTooLarge() {
+        // When
+        employeeController.searchEmployees(null, "bo", 1000, webRequest);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void shouldThrowInvalidParameterExceptionWhenReportsLimitTooLarge() {
+        // When
+        employeeController.getReports(null, "C", "1", 100_000, null, webRequest);
+    }
+
+    @Test
+    public void shouldAcceptEmployeesImport() throws Exception {
+        // Given
+        MockHttpServletRequest importRequest = new MockHttpServletRequest();
+        importRequest.setContent("{\"A\":\"B\",\"B\":\"C\"}".getBytes(StandardCharsets.UTF_8));
+        EmployeeImport expectedEmployeeImport = new EmployeeImport("1", DEFAULT_ORGANISATION_ID, 2);
+
+        Mockito.when(employeeImportService.submitImport(Mockito.eq(DEFAULT_ORGANISATION_ID),
+                Mockito.argThat(it -> it.size() == 2))).thenReturn(expectedEmployeeImport);
+
+        // When
+        ResponseEntity<EmployeeImport> employeeImportResponse = employeeController.importEmployees(null, importRequest);
+
+        // Then
+        Assert.assertEquals(employeeImportResponse.getStatusCode(), ACCEPTED);
+        Assert.assertEquals(employeeImportResponse.getHeaders().getLocation().toString(), "/employees/imports/1");
+        Assert.assertEquals(employeeImportResponse.getBody(), expectedEmployeeImport);
+    }
+
+    @Test
+    public void shouldCreateEmployeesOfOrganisationInPath() {
+        // Given
+        Map<String, String> inputTestEmployees = Collections.singletonMap("A", "B");
+        Map<String, Object> expectedEmployeesHierarchy = Collections.singletonMap("B",
+                Collections.singletonMap("A", Collections.emptyMap()));
+        Mockito.when(employeeService.createEmployees("acme", inputTestEmployees))
+                .thenReturn(new CreatedEmployees(expectedEmployeesHierarchy,
+                        new HierarchyChanges(Arrays.asList("A", "B"), Collections.emptyList(), Collections.emptyList())));
+
+        // When
+        ResponseEntity<Map<String, Object>> employeesHierarchyResponse =
+                employeeController.createEmployees("acme", inputTestEmployees);
+
+        // Then
+        Assert.assertEquals(employeesHierarchyResponse.getBody(), expectedEmployeesHierarchy);
+        Mockito.verify(employeeService, Mockito.never()).createEmployees(DEFAULT_ORGANISATION_ID, inputTestEmployees);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void shouldThrowInvalidParameterExceptionWhenOrganisationIsNotPlainName() throws Exception {
+        // When
+        employeeController.getEmployees("..", webRequest);
+    }
+
+    @Test
+    public void shouldLocateImportUnderOrganisationPath() throws Exception {
+        // Given
+        MockHttpServletRequest importRequest = new MockHttpServletRequest();
+        importRequest.setContent("{\"A\":\"B\"}".getBytes(StandardCharsets.UTF_8));
+        Mockito.when(employeeImportService.submitImport(Mockito.eq("acme"), Mockito.any()))
+                .thenReturn(new EmployeeImport("1", "acme", 1));
+
+        // When
+        ResponseEntity<EmployeeImport> employeeImportResponse = employeeController.importEmployees("acme", importRequest);
+
+        // Then
+        Assert.assertEquals(employeeImportResponse.getHeaders().getLocation().toString(), "/orgs/acme/employees/imports/1");
+    }
+
+    @Test
+    public void shouldReserveNamesOfAllPathsNextToEmployeeName() {
+        // Given
+        Set<String> literalPaths = new TreeSet<>();
+
+        // When
+        for (Method method : EmployeeController.class.getDeclaredMethods()) {
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+            if (mapping == null) {
+                continue;
+            }
+            for (String path : mapping.path()) {
+                String firstSegment = path.replaceFirst("^/", "").split("/")[0];
+                if (!firstSegment.isEmpty() && !firstSegment.startsWith("{")) {
+                    literalPaths.add(firstSegment);
+                }
+            }
+        }
+
+        // Then
+        Assert.assertEquals(literalPaths, new TreeSet<>(EmployeeHierarchyValidator.RESERVED_NAMES));
+    }
+
+    private EmployeeHierarchy createHierarchy() {
+        Map<String, String> employeeMap = new HashMap<>();
+        employeeMap.put("A", "B");
+        employeeMap.put("B", "C");
+        return EmployeeHierarchyValidator.validate(employeeMap).withVersion(hierarchyVersion);
+    }
 }
@@ -0,0 +1,66 @@
+package personia.hr.controller;
+
+import org.junit.Assert;
+import org.junit.Test;
+import personia.hr.hierarchy.HierarchyVersion;
+
+public class SerializedEmployeesCacheTest {
+    private static final int FORMAT_COUNT = 4;
+
+    @Test
+    public void shouldEvictLeastRecentlyReadOrganisationWhenBoundIsExceeded() {
+        // Given
+        SerializedEmployeesCache serializedEmployees = new SerializedEmployeesCache(8, FORMAT_COUNT);
+        serializedEmployees.put("acme", version(1), 0, new byte[3]);
+        serializedEmployees.put("globex", version(1), 0, new byte[3]);
+        serializedEmployees.get("acme", version(1), 0);
+
+        // When
+        serializedEmployees.put("initech", version(1), 0, new byte[3]);
+
+        // Then
+        Assert.assertNotNull(serializedEmployees.get("acme", version(1), 0));
+        Assert.assertNull(serializedEmployees.get("globex", version(1), 0));
+        Assert.assertNotNull(serializedEmployees.get("initech", version(1), 0));
+        Assert.assertEquals(serializedEmployees.getBytes(), 6);
+    }
+
+    @Test
+    public void shouldDropBodiesOfPreviousVersionAndKeepThoseOfNewerOne() {
+        // Given
+        SerializedEmployeesCache serializedEmployees = new SerializedEmployeesCache(100, FORMAT_COUNT);
+        serializedEmployees.put("acme", version(1), 0, new byte[3]);
+        serializedEmployees.put("acme", version(1), 1, new byte[4]);
+
+        // When
+        serializedEmployees.put("acme", version(2), 0, new byte[5]);
+        serializedEmployees.put("acme", version(1), 1, new byte[4]);
+
+        // Then
+        Assert.assertNull(serializedEmployees.get("acme", version(1), 0));
+        Assert.assertNull(serializedEmployees.get("acme", version(2), 1));
+        Assert.assertEquals(serializedEmployees.get("acme", version(2), 0).length, 5);
+        Assert.assertEquals(serializedEmployees.getBytes(), 5);
+    }
+
+    @Test
+    public void shouldKeepFormatsOfOneOrganisationWithinBound() {
+        // Given
+        SerializedEmployeesCache serializedEmployees = new SerializedEmployeesCache(8, FORMAT_COUNT);
+        serializedEmployees.put("acme", version(1), 0, new byte[5]);
+
+        // When
+        serializedEmployees.put("acme", version(1), 1, new byte[4]);
+        serializedEmployees.put("acme", version(1), 2, new byte[9]);
+
+        // Then
+        Assert.assertNull(serializedEmployees.get("acme", version(1), 0));
+        Assert.assertEquals(serializedEmployees.get("acme", version(1), 1).length, 4);
+        Assert.assertNull(serializedEmployees.get("acme", version(1), 2));
+        Assert.assertEquals(serializedEmployees.getBytes(), 4);
+    }
+
+    private HierarchyVersion version(long number) {
+        return new HierarchyVersion(1L, number);
+    }
+}
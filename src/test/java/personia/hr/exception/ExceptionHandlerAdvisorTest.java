@@ -1,9 +1,12 @@
 package personia.hr.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +17,9 @@ import java.util.List;
 @RunWith(MockitoJUnitRunner.class)
 public class ExceptionHandlerAdvisorTest {
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private ExceptionHandlerAdvisor exceptionHandlerAdvisor;
 
@@ -43,4 +49,44 @@ public class ExceptionHandlerAdvisorTest {
         Assert.assertEquals(responseEntity.getStatusCode(), HttpStatus.NOT_FOUND);
         Assert.assertEquals(responseEntity.getBody(), noEmployeeFoundException.getMessage());
     }
+
+    @Test
+    public void shouldHandleWriteRejectedExceptionWithTooManyRequests() {
+        // Given
+        WriteRejectedException writeRejectedException = new WriteRejectedException();
+
+        // When
+        ResponseEntity<?> responseEntity = exceptionHandlerAdvisor.handleWriteRejectedException(writeRejectedException);
+
+        // Then
+        Assert.assertEquals(responseEntity.getStatusCode(), HttpStatus.TOO_MANY_REQUESTS);
+        Assert.assertEquals(responseEntity.getBody(), writeRejectedException.getMessage());
+    }
+
+    @Test
+    public void shouldHandleUploadSupersededExceptionWithConflict() {
+        // Given
+        UploadSupersededException uploadSupersededException = new UploadSupersededException();
+
+        // When
+        ResponseEntity<?> responseEntity = exceptionHandlerAdvisor.handleUploadSupersededException(uploadSupersededException);
+
+        // Then
+        Assert.assertEquals(responseEntity.getStatusCode(), HttpStatus.CONFLICT);
+        Assert.assertEquals(responseEntity.getBody(), uploadSupersededException.getMessage());
+    }
+
+    @Test
+    public void shouldCountHandledExceptionsByType() {
+        // Given
+        NoEmployeeFoundException noEmployeeFoundException = new NoEmployeeFoundException();
+
+        // When
+        exceptionHandlerAdvisor.handleEmployeeNotFoundException(noEmployeeFoundException);
+        exceptionHandlerAdvisor.handleEmployeeNotFoundException(noEmployeeFoundException);
+
+        // Then
+        Assert.assertEquals(meterRegistry.get("hr.exceptions")
+                .tag("exception", "NoEmployeeFoundException").counter().count(), 2, 0);
+    }
 }
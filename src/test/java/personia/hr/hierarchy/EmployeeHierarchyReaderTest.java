@@ -0,0 +1,57 @@
+package personia.hr.hierarchy;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import personia.hr.exception.InvalidBodyException;
+import personia.hr.exception.InvalidValueException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class EmployeeHierarchyReaderTest {
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    public void shouldReadEmployeesInInputOrder() throws IOException {
+        // Given
+        JsonParser parser = jsonFactory.createParser("{\"A\":\"C\",\"B\":\"C\",\"D\":\"A\",\"B\":\"A\"}");
+
+        // When
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(EmployeeHierarchyReader.readEmployees(parser));
+
+        // Then
+        Assert.assertEquals(hierarchy.size(), 3);
+        Assert.assertEquals(hierarchy.getTopSupervisor(), "C");
+        Assert.assertEquals(hierarchy.getEmployees("A"), Arrays.asList("B", "D"));
+    }
+
+    @Test
+    public void shouldReportNullSupervisorOnValidation() throws IOException {
+        // Given
+        JsonParser parser = jsonFactory.createParser("{\"A\":\"B\",\"C\":null}");
+        EmployeeHierarchyBuilder employees = EmployeeHierarchyReader.readEmployees(parser);
+
+        // When
+        InvalidValueException exception = Assertions.assertThrows(InvalidValueException.class,
+                () -> EmployeeHierarchyValidator.validate(employees));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(), "Employee: C has invalid value");
+    }
+
+    @Test
+    public void shouldRejectBodyOtherThanObjectOfNames() throws IOException {
+        // Given
+        JsonParser arrayParser = jsonFactory.createParser("[\"A\"]");
+        JsonParser nestedParser = jsonFactory.createParser("{\"A\":{\"B\":\"C\"}}");
+        JsonParser malformedParser = jsonFactory.createParser("{\"A\":\"B\"");
+
+        // When - Then
+        Assertions.assertThrows(InvalidBodyException.class, () -> EmployeeHierarchyReader.readEmployees(arrayParser));
+        Assertions.assertThrows(InvalidBodyException.class, () -> EmployeeHierarchyReader.readEmployees(nestedParser));
+        Assertions.assertThrows(InvalidBodyException.class, () -> EmployeeHierarchyReader.readEmployees(malformedParser));
+    }
+}
@@ -0,0 +1,289 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class EmployeeHierarchyTest {
+
+    @Test
+    public void shouldGetSupervisorAtAnyLevelOfDeepHierarchy() {
+        // Given
+        int depth = 100_000;
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        for (int i = 0; i < depth; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+        inputTestEmployees.put("F", "E50");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When - Then
+        Assert.assertEquals(hierarchy.getSupervisor("E0", 1).orElse(null), "E1");
+        Assert.assertEquals(hierarchy.getSupervisor("E0", 12_345).orElse(null), "E12345");
+        Assert.assertEquals(hierarchy.getSupervisor("E0", depth).orElse(null), "E100000");
+        Assert.assertFalse(hierarchy.getSupervisor("E0", depth + 1).isPresent());
+        Assert.assertEquals(hierarchy.getSupervisor("F", 70_000).orElse(null), "E70049");
+        Assert.assertFalse(hierarchy.getSupervisor("X", 1).isPresent());
+    }
+
+    @Test
+    public void shouldComputeStatsOfWholeHierarchy() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        inputTestEmployees.put("E", "B");
+        inputTestEmployees.put("F", "B");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        HierarchyStats stats = hierarchy.getStats();
+
+        // Then
+        Assert.assertEquals(stats.getTopSupervisor(), "C");
+        Assert.assertEquals(stats.getHeadcount(), 6);
+        Assert.assertEquals(stats.getManagers(), 2);
+        Assert.assertEquals(stats.getDepth(), 2);
+        Assert.assertEquals(stats.getMaxSpanOfControl(), 3);
+        Assert.assertEquals(stats.getAverageSpanOfControl(), 2.5, 0);
+        Assert.assertEquals(stats.getDepthHistogram(), Arrays.asList(1, 2, 3));
+        Assert.assertEquals(stats.getWidestTeams(), Arrays.asList(
+                new EmployeeStats("B", "C", 1, 3, 3, 1),
+                new EmployeeStats("C", null, 0, 2, 5, 2)));
+        Assert.assertSame(hierarchy.getStats(), stats);
+    }
+
+    @Test
+    public void shouldComputeStatsOfEveryMemberOfDeepHierarchy() {
+        // Given
+        int depth = 100_000;
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        for (int i = 0; i < depth; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When - Then
+        Assert.assertEquals(hierarchy.getStats("E100000").orElse(null),
+                new EmployeeStats("E100000", null, 0, 1, depth, depth));
+        Assert.assertEquals(hierarchy.getStats("E50000").orElse(null),
+                new EmployeeStats("E50000", "E50001", 50_000, 1, 50_000, 50_000));
+        Assert.assertEquals(hierarchy.getStats("E0").orElse(null), new EmployeeStats("E0", "E1", depth, 0, 0, 0));
+        Assert.assertFalse(hierarchy.getStats("X").isPresent());
+        Assert.assertEquals(hierarchy.getStats().getDepthHistogram().size(), depth + 1);
+    }
+
+    @Test
+    public void shouldGetSupervisorChainUpToLevels() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        List<String> shortChain = hierarchy.getSupervisorChain("E0", 2);
+        List<String> longChain = hierarchy.getSupervisorChain("E10", Integer.MAX_VALUE);
+
+        // Then
+        Assert.assertEquals(shortChain, Arrays.asList("E1", "E2"));
+        Assert.assertEquals(longChain, Arrays.asList("E11", "E12", "E13", "E14", "E15", "E16", "E17", "E18", "E19", "E20"));
+    }
+
+    @Test
+    public void shouldSearchMembersByPrefixIgnoringCase() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("anna", "Boss");
+        inputTestEmployees.put("Andrew", "Boss");
+        inputTestEmployees.put("ANTON", "anna");
+        inputTestEmployees.put("Bob", "Boss");
+        inputTestEmployees.put("Alice", "Boss");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        List<EmployeeMatch> matches = hierarchy.search("aN", 10);
+        List<EmployeeMatch> limitedMatches = hierarchy.search("", 2);
+        List<EmployeeMatch> topSupervisorMatches = hierarchy.search("BOS", 10);
+
+        // Then
+        Assert.assertEquals(matches, Arrays.asList(new EmployeeMatch("Andrew", "Boss"),
+                new EmployeeMatch("anna", "Boss"), new EmployeeMatch("ANTON", "anna")));
+        Assert.assertEquals(limitedMatches, Arrays.asList(new EmployeeMatch("Alice", "Boss"),
+                new EmployeeMatch("Andrew", "Boss")));
+        Assert.assertEquals(topSupervisorMatches, Collections.singletonList(new EmployeeMatch("Boss", null)));
+        Assert.assertTrue(hierarchy.search("Zed", 10).isEmpty());
+    }
+
+    @Test
+    public void shouldKeepSearchIndexUpToDateWhenChangesAreApplied() {
+        // Given
+        Map<String, String> currentEmployees = new LinkedHashMap<>();
+        currentEmployees.put("Anna", "Boss");
+        currentEmployees.put("Anton", "Boss");
+        currentEmployees.put("Bob", "Anna");
+        EmployeeHierarchy currentHierarchy = EmployeeHierarchyValidator.validate(currentEmployees);
+        currentHierarchy.search("a", 10);
+
+        Map<String, String> submittedEmployees = new LinkedHashMap<>();
+        submittedEmployees.put("Anna", "Boss");
+        submittedEmployees.put("Bob", "Boss");
+        submittedEmployees.put("Andrew", "Anna");
+        submittedEmployees.put("Boss", "Alice");
+
+        // When
+        EmployeeHierarchy changedHierarchy = HierarchyDiff.between(currentHierarchy,
+                EmployeeHierarchyValidator.validate(submittedEmployees)).applyToCurrent();
+
+        // Then
+        Assert.assertEquals(changedHierarchy.search("a", 10), Arrays.asList(new EmployeeMatch("Alice", null),
+                new EmployeeMatch("Andrew", "Anna"), new EmployeeMatch("Anna", "Boss")));
+        Assert.assertEquals(changedHierarchy.search("b", 10), Arrays.asList(new EmployeeMatch("Bob", "Boss"),
+                new EmployeeMatch("Boss", "Alice")));
+        Assert.assertEquals(currentHierarchy.search("a", 10).size(), 2);
+    }
+
+    @Test
+    public void shouldGetSupervisorChainsOfManyNamesMarkingUnknownOnes() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "C");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("C", "D");
+        inputTestEmployees.put("D", "E");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        List<SupervisorChain> chains = hierarchy.getSupervisorChains(Arrays.asList("A", "X", "B", "E"), 2);
+
+        // Then
+        Assert.assertEquals(chains, Arrays.asList(new SupervisorChain("A", true, Arrays.asList("C", "D")),
+                new SupervisorChain("X", false, Collections.emptyList()),
+                new SupervisorChain("B", true, Arrays.asList("C", "D")),
+                new SupervisorChain("E", true, Collections.emptyList())));
+        Assert.assertSame(chains.get(0).getSupervisors(), chains.get(2).getSupervisors());
+    }
+
+    @Test
+    public void shouldGetDeepSupervisorChainsSharingSupervisorsLikeSingleChains() {
+        // Given
+        Random random = new Random(7);
+        Map<String, String> employees = new LinkedHashMap<>();
+        for (int i = 1; i < 500; i++) {
+            employees.put("E" + i, "E" + Math.max(0, i - 1 - random.nextInt(3)));
+        }
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(employees);
+        List<String> employeeNames = new ArrayList<>(employees.keySet());
+
+        // When
+        List<SupervisorChain> chains = hierarchy.getSupervisorChains(employeeNames, 100);
+
+        // Then
+        for (int i = 0; i < employeeNames.size(); i++) {
+            List<String> expectedChain = hierarchy.getSupervisorChain(employeeNames.get(i), 100);
+            List<String> chain = chains.get(i).getSupervisors();
+            Assert.assertEquals(chain, expectedChain);
+            Assert.assertEquals(chain.get(chain.size() - 1), expectedChain.get(expectedChain.size() - 1));
+        }
+    }
+
+    @Test
+    public void shouldApplyChangesLikeBuildingChangedHierarchyAgain() {
+        // Given
+        Random random = new Random(42);
+        Map<String, String> employees = new LinkedHashMap<>();
+        for (int i = 1; i < 300; i++) {
+            employees.put("E" + i, "E" + random.nextInt(i));
+        }
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(employees);
+        hierarchy.search("", 1);
+        int appliedChanges = 0;
+
+        for (int round = 0; round < 1000; round++) {
+            Map<String, String> changes = createRandomChanges(random, hierarchy, employees, round);
+            Map<String, String> changedEmployees = new LinkedHashMap<>(employees);
+            changes.forEach((employeeName, supervisorName) -> {
+                if (supervisorName == null) {
+                    changedEmployees.remove(employeeName);
+                } else {
+                    changedEmployees.put(employeeName, supervisorName);
+                }
+            });
+
+            // When
+            EmployeeHierarchy changedHierarchy;
+            try {
+                changedHierarchy = EmployeeHierarchyValidator.validateChanges(hierarchy, changes);
+            } catch (RuntimeException ex) {
+                continue;
+            }
+            appliedChanges++;
+
+            // Then
+            assertSameHierarchy(changedHierarchy, EmployeeHierarchyValidator.validate(changedEmployees));
+            assertSameHierarchy(hierarchy, EmployeeHierarchyValidator.validate(employees));
+            String employeeName = new ArrayList<>(changedEmployees.keySet()).get(random.nextInt(changedEmployees.size()));
+            List<String> supervisorChain = new ArrayList<>();
+            for (String name = changedEmployees.get(employeeName); name != null; name = changedEmployees.get(name)) {
+                supervisorChain.add(name);
+            }
+            Assert.assertEquals(changedHierarchy.getSupervisorChain(employeeName, Integer.MAX_VALUE), supervisorChain);
+            hierarchy = changedHierarchy;
+            employees = changedEmployees;
+        }
+        Assert.assertTrue(appliedChanges > 500);
+    }
+
+    // Add leaves, move employees, remove leaves and now and then put a new top supervisor above the current one
+    private Map<String, String> createRandomChanges(Random random, EmployeeHierarchy hierarchy,
+                                                    Map<String, String> employees, int round) {
+        List<String> employeeNames = new ArrayList<>(employees.keySet());
+        List<String> memberNames = new ArrayList<>(employeeNames);
+        memberNames.add(hierarchy.getTopSupervisor());
+        Map<String, String> changes = new LinkedHashMap<>();
+        if (round % 50 == 0) {
+            changes.put(hierarchy.getTopSupervisor(), "T" + round);
+            return changes;
+        }
+
+        for (int i = random.nextInt(5); i >= 0; i--) {
+            String employeeName = employeeNames.get(random.nextInt(employeeNames.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    changes.put("N" + round + "-" + i, memberNames.get(random.nextInt(memberNames.size())));
+                    break;
+                case 1:
+                    changes.put(employeeName, memberNames.get(random.nextInt(memberNames.size())));
+                    break;
+                default:
+                    if (hierarchy.getEmployees(employeeName).isEmpty()) {
+                        changes.put(employeeName, null);
+                    }
+            }
+        }
+        return changes;
+    }
+
+    private void assertSameHierarchy(EmployeeHierarchy hierarchy, EmployeeHierarchy expectedHierarchy) {
+        Assert.assertEquals(hierarchy.size(), expectedHierarchy.size());
+        Assert.assertEquals(hierarchy.getTopSupervisor(), expectedHierarchy.getTopSupervisor());
+        for (EmployeeMatch member : expectedHierarchy.search("", Integer.MAX_VALUE)) {
+            String name = member.getEmployeeName();
+            Assert.assertEquals(hierarchy.getSupervisor(name), expectedHierarchy.getSupervisor(name));
+            Assert.assertEquals(new HashSet<>(hierarchy.getEmployees(name)),
+                    new HashSet<>(expectedHierarchy.getEmployees(name)));
+        }
+        Assert.assertEquals(hierarchy.search("", Integer.MAX_VALUE), expectedHierarchy.search("", Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,246 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import personia.hr.exception.InvalidValueException;
+import personia.hr.exception.LoopHierarchyException;
+import personia.hr.exception.MultipleRootFoundException;
+import personia.hr.exception.ReservedNameException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+public class EmployeeHierarchyValidatorTest {
+
+    @Test
+    public void shouldReportAllInvalidEmployeesAtOnce() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("C", "");
+        inputTestEmployees.put("D", "d");
+
+        // When
+        InvalidValueException exception = Assertions.assertThrows(InvalidValueException.class,
+                () -> EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(), new InvalidValueException(Arrays.asList("C", "D")).getMessage());
+    }
+
+    @Test
+    public void shouldReportAllTopSupervisorsAtOnce() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("C", "D");
+        inputTestEmployees.put("E", "F");
+
+        // When
+        MultipleRootFoundException exception = Assertions.assertThrows(MultipleRootFoundException.class,
+                () -> EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(),
+                new MultipleRootFoundException(Arrays.asList("B", "D", "F")).getMessage());
+    }
+
+    @Test
+    public void shouldDetectLoopDisjointFromTopSupervisor() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("C", "D");
+        inputTestEmployees.put("D", "C");
+        inputTestEmployees.put("E", "C");
+
+        // When
+        LoopHierarchyException exception = Assertions.assertThrows(LoopHierarchyException.class,
+                () -> EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(),
+                new LoopHierarchyException(new LinkedHashSet<>(Arrays.asList("C", "D"))).getMessage());
+    }
+
+    @Test
+    public void shouldReportEmployeesOfAllLoopsAtOnce() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "A");
+        inputTestEmployees.put("C", "D");
+        inputTestEmployees.put("D", "E");
+        inputTestEmployees.put("E", "C");
+
+        // When
+        LoopHierarchyException exception = Assertions.assertThrows(LoopHierarchyException.class,
+                () -> EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(),
+                new LoopHierarchyException(new LinkedHashSet<>(Arrays.asList("A", "B", "C", "D", "E"))).getMessage());
+    }
+
+    @Test
+    public void shouldBuildEmployeeHierarchyCorrectly() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+
+        // When
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // Then
+        Assert.assertEquals(hierarchy.getTopSupervisor(), "C");
+        Assert.assertEquals(hierarchy.getEmployees("C"), Collections.singletonList("B"));
+        Assert.assertEquals(hierarchy.getEmployees("B"), Collections.singletonList("A"));
+        Assert.assertEquals(hierarchy.getSupervisor("A").orElse(null), "B");
+    }
+
+    @Test
+    public void shouldValidateMillionEmployeesWithLoopAtTheBottom() {
+        // Given
+        int depth = 1_000_000;
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        for (int i = 0; i < depth; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+        inputTestEmployees.put("X", "Y");
+        inputTestEmployees.put("Y", "X");
+
+        // When
+        LoopHierarchyException exception = Assertions.assertThrows(LoopHierarchyException.class,
+                () -> EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        Assert.assertTrue(exception.getMessage().endsWith(": X, Y") || exception.getMessage().endsWith(": Y, X"));
+    }
+
+    @Test
+    public void shouldApplyChangesToHierarchyCorrectly() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        Map<String, String> changes = new LinkedHashMap<>();
+        changes.put("A", "D");
+        changes.put("B", null);
+        changes.put("E", "A");
+
+        // When
+        EmployeeHierarchy changedHierarchy = EmployeeHierarchyValidator.validateChanges(hierarchy, changes);
+
+        // Then
+        Assert.assertEquals(changedHierarchy.getTopSupervisor(), "C");
+        Assert.assertEquals(changedHierarchy.size(), 3);
+        Assert.assertEquals(changedHierarchy.getEmployees("C"), Collections.singletonList("D"));
+        Assert.assertEquals(changedHierarchy.getEmployees("D"), Collections.singletonList("A"));
+        Assert.assertEquals(changedHierarchy.getEmployees("A"), Collections.singletonList("E"));
+        Assert.assertFalse(changedHierarchy.containsEmployee("B"));
+        Assert.assertEquals(hierarchy.getEmployees("B"), Collections.singletonList("A"));
+    }
+
+    @Test
+    public void shouldReplaceTopSupervisorWhenChangingHierarchy() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        EmployeeHierarchy changedHierarchy = EmployeeHierarchyValidator.validateChanges(hierarchy,
+                Collections.singletonMap("B", "C"));
+
+        // Then
+        Assert.assertEquals(changedHierarchy.getTopSupervisor(), "C");
+        Assert.assertEquals(changedHierarchy.getEmployees("C"), Collections.singletonList("B"));
+    }
+
+    @Test
+    public void shouldDetectLoopWhenMovingSupervisorUnderHisEmployee() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("C", "D");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        LoopHierarchyException exception = Assertions.assertThrows(LoopHierarchyException.class,
+                () -> EmployeeHierarchyValidator.validateChanges(hierarchy, Collections.singletonMap("B", "A")));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(),
+                new LoopHierarchyException(new LinkedHashSet<>(Arrays.asList("B", "A"))).getMessage());
+    }
+
+    @Test
+    public void shouldDetectMultipleRootsWhenRemovingSupervisorWithEmployees() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        MultipleRootFoundException exception = Assertions.assertThrows(MultipleRootFoundException.class,
+                () -> EmployeeHierarchyValidator.validateChanges(hierarchy, Collections.singletonMap("B", null)));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(), new MultipleRootFoundException(Arrays.asList("C", "B")).getMessage());
+    }
+
+    @Test
+    public void shouldReportRemovedEmployeeNotFoundAsInvalid() {
+        // Given
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(Collections.singletonMap("A", "B"));
+
+        // When
+        InvalidValueException exception = Assertions.assertThrows(InvalidValueException.class,
+                () -> EmployeeHierarchyValidator.validateChanges(hierarchy, Collections.singletonMap("X", null)));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(), new InvalidValueException("X").getMessage());
+    }
+
+    @Test
+    public void shouldReportEmployeesNamedLikeOtherPaths() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("stats", "B");
+        inputTestEmployees.put("B", "search");
+
+        // When
+        ReservedNameException exception = Assertions.assertThrows(ReservedNameException.class,
+                () -> EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(),
+                new ReservedNameException(Arrays.asList("stats", "search")).getMessage());
+    }
+
+    @Test
+    public void shouldReportChangesNamingEmployeesLikeOtherPaths() {
+        // Given
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(Collections.singletonMap("A", "B"));
+
+        // When
+        ReservedNameException exception = Assertions.assertThrows(ReservedNameException.class,
+                () -> EmployeeHierarchyValidator.validateChanges(hierarchy, Collections.singletonMap("imports", "A")));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(),
+                new ReservedNameException(Collections.singletonList("imports")).getMessage());
+    }
+}
@@ -0,0 +1,68 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class HierarchyCacheTest {
+
+    @Test
+    public void shouldEvictLeastRecentlyReadHierarchyWhenBoundIsExceeded() {
+        // Given
+        HierarchyCache hierarchyCache = new HierarchyCache(8);
+        hierarchyCache.put("acme", createHierarchy(2));
+        hierarchyCache.put("globex", createHierarchy(2));
+        hierarchyCache.get("acme");
+
+        // When
+        hierarchyCache.put("initech", createHierarchy(2));
+
+        // Then
+        Assert.assertNotNull(hierarchyCache.get("acme"));
+        Assert.assertNull(hierarchyCache.get("globex"));
+        Assert.assertNotNull(hierarchyCache.get("initech"));
+        Assert.assertEquals(hierarchyCache.getEmployees(), 6);
+    }
+
+    @Test
+    public void shouldReplaceHierarchyOfSameOrganisationWithoutEvicting() {
+        // Given
+        HierarchyCache hierarchyCache = new HierarchyCache(10);
+        hierarchyCache.put("acme", createHierarchy(4));
+        hierarchyCache.put("globex", createHierarchy(2));
+
+        // When
+        hierarchyCache.put("acme", createHierarchy(6));
+
+        // Then
+        Assert.assertEquals(hierarchyCache.size(), 2);
+        Assert.assertEquals(hierarchyCache.get("acme").size(), 6);
+        Assert.assertEquals(hierarchyCache.getEmployees(), 10);
+    }
+
+    @Test
+    public void shouldKeepHierarchyHeavierThanBound() {
+        // Given
+        HierarchyCache hierarchyCache = new HierarchyCache(5);
+        hierarchyCache.put("acme", createHierarchy(2));
+
+        // When
+        hierarchyCache.put("globex", createHierarchy(10));
+
+        // Then
+        Assert.assertNull(hierarchyCache.get("acme"));
+        Assert.assertEquals(hierarchyCache.get("globex").size(), 10);
+        Assert.assertEquals(hierarchyCache.size(), 1);
+    }
+
+    // Chain of given number of employees under one top supervisor
+    private EmployeeHierarchy createHierarchy(int employees) {
+        Map<String, String> employeeMap = new LinkedHashMap<>();
+        for (int i = 0; i < employees; i++) {
+            employeeMap.put("E" + i, "E" + (i + 1));
+        }
+        return EmployeeHierarchyValidator.validate(employeeMap);
+    }
+}
@@ -0,0 +1,96 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class HierarchyDiffTest {
+
+    @Test
+    public void shouldFindAddedMovedAndRemovedEmployees() {
+        // Given
+        Map<String, String> currentEmployees = new LinkedHashMap<>();
+        currentEmployees.put("A", "B");
+        currentEmployees.put("B", "C");
+        currentEmployees.put("D", "C");
+        currentEmployees.put("E", "D");
+
+        Map<String, String> submittedEmployees = new LinkedHashMap<>();
+        submittedEmployees.put("A", "B");
+        submittedEmployees.put("B", "C");
+        submittedEmployees.put("E", "B");
+        submittedEmployees.put("F", "C");
+
+        // When
+        HierarchyDiff diff = HierarchyDiff.between(EmployeeHierarchyValidator.validate(currentEmployees),
+                EmployeeHierarchyValidator.validate(submittedEmployees));
+
+        // Then
+        Assert.assertFalse(diff.isEmpty());
+        Assert.assertEquals(diff.getSummary().getAdded(), Collections.singletonList("F"));
+        Assert.assertEquals(diff.getSummary().getMoved(), Collections.singletonList("E"));
+        Assert.assertEquals(diff.getSummary().getRemoved(), Collections.singletonList("D"));
+    }
+
+    @Test
+    public void shouldApplyDifferencesKeepingUnchangedEmployeesInOrder() {
+        // Given
+        Map<String, String> currentEmployees = new LinkedHashMap<>();
+        currentEmployees.put("A", "C");
+        currentEmployees.put("B", "C");
+        currentEmployees.put("D", "C");
+        currentEmployees.put("E", "D");
+
+        Map<String, String> submittedEmployees = new LinkedHashMap<>();
+        submittedEmployees.put("E", "C");
+        submittedEmployees.put("D", "C");
+        submittedEmployees.put("B", "C");
+        submittedEmployees.put("A", "C");
+        submittedEmployees.put("C", "X");
+
+        // When
+        EmployeeHierarchy hierarchy = HierarchyDiff.between(EmployeeHierarchyValidator.validate(currentEmployees),
+                EmployeeHierarchyValidator.validate(submittedEmployees)).applyToCurrent();
+
+        // Then
+        Assert.assertEquals(hierarchy.getTopSupervisor(), "X");
+        Assert.assertEquals(hierarchy.getEmployees("X"), Collections.singletonList("C"));
+        Assert.assertEquals(hierarchy.getEmployees("C"), Arrays.asList("A", "B", "D", "E"));
+        Assert.assertEquals(hierarchy.size(), 5);
+    }
+
+    @Test
+    public void shouldFindNoDifferenceWhenSameEmployeesAreSubmittedInAnotherOrder() {
+        // Given
+        Map<String, String> currentEmployees = new LinkedHashMap<>();
+        currentEmployees.put("A", "B");
+        currentEmployees.put("B", "C");
+
+        Map<String, String> submittedEmployees = new LinkedHashMap<>();
+        submittedEmployees.put("B", "C");
+        submittedEmployees.put("A", "B");
+
+        // When
+        HierarchyDiff diff = HierarchyDiff.between(EmployeeHierarchyValidator.validate(currentEmployees),
+                EmployeeHierarchyValidator.validate(submittedEmployees));
+
+        // Then
+        Assert.assertTrue(diff.isEmpty());
+        Assert.assertFalse(diff.isLarge());
+    }
+
+    @Test
+    public void shouldFindLargeDifferenceAgainstEmptyHierarchy() {
+        // When
+        HierarchyDiff diff = HierarchyDiff.between(EmployeeHierarchy.empty(),
+                EmployeeHierarchyValidator.validate(Collections.singletonMap("A", "B")));
+
+        // Then
+        Assert.assertTrue(diff.isLarge());
+        Assert.assertEquals(diff.getSummary().getAdded(), Arrays.asList("A", "B"));
+    }
+}
@@ -0,0 +1,50 @@
+package personia.hr.hierarchy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HierarchyNodeSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void shouldSerializeEmployeesHierarchyCorrectly() throws Exception {
+        // Given
+        HierarchyNode secondSubHierarchy = new HierarchyNode();
+        secondSubHierarchy.put("A", new HierarchyNode());
+
+        HierarchyNode firstSubHierarchy = new HierarchyNode();
+        firstSubHierarchy.put("B", secondSubHierarchy);
+
+        HierarchyNode employeesHierarchy = new HierarchyNode();
+        employeesHierarchy.put("C", firstSubHierarchy);
+
+        // When
+        String json = objectMapper.writeValueAsString(employeesHierarchy);
+
+        // Then
+        Assert.assertEquals(json, "{\"C\":{\"B\":{\"A\":{}}}}");
+    }
+
+    @Test
+    public void shouldSerializeVeryDeepEmployeesHierarchyWithoutStackOverflow() throws Exception {
+        // Given
+        int depth = 1_000_000;
+        HierarchyNode employeesHierarchy = new HierarchyNode();
+        HierarchyNode node = employeesHierarchy;
+        for (int i = 0; i < depth; i++) {
+            HierarchyNode employeeNode = new HierarchyNode();
+            node.put("E", employeeNode);
+            node = employeeNode;
+        }
+
+        // When
+        String json = objectMapper.writeValueAsString(employeesHierarchy);
+
+        // Then
+        Assert.assertEquals(json.length(), depth * "\"E\":{}".length() + 2);
+        Assert.assertTrue(json.startsWith("{\"E\":{\"E\":{"));
+        Assert.assertEquals(json.indexOf("{}"), json.length() - depth - "{}".length());
+    }
+}
@@ -0,0 +1,62 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class HierarchyNodeTest {
+
+    @Test
+    public void shouldCompareHashAndPrintLikeNestedMaps() {
+        // Given
+        HierarchyNode employeesHierarchy = createChain(2);
+        employeesHierarchy.put("F", new HierarchyNode());
+        Map<String, Object> nestedMaps = new HashMap<>();
+        nestedMaps.put("E", Collections.singletonMap("E", new HashMap<>()));
+        nestedMaps.put("F", new HashMap<>());
+
+        // When
+        boolean equal = employeesHierarchy.equals(nestedMaps);
+
+        // Then
+        Assert.assertTrue(equal);
+        Assert.assertEquals(employeesHierarchy.hashCode(), nestedMaps.hashCode());
+        Assert.assertEquals(employeesHierarchy.toString(), nestedMaps.toString());
+        Assert.assertNotEquals(employeesHierarchy, createChain(2));
+        Assert.assertNotEquals(createChain(2), createChain(3));
+    }
+
+    @Test
+    public void shouldCompareHashAndPrintVeryDeepHierarchyWithoutStackOverflow() {
+        // Given
+        int depth = 1_000_000;
+        HierarchyNode employeesHierarchy = createChain(depth);
+        HierarchyNode otherEmployeesHierarchy = createChain(depth);
+
+        // When
+        boolean equal = employeesHierarchy.equals(otherEmployeesHierarchy);
+
+        // Then
+        Assert.assertTrue(equal);
+        Assert.assertEquals(employeesHierarchy.hashCode(), otherEmployeesHierarchy.hashCode());
+        Assert.assertNotEquals(employeesHierarchy, createChain(depth - 1));
+        String text = employeesHierarchy.toString();
+        Assert.assertEquals(text.length(), depth * "E={".length() + "{}".length() + depth);
+        Assert.assertTrue(text.startsWith("{E={E={"));
+    }
+
+    // Chain of nodes named E, the given number of levels deep
+    private HierarchyNode createChain(int depth) {
+        HierarchyNode employeesHierarchy = new HierarchyNode();
+        HierarchyNode node = employeesHierarchy;
+        for (int i = 0; i < depth; i++) {
+            HierarchyNode employeeNode = new HierarchyNode();
+            node.put("E", employeeNode);
+            node = employeeNode;
+        }
+        return employeesHierarchy;
+    }
+}
@@ -0,0 +1,82 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+public class HierarchySnapshotCodecTest {
+    private static final long REVISION = 42L;
+
+    @Test
+    public void shouldReadHierarchyWrittenToSnapshot() throws IOException {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        inputTestEmployees.put("É", "D");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        // When
+        HierarchySnapshot snapshot = HierarchySnapshotCodec.read(ByteBuffer.wrap(write(hierarchy)));
+        EmployeeHierarchy snapshotHierarchy = snapshot.getHierarchy();
+
+        // Then
+        Assert.assertEquals(snapshot.getRevision(), REVISION);
+        Assert.assertEquals(snapshotHierarchy.size(), 4);
+        Assert.assertEquals(snapshotHierarchy.getTopSupervisor(), "C");
+        Assert.assertEquals(snapshotHierarchy.getEmployees("C"), Arrays.asList("B", "D"));
+        Assert.assertEquals(snapshotHierarchy.getSupervisor("É"), Optional.of("D"));
+        Assert.assertEquals(snapshotHierarchy.getSupervisorChain("A", 2), Arrays.asList("B", "C"));
+    }
+
+    @Test
+    public void shouldReadEmptyHierarchyWrittenToSnapshot() throws IOException {
+        // Given
+        EmployeeHierarchy hierarchy = EmployeeHierarchy.empty();
+
+        // When
+        HierarchySnapshot snapshot = HierarchySnapshotCodec.read(ByteBuffer.wrap(write(hierarchy)));
+
+        // Then
+        Assert.assertTrue(snapshot.getHierarchy().isEmpty());
+        Assert.assertEquals(snapshot.getRevision(), REVISION);
+    }
+
+    @Test
+    public void shouldRejectSnapshotWithWrongChecksum() throws IOException {
+        // Given
+        byte[] snapshot = write(EmployeeHierarchyValidator.validate(Collections.singletonMap("A", "B")));
+        snapshot[snapshot.length / 2] ^= 1;
+
+        // When
+        // Then
+        Assertions.assertThrows(IOException.class, () -> HierarchySnapshotCodec.read(ByteBuffer.wrap(snapshot)));
+    }
+
+    @Test
+    public void shouldRejectTruncatedSnapshot() throws IOException {
+        // Given
+        byte[] snapshot = write(EmployeeHierarchyValidator.validate(Collections.singletonMap("A", "B")));
+
+        // When
+        // Then
+        Assertions.assertThrows(IOException.class,
+                () -> HierarchySnapshotCodec.read(ByteBuffer.wrap(Arrays.copyOf(snapshot, snapshot.length - 3))));
+    }
+
+    private static byte[] write(EmployeeHierarchy hierarchy) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        HierarchySnapshotCodec.write(hierarchy, REVISION, outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,59 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NameDictionaryTest {
+
+    @Test
+    public void shouldNumberNamesInOrderTheyAreAdded() {
+        // Given
+        int size = 10_000;
+        NameDictionary names = new NameDictionary(1);
+
+        // When
+        for (int i = 0; i < size; i++) {
+            names.add("E" + i);
+        }
+        int existingId = names.add("E42");
+
+        // Then
+        Assert.assertEquals(names.size(), size);
+        Assert.assertEquals(existingId, 42);
+        Assert.assertEquals(names.idOf("E9999"), 9999);
+        Assert.assertEquals(names.nameOf(1234), "E1234");
+        Assert.assertEquals(names.idOf("X"), NameDictionary.NO_ID);
+        Assert.assertEquals(names.idOf(null), NameDictionary.NO_ID);
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldFindNamesSharingHashCodeWithoutLongProbes() {
+        // Given
+        int blocks = 15;
+        NameDictionary names = new NameDictionary(1);
+        String[] collidingNames = new String[1 << blocks];
+        for (int i = 0; i < collidingNames.length; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int block = 0; block < blocks; block++) {
+                name.append((i >>> block & 1) == 0 ? "Aa" : "BB");
+            }
+            collidingNames[i] = name.toString();
+        }
+
+        // When
+        for (String name : collidingNames) {
+            names.add(name);
+        }
+        for (int id = collidingNames.length - 1; id >= collidingNames.length / 2; id--) {
+            names.remove(id);
+        }
+
+        // Then
+        Assert.assertEquals(collidingNames[0].hashCode(), collidingNames[collidingNames.length - 1].hashCode());
+        Assert.assertEquals(names.size(), collidingNames.length / 2);
+        for (int id = 0; id < collidingNames.length; id++) {
+            Assert.assertEquals(names.idOf(collidingNames[id]), id < names.size() ? id : NameDictionary.NO_ID);
+        }
+        Assert.assertEquals(names.copy().add("E"), names.size());
+    }
+}
@@ -0,0 +1,65 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import personia.hr.domain.Employee;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+
+public class NestedSetEncoderTest {
+    private static final String ORGANISATION_ID = "acme";
+
+    @Test
+    public void shouldEncodeHierarchyAsNestedSet() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+
+        // When
+        List<Employee> employees = NestedSetEncoder.encode(ORGANISATION_ID, EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        long step = NestedSetEncoder.TOP_SUPERVISOR_RIGHT_BOUND / 7;
+        Map<String, Employee> employeeMap = employees.stream().collect(toMap(Employee::getEmployeeName, Function.identity()));
+        assertEncoding(employeeMap.get("B"), "C", step, 4 * step, 1);
+        assertEncoding(employeeMap.get("A"), "B", 2 * step, 3 * step, 2);
+        assertEncoding(employeeMap.get("D"), "C", 5 * step, 6 * step, 1);
+        assertEncoding(employeeMap.get("C"), null, 0, NestedSetEncoder.TOP_SUPERVISOR_RIGHT_BOUND, 0);
+        Assert.assertEquals(employees.get(employees.size() - 1).getEmployeeName(), "C");
+    }
+
+    @Test
+    public void shouldEncodeVeryDeepHierarchyWithoutStackOverflow() {
+        // Given
+        int depth = 1_000_000;
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        for (int i = 0; i < depth; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+
+        // When
+        List<Employee> employees = NestedSetEncoder.encode(ORGANISATION_ID, EmployeeHierarchyValidator.validate(inputTestEmployees));
+
+        // Then
+        long step = NestedSetEncoder.TOP_SUPERVISOR_RIGHT_BOUND / (2 * depth + 1);
+        Assert.assertEquals(employees.size(), depth + 1);
+        assertEncoding(employees.get(0), "E1", depth * step, (depth + 1) * step, depth);
+        assertEncoding(employees.get(depth - 1), "E1000000", step, 2 * depth * step, 1);
+        assertEncoding(employees.get(depth), null, 0, NestedSetEncoder.TOP_SUPERVISOR_RIGHT_BOUND, 0);
+    }
+
+    private void assertEncoding(Employee employee, String supervisorName, long leftBound, long rightBound, int depth) {
+        Assert.assertEquals(employee.getOrganisationId(), ORGANISATION_ID);
+        Assert.assertEquals(employee.getSupervisorName(), supervisorName);
+        Assert.assertEquals(employee.getLeftBound().longValue(), leftBound);
+        Assert.assertEquals(employee.getRightBound().longValue(), rightBound);
+        Assert.assertEquals(employee.getDepth().intValue(), depth);
+    }
+}
@@ -0,0 +1,223 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import personia.hr.domain.Employee;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static java.util.stream.Collectors.toList;
+
+public class NestedSetUpdateTest {
+    private static final String ORGANISATION_ID = "acme";
+
+    @Test
+    public void shouldWriteOnlyMovedEmployeesInGapOfNewSupervisor() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        inputTestEmployees.put("E", "A");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+        InMemoryNestedSet storedEmployees = new InMemoryNestedSet(hierarchy);
+        Map<String, String> changes = Collections.singletonMap("A", "D");
+        EmployeeHierarchy changedHierarchy = EmployeeHierarchyValidator.validateChanges(hierarchy, changes);
+
+        // When
+        Optional<NestedSetUpdate> update = NestedSetUpdate.plan(ORGANISATION_ID, changedHierarchy, changes.keySet(),
+                hierarchy.getTopSupervisor(), storedEmployees, Integer.MAX_VALUE);
+
+        // Then
+        Assert.assertTrue(update.isPresent());
+        Assert.assertEquals(update.get().getEmployees().stream().map(Employee::getEmployeeName).collect(toList()),
+                Arrays.asList("E", "A"));
+        Assert.assertTrue(update.get().getRemovedEmployeeNames().isEmpty());
+        storedEmployees.apply(update.get());
+        storedEmployees.assertEncodes(changedHierarchy);
+    }
+
+    @Test
+    public void shouldRenumberReportsOfSupervisorWhenHisGapIsUsedUp() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+        InMemoryNestedSet storedEmployees = new InMemoryNestedSet(hierarchy);
+        int mostWrittenRows = 0;
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            Map<String, String> changes = Collections.singletonMap("N" + i, "D");
+            EmployeeHierarchy changedHierarchy = EmployeeHierarchyValidator.validateChanges(hierarchy, changes);
+            Optional<NestedSetUpdate> update = NestedSetUpdate.plan(ORGANISATION_ID, changedHierarchy,
+                    changes.keySet(), hierarchy.getTopSupervisor(), storedEmployees, Integer.MAX_VALUE);
+
+            // Then
+            Assert.assertTrue(update.isPresent());
+            mostWrittenRows = Math.max(mostWrittenRows, update.get().getEmployees().size());
+            storedEmployees.apply(update.get());
+            storedEmployees.assertEncodes(changedHierarchy);
+            hierarchy = changedHierarchy;
+        }
+        Assert.assertTrue(mostWrittenRows > 1);
+    }
+
+    @Test
+    public void shouldPlanNothingWhenTopSupervisorChangesOrChangeTakesTooManyRows() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+        InMemoryNestedSet storedEmployees = new InMemoryNestedSet(hierarchy);
+        Map<String, String> newTopChanges = Collections.singletonMap("C", "T");
+        Map<String, String> moveChanges = Collections.singletonMap("B", "D");
+
+        // When
+        Optional<NestedSetUpdate> newTopUpdate = NestedSetUpdate.plan(ORGANISATION_ID,
+                EmployeeHierarchyValidator.validateChanges(hierarchy, newTopChanges), newTopChanges.keySet(),
+                hierarchy.getTopSupervisor(), storedEmployees, Integer.MAX_VALUE);
+        Optional<NestedSetUpdate> moveUpdate = NestedSetUpdate.plan(ORGANISATION_ID,
+                EmployeeHierarchyValidator.validateChanges(hierarchy, moveChanges), moveChanges.keySet(),
+                hierarchy.getTopSupervisor(), storedEmployees, 1);
+
+        // Then
+        Assert.assertFalse(newTopUpdate.isPresent());
+        Assert.assertFalse(moveUpdate.isPresent());
+    }
+
+    @Test
+    public void shouldKeepStoredRowsANestedSetOfChangedHierarchies() {
+        // Given
+        Random random = new Random(42);
+        Map<String, String> employees = new LinkedHashMap<>();
+        for (int i = 1; i < 300; i++) {
+            employees.put("E" + i, "E" + random.nextInt(i));
+        }
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(employees);
+        InMemoryNestedSet storedEmployees = new InMemoryNestedSet(hierarchy);
+        int plannedChanges = 0;
+
+        for (int round = 0; round < 1000; round++) {
+            Map<String, String> changes = createRandomChanges(random, hierarchy, round);
+            EmployeeHierarchy changedHierarchy;
+            try {
+                changedHierarchy = EmployeeHierarchyValidator.validateChanges(hierarchy, changes);
+            } catch (RuntimeException ex) {
+                continue;
+            }
+
+            // When
+            Optional<NestedSetUpdate> update = NestedSetUpdate.plan(ORGANISATION_ID, changedHierarchy,
+                    changes.keySet(), hierarchy.getTopSupervisor(), storedEmployees,
+                    (changedHierarchy.size() + 1) / 2);
+
+            // Then
+            if (update.isPresent()) {
+                plannedChanges++;
+                storedEmployees.apply(update.get());
+            } else {
+                storedEmployees.replaceAll(changedHierarchy);
+            }
+            storedEmployees.assertEncodes(changedHierarchy);
+            hierarchy = changedHierarchy;
+        }
+        Assert.assertTrue(plannedChanges > 500);
+    }
+
+    // Add leaves, move employees and remove leaves
+    private Map<String, String> createRandomChanges(Random random, EmployeeHierarchy hierarchy, int round) {
+        List<String> memberNames = hierarchy.search("", Integer.MAX_VALUE).stream()
+                .map(EmployeeMatch::getEmployeeName).collect(toList());
+        Map<String, String> changes = new LinkedHashMap<>();
+        for (int i = random.nextInt(5); i >= 0; i--) {
+            String employeeName = memberNames.get(random.nextInt(memberNames.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    changes.put("N" + round + "-" + i, employeeName);
+                    break;
+                case 1:
+                    if (!employeeName.equals(hierarchy.getTopSupervisor())) {
+                        changes.put(employeeName, memberNames.get(random.nextInt(memberNames.size())));
+                    }
+                    break;
+                default:
+                    if (!employeeName.equals(hierarchy.getTopSupervisor())
+                            && hierarchy.getEmployees(employeeName).isEmpty()) {
+                        changes.put(employeeName, null);
+                    }
+            }
+        }
+        return changes;
+    }
+
+    // Stored rows by employee name
+    private static final class InMemoryNestedSet implements StoredNestedSet {
+        private final Map<String, Employee> rows = new HashMap<>();
+
+        private InMemoryNestedSet(EmployeeHierarchy hierarchy) {
+            replaceAll(hierarchy);
+        }
+
+        @Override
+        public Optional<Employee> find(String employeeName) {
+            return Optional.ofNullable(rows.get(employeeName));
+        }
+
+        @Override
+        public Optional<Employee> findLastReport(Employee employee) {
+            return rows.values().stream()
+                    .filter(it -> employee.getEmployeeName().equals(it.getSupervisorName()))
+                    .max(Comparator.comparing(Employee::getLeftBound));
+        }
+
+        private void replaceAll(EmployeeHierarchy hierarchy) {
+            rows.clear();
+            NestedSetEncoder.encode(ORGANISATION_ID, hierarchy).forEach(it -> rows.put(it.getEmployeeName(), it));
+        }
+
+        private void apply(NestedSetUpdate update) {
+            update.getRemovedEmployeeNames().forEach(rows::remove);
+            update.getEmployees().forEach(it -> rows.put(it.getEmployeeName(), it));
+        }
+
+        // Check there is a row per member, with his supervisor, between the bounds of his supervisor,
+        // one level below him and after the row of the previous employee of his supervisor
+        private void assertEncodes(EmployeeHierarchy hierarchy) {
+            Assert.assertEquals(rows.size(), hierarchy.size() + 1);
+            Map<String, List<Employee>> rowsBySupervisor = new HashMap<>();
+            for (Employee row : rows.values()) {
+                Assert.assertEquals(row.getSupervisorName(), hierarchy.getSupervisor(row.getEmployeeName()).orElse(null));
+                Assert.assertTrue(row.getLeftBound() < row.getRightBound());
+                if (row.getSupervisorName() == null) {
+                    Assert.assertEquals(row.getDepth().intValue(), 0);
+                    continue;
+                }
+                Employee supervisor = rows.get(row.getSupervisorName());
+                Assert.assertTrue(supervisor.getLeftBound() < row.getLeftBound());
+                Assert.assertTrue(row.getRightBound() < supervisor.getRightBound());
+                Assert.assertEquals(row.getDepth().intValue(), supervisor.getDepth() + 1);
+                rowsBySupervisor.computeIfAbsent(row.getSupervisorName(), it -> new ArrayList<>()).add(row);
+            }
+            for (List<Employee> employees : rowsBySupervisor.values()) {
+                employees.sort(Comparator.comparing(Employee::getLeftBound));
+                for (int i = 1; i < employees.size(); i++) {
+                    Assert.assertTrue(employees.get(i - 1).getRightBound() < employees.get(i).getLeftBound());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package personia.hr.hierarchy;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import personia.hr.exception.InvalidParameterException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReportsPagerTest {
+
+    // A and B report to C, A1 and A2 report to A, A11 reports to A1
+    private EmployeeHierarchy createHierarchy() {
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "C");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("A1", "A");
+        inputTestEmployees.put("A2", "A");
+        inputTestEmployees.put("A11", "A1");
+        return EmployeeHierarchyValidator.validate(inputTestEmployees);
+    }
+
+    @Test
+    public void shouldGetReportsUpToDepth() {
+        // When
+        ReportsPage reportsPage = ReportsPager.getReports(createHierarchy(), "C", 2, 10, null);
+
+        // Then
+        Assert.assertEquals(reportsPage.getReports(), Arrays.asList(
+                new Report("A", "C", 1),
+                new Report("A1", "A", 2),
+                new Report("A2", "A", 2),
+                new Report("B", "C", 1)));
+        Assert.assertNull(reportsPage.getNextCursor());
+    }
+
+    @Test
+    public void shouldPageThroughAllReportsWithCursor() {
+        // Given
+        EmployeeHierarchy hierarchy = createHierarchy();
+        List<Report> reports = new ArrayList<>();
+        String cursor = null;
+
+        // When
+        do {
+            ReportsPage reportsPage = ReportsPager.getReports(hierarchy, "C", Integer.MAX_VALUE, 2, cursor);
+            Assert.assertTrue(reportsPage.getReports().size() <= 2);
+            reports.addAll(reportsPage.getReports());
+            cursor = reportsPage.getNextCursor();
+        } while (cursor != null);
+
+        // Then
+        Assert.assertEquals(reports, Arrays.asList(
+                new Report("A", "C", 1),
+                new Report("A1", "A", 2),
+                new Report("A11", "A1", 3),
+                new Report("A2", "A", 2),
+                new Report("B", "C", 1)));
+    }
+
+    @Test
+    public void shouldPageThroughVeryWideTeam() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            inputTestEmployees.put("E" + i, "Boss");
+        }
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(inputTestEmployees);
+        ReportsPage firstPage = ReportsPager.getReports(hierarchy, "Boss", 1, 1000, null);
+
+        // When
+        ReportsPage secondPage = ReportsPager.getReports(hierarchy, "Boss", 1, 1000, firstPage.getNextCursor());
+
+        // Then
+        Assert.assertEquals(secondPage.getReports().size(), 1000);
+        Assert.assertEquals(secondPage.getReports().get(0).getEmployeeName(), "E1000");
+        Assert.assertNotNull(secondPage.getNextCursor());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void shouldThrowInvalidParameterExceptionWhenCursorIsInvalid() {
+        // When
+        ReportsPager.getReports(createHierarchy(), "C", 1, 10, "not-a-cursor");
+    }
+
+    @Test
+    public void shouldRejectCursorOfAnotherVersionOfHierarchy() {
+        // Given
+        EmployeeHierarchy hierarchy = createHierarchy().withVersion(new HierarchyVersion(1L, 1L));
+        String cursor = ReportsPager.getReports(hierarchy, "C", Integer.MAX_VALUE, 2, null).getNextCursor();
+        EmployeeHierarchy changedHierarchy = EmployeeHierarchyValidator
+                .validateChanges(hierarchy, Collections.singletonMap("A0", "A"))
+                .withVersion(new HierarchyVersion(1L, 2L));
+
+        // When
+        InvalidParameterException exception = Assertions.assertThrows(InvalidParameterException.class,
+                () -> ReportsPager.getReports(changedHierarchy, "C", Integer.MAX_VALUE, 2, cursor));
+
+        // Then
+        Assert.assertEquals(exception.getMessage(), new InvalidParameterException("cursor", cursor).getMessage());
+        Assert.assertEquals(ReportsPager.getReports(hierarchy, "C", Integer.MAX_VALUE, 2, cursor).getReports().get(0),
+                new Report("A11", "A1", 3));
+    }
+}
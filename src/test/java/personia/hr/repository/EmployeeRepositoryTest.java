@@ -0,0 +1,171 @@
+package personia.hr.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import personia.hr.domain.Employee;
+import personia.hr.domain.EmployeeId;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.hierarchy.NestedSetEncoder;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class EmployeeRepositoryTest {
+    private static final String ORGANISATION_ID = "acme";
+    private static final String OTHER_ORGANISATION_ID = "globex";
+    private static final long REVISION = 42L;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void shouldReplaceAllEmployeesSuccessfully() {
+        // Given
+        employeeRepository.replaceAll(ORGANISATION_ID, Arrays.asList(new Employee(ORGANISATION_ID, "A", "B"), new Employee(ORGANISATION_ID, "B", "C")), REVISION);
+
+        // When
+        employeeRepository.replaceAll(ORGANISATION_ID, Arrays.asList(new Employee(ORGANISATION_ID, "A", "C"), new Employee(ORGANISATION_ID, "D", "C")), REVISION);
+
+        // Then
+        List<Employee> employees = employeeRepository.findByOrganisationId(ORGANISATION_ID);
+        Map<String, String> employeeMap = employees.stream()
+                .collect(toMap(Employee::getEmployeeName, Employee::getSupervisorName));
+
+        Assert.assertEquals(employeeMap.size(), 2);
+        Assert.assertEquals(employeeMap.get("A"), "C");
+        Assert.assertEquals(employeeMap.get("D"), "C");
+    }
+
+    @Test
+    public void shouldApplyChangesSuccessfully() {
+        // Given
+        employeeRepository.replaceAll(ORGANISATION_ID, Arrays.asList(new Employee(ORGANISATION_ID, "A", "B"), new Employee(ORGANISATION_ID, "B", "C"), new Employee(ORGANISATION_ID, "D", "C")), REVISION);
+
+        // When
+        employeeRepository.applyChanges(ORGANISATION_ID, Arrays.asList(new Employee(ORGANISATION_ID, "A", "D"), new Employee(ORGANISATION_ID, "E", "D")),
+                Collections.singletonList("B"), REVISION);
+
+        // Then
+        List<Employee> employees = employeeRepository.findByOrganisationId(ORGANISATION_ID);
+        Map<String, String> employeeMap = employees.stream()
+                .collect(toMap(Employee::getEmployeeName, Employee::getSupervisorName));
+
+        Assert.assertEquals(employeeMap.size(), 3);
+        Assert.assertEquals(employeeMap.get("A"), "D");
+        Assert.assertEquals(employeeMap.get("D"), "C");
+        Assert.assertEquals(employeeMap.get("E"), "D");
+    }
+
+    @Test
+    public void shouldFindReportsAndSupervisorsByNestedSetBounds() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        inputTestEmployees.put("E", "A");
+        employeeRepository.replaceAll(ORGANISATION_ID,
+                NestedSetEncoder.encode(ORGANISATION_ID, EmployeeHierarchyValidator.validate(inputTestEmployees)), REVISION);
+        Employee employeeA = employeeRepository.findById(new EmployeeId(ORGANISATION_ID, "A"))
+                .orElseThrow(IllegalStateException::new);
+        Employee employeeB = employeeRepository.findById(new EmployeeId(ORGANISATION_ID, "B"))
+                .orElseThrow(IllegalStateException::new);
+        Employee employeeC = employeeRepository.findById(new EmployeeId(ORGANISATION_ID, "C"))
+                .orElseThrow(IllegalStateException::new);
+
+        // When
+        List<Employee> reportsOfB = employeeRepository.findReports(employeeB);
+        List<Employee> reportsOfC = employeeRepository.findReports(employeeC);
+        List<Employee> supervisorsOfA = employeeRepository.findSupervisors(employeeA);
+        List<Employee> supervisorsOfC = employeeRepository.findSupervisors(employeeC);
+
+        // Then
+        Assert.assertEquals(reportsOfB.stream().map(Employee::getEmployeeName).collect(toList()), Arrays.asList("A", "E"));
+        Assert.assertEquals(reportsOfC.stream().map(Employee::getEmployeeName).collect(toList()), Arrays.asList("B", "A", "E", "D"));
+        Assert.assertEquals(supervisorsOfA.stream().map(Employee::getEmployeeName).collect(toList()), Arrays.asList("C", "B"));
+        Assert.assertTrue(supervisorsOfC.isEmpty());
+        Assert.assertNull(employeeC.getSupervisorName());
+        Assert.assertEquals(employeeRepository.findLastReport(employeeC).map(Employee::getEmployeeName).orElse(null), "D");
+        Assert.assertFalse(employeeRepository.findLastReport(employeeRepository.findById(new EmployeeId(ORGANISATION_ID, "E"))
+                .orElseThrow(IllegalStateException::new)).isPresent());
+        Assert.assertEquals(employeeRepository.findByOrganisationIdAndSupervisorName(ORGANISATION_ID, "C").size(), 2);
+    }
+
+    @Test
+    public void shouldFindSupervisorsOfDeepEmployeeInOneStatement() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+        employeeRepository.replaceAll(ORGANISATION_ID,
+                NestedSetEncoder.encode(ORGANISATION_ID, EmployeeHierarchyValidator.validate(inputTestEmployees)), REVISION);
+        Employee employee = employeeRepository.findById(new EmployeeId(ORGANISATION_ID, "E0"))
+                .orElseThrow(IllegalStateException::new);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // When
+        List<Employee> supervisors = employeeRepository.findSupervisors(employee);
+
+        // Then
+        Assert.assertEquals(statistics.getPrepareStatementCount(), 1);
+        Assert.assertEquals(supervisors.size(), 50);
+        Assert.assertEquals(supervisors.get(0).getEmployeeName(), "E50");
+        Assert.assertEquals(supervisors.get(49).getEmployeeName(), "E1");
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void shouldKeepEmployeesOfOtherOrganisationsWhenReplaceAll() {
+        // Given
+        employeeRepository.replaceAll(ORGANISATION_ID, Collections.singletonList(new Employee(ORGANISATION_ID, "A", "B")), REVISION);
+        employeeRepository.replaceAll(OTHER_ORGANISATION_ID, Arrays.asList(new Employee(OTHER_ORGANISATION_ID, "A", "C"),
+                new Employee(OTHER_ORGANISATION_ID, "D", "C")), REVISION);
+
+        // When
+        employeeRepository.replaceAll(ORGANISATION_ID, Collections.singletonList(new Employee(ORGANISATION_ID, "A", "D")), REVISION);
+        employeeRepository.applyChanges(OTHER_ORGANISATION_ID, Collections.emptyList(), Collections.singletonList("D"), REVISION);
+
+        // Then
+        Assert.assertEquals(employeeRepository.countByOrganisationId(ORGANISATION_ID), 1);
+        Assert.assertEquals(employeeRepository.findByOrganisationId(ORGANISATION_ID).get(0).getSupervisorName(), "D");
+        Assert.assertEquals(employeeRepository.countByOrganisationId(OTHER_ORGANISATION_ID), 1);
+        Assert.assertEquals(employeeRepository.findByOrganisationId(OTHER_ORGANISATION_ID).get(0).getSupervisorName(), "C");
+    }
+
+    @Test
+    public void shouldWriteRevisionWithEmployees() {
+        // Given
+        employeeRepository.replaceAll(ORGANISATION_ID, Collections.singletonList(new Employee(ORGANISATION_ID, "A", "B")), 1L);
+
+        // When
+        employeeRepository.applyChanges(ORGANISATION_ID, Collections.singletonList(new Employee(ORGANISATION_ID, "C", "B")),
+                Collections.emptyList(), 2L);
+
+        // Then
+        Assert.assertEquals(employeeRepository.findRevision(ORGANISATION_ID), Optional.of(2L));
+        Assert.assertFalse(employeeRepository.findRevision(OTHER_ORGANISATION_ID).isPresent());
+    }
+}
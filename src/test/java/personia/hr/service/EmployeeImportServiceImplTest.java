@@ -0,0 +1,166 @@
+package personia.hr.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import personia.hr.exception.ImportRejectedException;
+import personia.hr.exception.InvalidValueException;
+import personia.hr.exception.NoImportFoundException;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.imports.EmployeeImport;
+import personia.hr.service.impl.EmployeeImportServiceImpl;
+
+import java.util.concurrent.CountDownLatch;
+
+import static personia.hr.imports.EmployeeImport.Status.FAILED;
+import static personia.hr.imports.EmployeeImport.Status.QUEUED;
+import static personia.hr.imports.EmployeeImport.Status.SUCCEEDED;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmployeeImportServiceImplTest {
+    private static final String ORGANISATION_ID = "acme";
+    private static final String OTHER_ORGANISATION_ID = "globex";
+    private static final int QUEUE_CAPACITY = 4;
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeImportServiceImpl employeeImportService;
+
+    @Before
+    public void setUp() {
+        employeeImportService = new EmployeeImportServiceImpl(employeeService, QUEUE_CAPACITY, 16, 2);
+    }
+
+    @Test
+    public void shouldRunImportInBackground() throws InterruptedException {
+        // Given
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "B").add("B", "C");
+        EmployeeHierarchy hierarchy = EmployeeHierarchyValidator.validate(employees);
+        Mockito.when(employeeService.importEmployees(Mockito.eq(ORGANISATION_ID), Mockito.eq(employees), Mockito.any())).thenReturn(hierarchy);
+
+        // When
+        EmployeeImport employeeImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        employeeImportService.shutdown();
+
+        // Then
+        Assert.assertEquals(employeeImportService.getImport(ORGANISATION_ID, employeeImport.getId()), employeeImport);
+        Assert.assertEquals(employeeImport.getStatus(), SUCCEEDED);
+        Assert.assertEquals(employeeImport.getOrganisationId(), ORGANISATION_ID);
+        Assert.assertEquals(employeeImport.getEmployees(), 2);
+        Assert.assertEquals(employeeImport.getTopSupervisor(), "C");
+        Assert.assertEquals(employeeImport.getDepth().intValue(), 2);
+    }
+
+    @Test
+    public void shouldKeepErrorOfFailedImport() throws InterruptedException {
+        // Given
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "A");
+        Mockito.when(employeeService.importEmployees(Mockito.eq(ORGANISATION_ID), Mockito.eq(employees), Mockito.any()))
+                .thenThrow(new InvalidValueException("A"));
+
+        // When
+        EmployeeImport employeeImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        employeeImportService.shutdown();
+
+        // Then
+        Assert.assertEquals(employeeImport.getStatus(), FAILED);
+        Assert.assertEquals(employeeImport.getError(), "Employee: A has invalid value");
+        Assert.assertNotNull(employeeImport.getFinishedAt());
+    }
+
+    @Test
+    public void shouldMarkImportFailedWhenItThrowsError() throws InterruptedException {
+        // Given
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "B");
+        Mockito.when(employeeService.importEmployees(Mockito.eq(ORGANISATION_ID), Mockito.eq(employees), Mockito.any()))
+                .thenThrow(new OutOfMemoryError("Java heap space"));
+
+        // When
+        EmployeeImport failedImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        EmployeeImport nextImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        employeeImportService.shutdown();
+
+        // Then
+        Assert.assertEquals(failedImport.getStatus(), FAILED);
+        Assert.assertEquals(failedImport.getError(), "Java heap space");
+        Assert.assertEquals(nextImport.getStatus(), FAILED);
+    }
+
+    @Test
+    public void shouldKeepTypeOfFailureWithoutMessage() throws InterruptedException {
+        // Given
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "B");
+        Mockito.when(employeeService.importEmployees(Mockito.eq(ORGANISATION_ID), Mockito.eq(employees), Mockito.any()))
+                .thenThrow(new NullPointerException());
+
+        // When
+        EmployeeImport failedImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        employeeImportService.shutdown();
+
+        // Then
+        Assert.assertEquals(failedImport.getStatus(), FAILED);
+        Assert.assertEquals(failedImport.getError(), "NullPointerException");
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldRunImportOfAnotherOrganisationWhileOneIsRunning() throws InterruptedException {
+        // Given
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "B");
+        Mockito.when(employeeService.importEmployees(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    running.countDown();
+                    finish.await();
+                    return EmployeeHierarchyValidator.validate(employees);
+                });
+        Mockito.when(employeeService.importEmployees(Mockito.eq(OTHER_ORGANISATION_ID), Mockito.any(), Mockito.any()))
+                .thenReturn(EmployeeHierarchyValidator.validate(employees));
+        EmployeeImport runningImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        running.await();
+        for (int i = 0; i < QUEUE_CAPACITY; i++) {
+            employeeImportService.submitImport(ORGANISATION_ID, employees);
+        }
+
+        // When
+        EmployeeImport otherImport = employeeImportService.submitImport(OTHER_ORGANISATION_ID, employees);
+        while (otherImport.getStatus() != SUCCEEDED) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        Assertions.assertThrows(ImportRejectedException.class,
+                () -> employeeImportService.submitImport(ORGANISATION_ID, employees));
+        Assert.assertEquals(runningImport.getStatus(), QUEUED);
+        finish.countDown();
+        employeeImportService.shutdown();
+        Assert.assertEquals(runningImport.getStatus(), SUCCEEDED);
+    }
+
+    @Test
+    public void shouldThrowNoImportFoundExceptionForUnknownImport() {
+        // When - Then
+        Assertions.assertThrows(NoImportFoundException.class,
+                () -> employeeImportService.getImport(ORGANISATION_ID, "unknown"));
+    }
+
+    @Test
+    public void shouldThrowNoImportFoundExceptionForImportOfAnotherOrganisation() throws InterruptedException {
+        // Given
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "B");
+        EmployeeImport employeeImport = employeeImportService.submitImport(ORGANISATION_ID, employees);
+        employeeImportService.shutdown();
+
+        // When - Then
+        Assertions.assertThrows(NoImportFoundException.class,
+                () -> employeeImportService.getImport("globex", employeeImport.getId()));
+    }
+}
@@ -1,37 +1,96 @@
 package personia.hr.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import personia.hr.domain.Employee;
+import personia.hr.domain.EmployeeId;
+import personia.hr.exception.InvalidParameterException;
 import personia.hr.exception.InvalidValueException;
 import personia.hr.exception.LoopHierarchyException;
 import personia.hr.exception.MultipleRootFoundException;
 import personia.hr.exception.NoEmployeeFoundException;
+import personia.hr.exception.UploadSupersededException;
+import personia.hr.exception.WriteRejectedException;
+import personia.hr.hierarchy.EmployeeHierarchy;
+import personia.hr.hierarchy.EmployeeHierarchyBuilder;
+import personia.hr.hierarchy.EmployeeHierarchyValidator;
+import personia.hr.hierarchy.HierarchyChanges;
+import personia.hr.hierarchy.HierarchySnapshot;
+import personia.hr.hierarchy.HierarchyStats;
+import personia.hr.hierarchy.HierarchyVersion;
+import personia.hr.hierarchy.ReportsPage;
+import personia.hr.hierarchy.SupervisorChain;
+import personia.hr.imports.EmployeeImport;
+import personia.hr.metrics.HierarchyMetrics;
 import personia.hr.repository.EmployeeRepository;
+import personia.hr.repository.HierarchySnapshotRepository;
 import personia.hr.service.impl.EmployeeServiceImpl;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EmployeeServiceImplTest {
+    private static final String ORGANISATION_ID = "acme";
+    private static final String OTHER_ORGANISATION_ID = "globex";
+    private static final long CACHE_MAX_EMPLOYEES = 1000;
+    private static final int WRITE_QUEUE_CAPACITY = 2;
+    private static final int MAX_CONCURRENT_DATABASE_WRITES = 2;
+    private static final long REVISION = 42L;
 
     @Mock
     private EmployeeRepository employeeRepository;
 
-    @InjectMocks
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private HierarchySnapshotRepository hierarchySnapshotRepository;
+
+    @Spy
+    private HierarchyMetrics hierarchyMetrics = new HierarchyMetrics(meterRegistry);
+
+    @Captor
+    private ArgumentCaptor<List<Employee>> employeesCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<String>> removedEmployeeNamesCaptor;
+
     private EmployeeServiceImpl employeeService;
 
+    @Before
+    public void setUp() {
+        employeeService = new EmployeeServiceImpl(employeeRepository, hierarchyMetrics, hierarchySnapshotRepository,
+                CACHE_MAX_EMPLOYEES, WRITE_QUEUE_CAPACITY, MAX_CONCURRENT_DATABASE_WRITES);
+    }
+
     @Test
     public void shouldGetCorrectExceptionMessageWhenCreateEmployeesWithInputEmpty() {
         // Given
@@ -39,7 +98,7 @@ public class EmployeeServiceImplTest {
 
         // When
         InvalidValueException exception  = Assertions.assertThrows(InvalidValueException.class,
-                () -> employeeService.createEmployees(inputTestEmployees));
+                () -> employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees));
 
         // Then
         Assert.assertEquals(exception.getMessage(), new InvalidValueException().getMessage());
@@ -54,7 +113,7 @@ public class EmployeeServiceImplTest {
 
         // When
         InvalidValueException exception  = Assertions.assertThrows(InvalidValueException.class,
-                () -> employeeService.createEmployees(inputTestEmployees));
+                () -> employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees));
 
         // Then
         Assert.assertEquals(exception.getMessage(), new InvalidValueException("C").getMessage());
@@ -68,7 +127,7 @@ public class EmployeeServiceImplTest {
         inputTestEmployees.put("C", "D");
 
         // When
-        employeeService.createEmployees(inputTestEmployees);
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
     }
 
     @Test(expected = LoopHierarchyException.class)
@@ -79,7 +138,23 @@ public class EmployeeServiceImplTest {
         inputTestEmployees.put("B", "A");
 
         // When
-        employeeService.createEmployees(inputTestEmployees);
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+    }
+
+    @Test
+    public void shouldNotSaveEmployeesWhenLoopIsDisjointFromTopSupervisor() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("C", "D");
+        inputTestEmployees.put("D", "C");
+
+        // When
+        Assertions.assertThrows(LoopHierarchyException.class,
+                () -> employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees));
+
+        // Then
+        Mockito.verify(employeeRepository, Mockito.never()).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
     }
 
     @Test
@@ -90,7 +165,7 @@ public class EmployeeServiceImplTest {
         inputTestEmployees.put("B", "C");
 
         // When
-        Map<String, Object> employeesHierarchy = employeeService.createEmployees(inputTestEmployees);
+        Map<String, Object> employeesHierarchy = employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees).getEmployees();
 
         // Then
         Map<String, Object> secondSubHierarchy = new HashMap<>();
@@ -108,23 +183,23 @@ public class EmployeeServiceImplTest {
     @Test(expected = NoEmployeeFoundException.class)
     public void shouldThrowNoEmployeeFoundExceptionWhenGetEmployees() {
         // Given
-        Mockito.when(employeeRepository.findAll()).thenReturn(new ArrayList<>());
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(new ArrayList<>());
 
         // When
-        employeeService.getEmployees();
+        employeeService.getEmployees(ORGANISATION_ID);
     }
 
     @Test
     public void shouldGetEmployeesHierarchySuccessfully() {
         // Given
         List<Employee> employees = new ArrayList<>();
-        employees.add(new Employee("A", "B"));
-        employees.add(new Employee("B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
 
-        Mockito.when(employeeRepository.findAll()).thenReturn(employees);
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
 
         // When
-        Map<String, Object> employeesHierarchy = employeeService.getEmployees();
+        Map<String, Object> employeesHierarchy = employeeService.getEmployees(ORGANISATION_ID);
 
         // Then
         Map<String, Object> secondSubHierarchy = new HashMap<>();
@@ -143,14 +218,14 @@ public class EmployeeServiceImplTest {
     public void shouldGetSpecifiedEmployeeHierarchyCorrectly() {
         // Given
         List<Employee> employees = new ArrayList<>();
-        employees.add(new Employee("A", "B"));
-        employees.add(new Employee("B", "C"));
-        employees.add(new Employee("C", "D"));
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "C", "D"));
 
-        Mockito.when(employeeRepository.findAll()).thenReturn(employees);
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
 
         // When
-        Map<String, Object> specifiedEmployeeHierarchy = employeeService.getSpecifiedEmployee("A");
+        Map<String, Object> specifiedEmployeeHierarchy = employeeService.getSpecifiedEmployee(ORGANISATION_ID, "A");
 
         // Then
         Map<String, Object> firstSubHierarchy = new HashMap<>();
@@ -162,17 +237,862 @@ public class EmployeeServiceImplTest {
         Assert.assertEquals(specifiedEmployeeHierarchy, expectedEmployeesHierarchy);
     }
 
+    @Test
+    public void shouldLookupSupervisorChainsReadingDBOnce() {
+        // Given
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "C", "D"));
+
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+
+        // When
+        List<SupervisorChain> chains = employeeService.getSupervisorChains(ORGANISATION_ID,
+                Arrays.asList("A", "C", "Z"), Integer.MAX_VALUE);
+
+        // Then
+        Assert.assertEquals(chains, Arrays.asList(new SupervisorChain("A", true, Arrays.asList("B", "C", "D")),
+                new SupervisorChain("C", true, Collections.singletonList("D")),
+                new SupervisorChain("Z", false, Collections.emptyList())));
+        Mockito.verify(employeeRepository, Mockito.times(1)).findByOrganisationId(ORGANISATION_ID);
+    }
+
     @Test(expected = NoEmployeeFoundException.class)
     public void shouldThrowNoEmployeeFoundExceptionWhenGetSpecifiedEmployee() {
         // Given
         List<Employee> employees = new ArrayList<>();
-        employees.add(new Employee("A", "B"));
-        employees.add(new Employee("B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+
+        // When
+        employeeService.getSpecifiedEmployee(ORGANISATION_ID, "D");
+    }
+
+    @Test
+    public void shouldGetEmployeesFromCreatedHierarchyWithoutReadingDB() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+
+        // When
+        Map<String, Object> employeesHierarchy = employeeService.getEmployees(ORGANISATION_ID);
+        Map<String, Object> specifiedEmployeeHierarchy = employeeService.getSpecifiedEmployee(ORGANISATION_ID, "A");
+
+        // Then
+        Map<String, Object> secondSubHierarchy = new HashMap<>();
+        secondSubHierarchy.put("A", new HashMap<>());
+
+        Map<String, Object> firstSubHierarchy = new HashMap<>();
+        firstSubHierarchy.put("B", secondSubHierarchy);
+
+        Map<String, Object> expectedEmployeesHierarchy = new HashMap<>();
+        expectedEmployeesHierarchy.put("C", firstSubHierarchy);
+
+        Map<String, Object> expectedSpecifiedEmployeeHierarchy = new HashMap<>();
+        expectedSpecifiedEmployeeHierarchy.put("B", Collections.singletonMap("C", new HashMap<>()));
+
+        Assert.assertEquals(employeesHierarchy, expectedEmployeesHierarchy);
+        Assert.assertEquals(specifiedEmployeeHierarchy, expectedSpecifiedEmployeeHierarchy);
+        // Read once by create to compare stored employees with the created ones, reads do not touch DB
+        Mockito.verify(employeeRepository, Mockito.times(1)).findByOrganisationId(ORGANISATION_ID);
+    }
+
+    @Test
+    public void shouldLoadStoredEmployeesNamedLikeOtherPaths() {
+        // Given
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "stats", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+
+        // When
+        String supervisor = employeeService.getSupervisor(ORGANISATION_ID, "stats", 1);
+
+        // Then
+        Assert.assertEquals(supervisor, "B");
+    }
+
+    @Test
+    public void shouldLoadEmployeesFromDBOnlyOnce() {
+        // Given
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+
+        // When
+        employeeService.getEmployees(ORGANISATION_ID);
+        employeeService.getEmployees(ORGANISATION_ID);
+        employeeService.getSpecifiedEmployee(ORGANISATION_ID, "A");
+
+        // Then
+        Mockito.verify(employeeRepository, Mockito.times(1)).findByOrganisationId(ORGANISATION_ID);
+    }
+
+    @Test
+    public void shouldLoadEmployeesFromSnapshotWhenDBHasSameRevision() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        EmployeeHierarchy snapshot = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        Mockito.when(hierarchySnapshotRepository.load(ORGANISATION_ID))
+                .thenReturn(Optional.of(new HierarchySnapshot(snapshot, REVISION)));
+        Mockito.when(employeeRepository.findRevision(ORGANISATION_ID)).thenReturn(Optional.of(REVISION));
+
+        // When
+        String supervisor = employeeService.getSupervisor(ORGANISATION_ID, "A", 2);
+
+        // Then
+        Assert.assertEquals(supervisor, "C");
+        Mockito.verify(employeeRepository, Mockito.never()).findByOrganisationId(ORGANISATION_ID);
+    }
+
+    @Test
+    public void shouldLoadEmployeesFromDBWhenSnapshotDiffers() {
+        // Given
+        EmployeeHierarchy snapshot = EmployeeHierarchyValidator.validate(Collections.singletonMap("A", "B"));
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "A", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "C", null));
+
+        Mockito.when(hierarchySnapshotRepository.load(ORGANISATION_ID))
+                .thenReturn(Optional.of(new HierarchySnapshot(snapshot, REVISION)));
+        Mockito.when(employeeRepository.findRevision(ORGANISATION_ID)).thenReturn(Optional.of(REVISION + 1));
+        Mockito.when(employeeRepository.countByOrganisationId(ORGANISATION_ID)).thenReturn(3L);
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+
+        // When
+        String supervisor = employeeService.getSupervisor(ORGANISATION_ID, "A", 1);
+
+        // Then
+        Assert.assertEquals(supervisor, "C");
+    }
+
+    @Test
+    public void shouldLoadEmployeesFromDBWhenMoveWasCommittedWithoutSnapshot() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        storeRowsInRepository();
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+        ArgumentCaptor<EmployeeHierarchy> snapshotCaptor = ArgumentCaptor.forClass(EmployeeHierarchy.class);
+        ArgumentCaptor<Long> snapshotRevisionCaptor = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(hierarchySnapshotRepository)
+                .save(Mockito.eq(ORGANISATION_ID), snapshotCaptor.capture(), snapshotRevisionCaptor.capture());
+
+        // Move keeps the number of rows, the process stops before its snapshot would be taken
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("A", "D"));
+        ArgumentCaptor<Long> revisionCaptor = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(employeeRepository).applyChanges(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.any(),
+                revisionCaptor.capture());
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "A", "D"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "D", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "C", null));
+        Mockito.when(hierarchySnapshotRepository.load(ORGANISATION_ID)).thenReturn(Optional.of(
+                new HierarchySnapshot(snapshotCaptor.getValue(), snapshotRevisionCaptor.getValue())));
+        Mockito.when(employeeRepository.findRevision(ORGANISATION_ID)).thenReturn(Optional.of(revisionCaptor.getValue()));
+        Mockito.when(employeeRepository.countByOrganisationId(ORGANISATION_ID)).thenReturn(4L);
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+        EmployeeServiceImpl restartedEmployeeService = new EmployeeServiceImpl(employeeRepository, hierarchyMetrics,
+                hierarchySnapshotRepository, CACHE_MAX_EMPLOYEES, WRITE_QUEUE_CAPACITY, MAX_CONCURRENT_DATABASE_WRITES);
+
+        // When
+        String supervisor = restartedEmployeeService.getSupervisor(ORGANISATION_ID, "A", 1);
+
+        // Then
+        Assert.assertEquals(supervisor, "D");
+        Assert.assertNotEquals(revisionCaptor.getValue(), snapshotRevisionCaptor.getValue());
+    }
+
+    @Test
+    public void shouldSeedEmptyDBFromSnapshotBeforeFirstUpdate() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        EmployeeHierarchy snapshot = EmployeeHierarchyValidator.validate(inputTestEmployees);
+
+        Mockito.when(hierarchySnapshotRepository.load(ORGANISATION_ID))
+                .thenReturn(Optional.of(new HierarchySnapshot(snapshot, REVISION)));
+        Mockito.when(employeeRepository.countByOrganisationId(ORGANISATION_ID)).thenReturn(0L);
+        storeRowsInRepository();
+
+        // When
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("A", "C"));
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B"));
+
+        // Then
+        Mockito.verify(employeeRepository, Mockito.times(1))
+                .replaceAll(Mockito.eq(ORGANISATION_ID), employeesCaptor.capture(), Mockito.anyLong());
+        Assert.assertEquals(employeesCaptor.getValue().size(), 3);
+        Mockito.verify(hierarchySnapshotRepository, Mockito.times(2))
+                .save(Mockito.eq(ORGANISATION_ID), Mockito.any(EmployeeHierarchy.class), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldComputeStatsOncePerHierarchyVersion() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+
+        // When
+        HierarchyStats createdStats = employeeService.getStats(ORGANISATION_ID);
+        HierarchyStats repeatedStats = employeeService.getStats(ORGANISATION_ID);
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("A", "C"));
+        HierarchyStats updatedStats = employeeService.getStats(ORGANISATION_ID);
+
+        // Then
+        Assert.assertSame(repeatedStats, createdStats);
+        Assert.assertEquals(createdStats.getDepth(), 2);
+        Assert.assertEquals(updatedStats.getDepth(), 1);
+        Assert.assertEquals(employeeService.getStats(ORGANISATION_ID, "C").getTotalReports(), 2);
+    }
+
+    @Test(expected = NoEmployeeFoundException.class)
+    public void shouldThrowNoEmployeeFoundExceptionWhenGetStatsOfUnknownEmployee() {
+        // Given
+        employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B"));
+
+        // When
+        employeeService.getStats(ORGANISATION_ID, "X");
+    }
+
+    @Test
+    public void shouldReplaceEmployeesInDBWhenCreateEmployees() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+
+        // When
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+
+        // Then
+        Mockito.verify(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), employeesCaptor.capture(), Mockito.anyLong());
+        Mockito.verify(employeeRepository, Mockito.never()).deleteAll();
+        Mockito.verify(employeeRepository, Mockito.never()).save(Mockito.any(Employee.class));
+        // Employees and their top supervisor
+        Assert.assertEquals(employeesCaptor.getValue().size(), 3);
+    }
+
+    @Test
+    public void shouldWriteOnlyChangedEmployeesWhenCreateEmployeesAgain() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        for (int i = 1; i <= 10; i++) {
+            inputTestEmployees.put("E" + i, "E0");
+        }
+        storeRowsInRepository();
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+
+        Map<String, String> changedTestEmployees = new LinkedHashMap<>(inputTestEmployees);
+        changedTestEmployees.put("E10", "E9");
+        changedTestEmployees.remove("E8");
+
+        // When
+        HierarchyChanges hierarchyChanges = employeeService.createEmployees(ORGANISATION_ID, changedTestEmployees)
+                .getChanges();
+
+        // Then
+        Mockito.verify(employeeRepository, Mockito.times(1)).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+        Mockito.verify(employeeRepository).applyChanges(Mockito.eq(ORGANISATION_ID), employeesCaptor.capture(),
+                removedEmployeeNamesCaptor.capture(), Mockito.anyLong());
+        Assert.assertEquals(removedEmployeeNamesCaptor.getValue(), Collections.singletonList("E8"));
+        Assert.assertTrue(employeesCaptor.getValue().size() < changedTestEmployees.size());
+        Assert.assertEquals(hierarchyChanges.getMoved(), Collections.singletonList("E10"));
+        Assert.assertEquals(hierarchyChanges.getRemoved(), Collections.singletonList("E8"));
+        Assert.assertEquals(employeeService.getSupervisor(ORGANISATION_ID, "E10", 1), "E9");
+    }
+
+    @Test
+    public void shouldKeepHierarchyVersionWithoutWritingDBWhenCreateSameEmployees() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+        HierarchyVersion createdVersion = employeeService.getHierarchyVersion(ORGANISATION_ID);
+
+        // When
+        HierarchyChanges hierarchyChanges = employeeService
+                .createEmployees(ORGANISATION_ID, new HashMap<>(inputTestEmployees)).getChanges();
+
+        // Then
+        Assert.assertSame(employeeService.getHierarchyVersion(ORGANISATION_ID), createdVersion);
+        Assert.assertTrue(hierarchyChanges.getAdded().isEmpty());
+        Assert.assertTrue(hierarchyChanges.getMoved().isEmpty());
+        Assert.assertTrue(hierarchyChanges.getRemoved().isEmpty());
+        Mockito.verify(employeeRepository, Mockito.times(1)).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+        Mockito.verify(employeeRepository, Mockito.never())
+                .applyChanges(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldReplaceEmployeesInDBAndServeThemWhenImportEmployees() {
+        // Given
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("A", "B").add("B", "C");
+        EmployeeImport employeeImport = new EmployeeImport("1", ORGANISATION_ID, employees.size());
+
+        // When
+        employeeService.importEmployees(ORGANISATION_ID, employees, employeeImport);
+
+        // Then
+        Mockito.verify(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.argThat(it -> it.size() == 3), Mockito.anyLong());
+        Assert.assertEquals(employeeImport.getStatus(), EmployeeImport.Status.SAVING);
+        Assert.assertEquals(employeeService.getSupervisor(ORGANISATION_ID, "A", 2), "C");
+    }
+
+    @Test
+    public void shouldRejectReportsCursorIssuedBeforeUpdate() {
+        // Given
+        Map<String, String> inputTestEmployees = new LinkedHashMap<>();
+        inputTestEmployees.put("A", "C");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+        ReportsPage firstPage = employeeService.getReports(ORGANISATION_ID, "C", 1, 1, null);
+
+        // When
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("A", null));
+
+        // Then
+        Assertions.assertThrows(InvalidParameterException.class,
+                () -> employeeService.getReports(ORGANISATION_ID, "C", 1, 1, firstPage.getNextCursor()));
+        Assert.assertEquals(employeeService.getReports(ORGANISATION_ID, "C", 1, 1, null).getReports().get(0)
+                .getEmployeeName(), "B");
+    }
+
+    @Test
+    public void shouldPublishNewHierarchyVersionOnEveryChange() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+
+        // When
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+        HierarchyVersion createdVersion = employeeService.getHierarchyVersion(ORGANISATION_ID);
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("A", "C"));
+        HierarchyVersion updatedVersion = employeeService.getHierarchyVersion(ORGANISATION_ID);
+
+        // Then
+        Assert.assertEquals(updatedVersion.getNumber(), createdVersion.getNumber() + 1);
+        Assert.assertEquals(updatedVersion.getEpoch(), createdVersion.getEpoch());
+        Assert.assertNotEquals(updatedVersion.getETag(), createdVersion.getETag());
+        Assert.assertSame(employeeService.getEmployeeHierarchy(ORGANISATION_ID).getVersion(), updatedVersion);
+    }
+
+    @Test
+    public void shouldServePreviousSnapshotUntilNewEmployeesAreCommitted() throws Exception {
+        // Given
+        employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B"));
+        Map<String, Object> previousEmployees = employeeService.getEmployees(ORGANISATION_ID);
+
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        // When
+        Thread writer = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("C", "D")));
+        writer.start();
+        saving.await();
+        Map<String, Object> employeesWhileSaving = employeeService.getEmployees(ORGANISATION_ID);
+        commit.countDown();
+        writer.join();
+
+        // Then
+        Assert.assertEquals(employeesWhileSaving, previousEmployees);
+        Assert.assertEquals(employeeService.getEmployees(ORGANISATION_ID).keySet(), Collections.singleton("D"));
+    }
+
+    @Test
+    public void shouldCreateVeryDeepEmployeesHierarchySuccessfully() throws Exception {
+        // Given
+        int depth = 1_000_000;
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        for (int i = 0; i < depth; i++) {
+            inputTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+
+        // When
+        Map<String, Object> employeesHierarchy = employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees).getEmployees();
+        String json = new ObjectMapper().writeValueAsString(employeesHierarchy);
+
+        // Then
+        Map<?, ?> node = employeesHierarchy;
+        for (int i = depth; i >= 0; i--) {
+            Assert.assertEquals(node.size(), 1);
+            node = (Map<?, ?>) node.get("E" + i);
+        }
+        Assert.assertTrue(node.isEmpty());
+        Assert.assertTrue(json.startsWith("{\"E1000000\":{\"E999999\":{"));
+        Assert.assertEquals(json.indexOf("\"E0\":{}"), json.length() - (depth + 1) - "\"E0\":{}".length());
+    }
+
+    @Test
+    public void shouldCreateVeryWideEmployeesHierarchySuccessfully() throws Exception {
+        // Given
+        int width = 1_000_000;
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        for (int i = 0; i < width; i++) {
+            inputTestEmployees.put("E" + i, "Boss");
+        }
+
+        // When
+        Map<String, Object> employeesHierarchy = employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees).getEmployees();
+        String json = new ObjectMapper().writeValueAsString(employeesHierarchy);
+
+        // Then
+        Map<?, ?> bossNode = (Map<?, ?>) employeesHierarchy.get("Boss");
+        Assert.assertEquals(bossNode.size(), width);
+        Assert.assertEquals(bossNode.get("E0"), new HashMap<>());
+        Assert.assertTrue(json.startsWith("{\"Boss\":{"));
+        Assert.assertTrue(json.contains("\"E999999\":{}"));
+    }
+
+    @Test
+    public void shouldUpdateOnlyChangedEmployees() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+        inputTestEmployees.put("F", "C");
+        inputTestEmployees.put("G", "C");
+        storeRowsInRepository();
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+
+        Map<String, String> changes = new LinkedHashMap<>();
+        changes.put("A", "D");
+        changes.put("B", null);
+        changes.put("D", "C");
+        changes.put("E", "D");
+
+        // When
+        HierarchyChanges hierarchyChanges = employeeService.updateEmployees(ORGANISATION_ID, changes);
+
+        // Then
+        Assert.assertEquals(hierarchyChanges.getAdded(), Collections.singletonList("E"));
+        Assert.assertEquals(hierarchyChanges.getMoved(), Collections.singletonList("A"));
+        Assert.assertEquals(hierarchyChanges.getRemoved(), Collections.singletonList("B"));
+
+        Mockito.verify(employeeRepository).applyChanges(Mockito.eq(ORGANISATION_ID), employeesCaptor.capture(),
+                Mockito.eq(Collections.singletonList("B")), Mockito.anyLong());
+        Map<String, String> changedEmployees = employeesCaptor.getValue().stream()
+                .collect(Collectors.toMap(Employee::getEmployeeName, Employee::getSupervisorName));
+        Assert.assertEquals(changedEmployees.get("A"), "D");
+        Assert.assertEquals(changedEmployees.get("E"), "D");
+        Assert.assertFalse(changedEmployees.containsKey("B"));
+
+        Map<String, Object> expectedSpecifiedEmployeeHierarchy = new HashMap<>();
+        expectedSpecifiedEmployeeHierarchy.put("D", Collections.singletonMap("C", new HashMap<>()));
+        Assert.assertEquals(employeeService.getSpecifiedEmployee(ORGANISATION_ID, "E"), expectedSpecifiedEmployeeHierarchy);
+    }
+
+    @Test
+    public void shouldNotWriteDBWhenChangesKeepSameSupervisors() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+
+        // When
+        HierarchyChanges hierarchyChanges = employeeService.updateEmployees(ORGANISATION_ID,
+                Collections.singletonMap("A", "B"));
+
+        // Then
+        Assert.assertTrue(hierarchyChanges.getAdded().isEmpty());
+        Assert.assertTrue(hierarchyChanges.getMoved().isEmpty());
+        Assert.assertTrue(hierarchyChanges.getRemoved().isEmpty());
+        Mockito.verify(employeeRepository, Mockito.never())
+                .applyChanges(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldGetWholeSupervisorChainOfSpecifiedEmployee() {
+        // Given
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+        employees.add(new Employee(ORGANISATION_ID, "B", "C"));
+        employees.add(new Employee(ORGANISATION_ID, "C", "D"));
 
-        Mockito.when(employeeRepository.findAll()).thenReturn(employees);
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
 
         // When
-        employeeService.getSpecifiedEmployee("D");
+        Map<String, Object> specifiedEmployeeHierarchy = employeeService.getSpecifiedEmployee(ORGANISATION_ID, "A",
+                Integer.MAX_VALUE);
+
+        // Then
+        Map<String, Object> secondSubHierarchy = new HashMap<>();
+        secondSubHierarchy.put("D", new HashMap<>());
+
+        Map<String, Object> firstSubHierarchy = new HashMap<>();
+        firstSubHierarchy.put("C", secondSubHierarchy);
+
+        Map<String, Object> expectedEmployeesHierarchy = new HashMap<>();
+        expectedEmployeesHierarchy.put("B", firstSubHierarchy);
+
+        Assert.assertEquals(specifiedEmployeeHierarchy, expectedEmployeesHierarchy);
     }
 
+    @Test(expected = NoEmployeeFoundException.class)
+    public void shouldThrowNoEmployeeFoundExceptionWhenNoSupervisorAtLevel() {
+        // Given
+        List<Employee> employees = new ArrayList<>();
+        employees.add(new Employee(ORGANISATION_ID, "A", "B"));
+
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID)).thenReturn(employees);
+
+        // When
+        employeeService.getSupervisor(ORGANISATION_ID, "A", 2);
+    }
+
+    @Test
+    public void shouldRecordPhaseTimersAndHierarchyGauges() {
+        // Given
+        Map<String, String> inputTestEmployees = new HashMap<>();
+        inputTestEmployees.put("A", "B");
+        inputTestEmployees.put("B", "C");
+        inputTestEmployees.put("D", "C");
+
+        // When
+        employeeService.createEmployees(ORGANISATION_ID, inputTestEmployees);
+        employeeService.getEmployees(ORGANISATION_ID);
+
+        // Then
+        Assert.assertEquals(meterRegistry.get(HierarchyMetrics.PHASE_TIMER)
+                .tags("operation", "create", "phase", "validate").timer().count(), 1);
+        Assert.assertEquals(meterRegistry.get(HierarchyMetrics.PHASE_TIMER)
+                .tags("operation", "create", "phase", "save").timer().count(), 1);
+        Assert.assertEquals(meterRegistry.get(HierarchyMetrics.PHASE_TIMER)
+                .tags("operation", "read", "phase", "employees").timer().count(), 1);
+        Assert.assertEquals(meterRegistry.get("hr.hierarchy.employees").gauge().value(), 3, 0);
+        Assert.assertEquals(meterRegistry.get("hr.hierarchy.depth").gauge().value(), 2, 0);
+        Assert.assertEquals(meterRegistry.get("hr.hierarchy.max.fan.out").gauge().value(), 2, 0);
+        Assert.assertEquals(meterRegistry.get("hr.hierarchy.organisations").gauge().value(), 1, 0);
+    }
+
+    @Test
+    public void shouldKeepEmployeesOfOrganisationsApart() {
+        // Given
+        employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B"));
+        employeeService.createEmployees(OTHER_ORGANISATION_ID, Collections.singletonMap("A", "C"));
+        HierarchyVersion otherVersion = employeeService.getHierarchyVersion(OTHER_ORGANISATION_ID);
+
+        // When
+        employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("D", "B"));
+
+        // Then
+        Assert.assertEquals(employeeService.getSupervisor(ORGANISATION_ID, "A", 1), "B");
+        Assert.assertEquals(employeeService.getSupervisor(OTHER_ORGANISATION_ID, "A", 1), "C");
+        Assert.assertEquals(employeeService.getEmployeeHierarchy(ORGANISATION_ID).size(), 2);
+        Assert.assertEquals(employeeService.getEmployeeHierarchy(OTHER_ORGANISATION_ID).size(), 1);
+        Assert.assertSame(employeeService.getHierarchyVersion(OTHER_ORGANISATION_ID), otherVersion);
+        Mockito.verify(employeeRepository).replaceAll(Mockito.eq(OTHER_ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+        Mockito.verify(employeeRepository, Mockito.never())
+                .applyChanges(Mockito.eq(OTHER_ORGANISATION_ID), Mockito.any(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldLoadEvictedHierarchyAgainOnNextRead() {
+        // Given
+        Map<String, String> largeTestEmployees = new HashMap<>();
+        for (int i = 0; i < CACHE_MAX_EMPLOYEES; i++) {
+            largeTestEmployees.put("E" + i, "E" + (i + 1));
+        }
+        List<Employee> employees = Collections.singletonList(new Employee(ORGANISATION_ID, "A", "B"));
+        Mockito.when(employeeRepository.findByOrganisationId(ORGANISATION_ID))
+                .thenReturn(new ArrayList<>())
+                .thenReturn(employees);
+        employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B"));
+
+        // When
+        employeeService.createEmployees(OTHER_ORGANISATION_ID, largeTestEmployees);
+        String supervisor = employeeService.getSupervisor(ORGANISATION_ID, "A", 1);
+
+        // Then
+        Assert.assertEquals(supervisor, "B");
+        Mockito.verify(employeeRepository, Mockito.times(2)).findByOrganisationId(ORGANISATION_ID);
+    }
+
+    @Test
+    public void shouldCreateEmployeesOfAnotherOrganisationWhileOneIsSnapshotted() throws Exception {
+        // Given
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).when(hierarchySnapshotRepository).save(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        // When
+        Thread writer = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B")));
+        writer.start();
+        saving.await();
+        employeeService.createEmployees(OTHER_ORGANISATION_ID, Collections.singletonMap("C", "D"));
+        Map<String, Object> otherEmployees = employeeService.getEmployees(OTHER_ORGANISATION_ID);
+        commit.countDown();
+        writer.join();
+
+        // Then
+        Assert.assertEquals(otherEmployees.keySet(), Collections.singleton("D"));
+        Assert.assertEquals(employeeService.getEmployees(ORGANISATION_ID).keySet(), Collections.singleton("B"));
+    }
+
+    @Test
+    public void shouldWriteDBOfAnotherOrganisationWhileOneIsWriting() throws Exception {
+        // Given
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        // When
+        Thread writer = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B")));
+        writer.start();
+        saving.await();
+        employeeService.createEmployees(OTHER_ORGANISATION_ID, Collections.singletonMap("C", "D"));
+        commit.countDown();
+        writer.join();
+
+        // Then
+        Mockito.verify(employeeRepository).replaceAll(Mockito.eq(OTHER_ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+        Assert.assertEquals(employeeService.getEmployees(ORGANISATION_ID).keySet(), Collections.singleton("B"));
+    }
+
+    @Test
+    public void shouldApplyOnlyNewestOfWaitingUploads() throws Exception {
+        // Given
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).doNothing().when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        Thread firstWriter = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B")));
+        firstWriter.start();
+        saving.await();
+
+        // When
+        AtomicReference<RuntimeException> secondFailure = new AtomicReference<>();
+        Thread secondWriter = new Thread(() -> {
+            try {
+                employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("C", "D"));
+            } catch (RuntimeException ex) {
+                secondFailure.set(ex);
+            }
+        });
+        secondWriter.start();
+        awaitQueued(secondWriter);
+
+        AtomicReference<Map<String, Object>> thirdEmployees = new AtomicReference<>();
+        Thread thirdWriter = new Thread(() -> thirdEmployees.set(employeeService.createEmployees(ORGANISATION_ID,
+                Collections.singletonMap("E", "F")).getEmployees()));
+        thirdWriter.start();
+        awaitQueued(thirdWriter);
+
+        commit.countDown();
+        firstWriter.join();
+        secondWriter.join();
+        thirdWriter.join();
+
+        // Then
+        Assert.assertTrue(secondFailure.get() instanceof UploadSupersededException);
+        Assert.assertEquals(thirdEmployees.get().keySet(), Collections.singleton("F"));
+        Assert.assertEquals(employeeService.getEmployees(ORGANISATION_ID).keySet(), Collections.singleton("F"));
+        Mockito.verify(employeeRepository, Mockito.times(2)).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldSupersedeWaitingImportByNewerUpload() throws Exception {
+        // Given
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).doNothing().when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        Thread firstWriter = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B")));
+        firstWriter.start();
+        saving.await();
+
+        // When
+        EmployeeHierarchyBuilder employees = new EmployeeHierarchyBuilder().add("C", "D");
+        EmployeeImport employeeImport = new EmployeeImport("1", ORGANISATION_ID, employees.size());
+        AtomicReference<RuntimeException> importFailure = new AtomicReference<>();
+        Thread importer = new Thread(() -> {
+            try {
+                employeeService.importEmployees(ORGANISATION_ID, employees, employeeImport);
+            } catch (RuntimeException ex) {
+                importFailure.set(ex);
+            }
+        });
+        importer.start();
+        awaitQueued(importer);
+
+        Thread uploader = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("E", "F")));
+        uploader.start();
+        awaitQueued(uploader);
+
+        commit.countDown();
+        firstWriter.join();
+        importer.join();
+        uploader.join();
+
+        // Then
+        Assert.assertTrue(importFailure.get() instanceof UploadSupersededException);
+        Assert.assertEquals(employeeImport.getStatus(), EmployeeImport.Status.VALIDATING);
+        Assert.assertEquals(employeeService.getEmployees(ORGANISATION_ID).keySet(), Collections.singleton("F"));
+        Mockito.verify(employeeRepository, Mockito.times(2)).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldApplyUploadFollowedByUpdateInsteadOfSupersedingIt() throws Exception {
+        // Given
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).doNothing().when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        Thread firstWriter = new Thread(
+                () -> employeeService.createEmployees(ORGANISATION_ID, Collections.singletonMap("A", "B")));
+        firstWriter.start();
+        saving.await();
+
+        // When
+        AtomicReference<Map<String, Object>> uploadedEmployees = new AtomicReference<>();
+        Thread uploader = new Thread(() -> uploadedEmployees.set(employeeService.createEmployees(ORGANISATION_ID,
+                Collections.singletonMap("C", "D")).getEmployees()));
+        uploader.start();
+        awaitQueued(uploader);
+
+        AtomicReference<HierarchyChanges> updateChanges = new AtomicReference<>();
+        Thread updater = new Thread(() -> updateChanges.set(
+                employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("E", "C"))));
+        updater.start();
+        awaitQueued(updater);
+
+        commit.countDown();
+        firstWriter.join();
+        uploader.join();
+        updater.join();
+
+        // Then
+        Assert.assertEquals(uploadedEmployees.get().keySet(), Collections.singleton("D"));
+        Assert.assertEquals(updateChanges.get().getAdded(), Collections.singletonList("E"));
+        Assert.assertEquals(employeeService.getSupervisor(ORGANISATION_ID, "E", 2), "D");
+    }
+
+    @Test
+    public void shouldRejectWriteWhenQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            saving.countDown();
+            commit.await();
+            return null;
+        }).doNothing().when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i <= WRITE_QUEUE_CAPACITY; i++) {
+            Map<String, String> employees = Collections.singletonMap("E" + i, "S" + i);
+            Thread writer = new Thread(() -> {
+                try {
+                    employeeService.createEmployees(ORGANISATION_ID, employees);
+                } catch (UploadSupersededException ignored) {
+                    // Queued uploads but the newest are superseded
+                }
+            });
+            writers.add(writer);
+            writer.start();
+            if (i == 0) {
+                saving.await();
+            } else {
+                awaitQueued(writer);
+            }
+        }
+
+        // When
+        Assertions.assertThrows(WriteRejectedException.class,
+                () -> employeeService.updateEmployees(ORGANISATION_ID, Collections.singletonMap("X", "E0")));
+        commit.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Then
+        Assert.assertEquals(employeeService.getEmployees(ORGANISATION_ID).keySet(),
+                Collections.singleton("S" + WRITE_QUEUE_CAPACITY));
+    }
+
+    // Wait until thread queued its write and waits for the writer of the stripe
+    private static void awaitQueued(Thread thread) throws InterruptedException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        while (true) {
+            ThreadInfo threadInfo = threadMXBean.getThreadInfo(thread.getId());
+            if (threadInfo != null && threadInfo.getThreadState() == Thread.State.BLOCKED
+                    && threadInfo.getLockName().contains("WriteStripe")) {
+                return;
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    // Keep rows written to the repository mock, so that changes are planned against the stored nested set
+    private void storeRowsInRepository() {
+        Map<String, Employee> rows = new HashMap<>();
+        Mockito.doAnswer(invocation -> {
+            rows.clear();
+            invocation.<Collection<Employee>>getArgument(1).forEach(it -> rows.put(it.getEmployeeName(), it));
+            return null;
+        }).when(employeeRepository).replaceAll(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.anyLong());
+        Mockito.doAnswer(invocation -> {
+            invocation.<Collection<String>>getArgument(2).forEach(rows::remove);
+            invocation.<Collection<Employee>>getArgument(1).forEach(it -> rows.put(it.getEmployeeName(), it));
+            return null;
+        }).when(employeeRepository).applyChanges(Mockito.eq(ORGANISATION_ID), Mockito.any(), Mockito.any(), Mockito.anyLong());
+        Mockito.when(employeeRepository.findById(Mockito.any())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<EmployeeId>getArgument(0).getEmployeeName())));
+        Mockito.when(employeeRepository.findLastReport(Mockito.any())).thenAnswer(invocation -> rows.values().stream()
+                .filter(it -> invocation.<Employee>getArgument(0).getEmployeeName().equals(it.getSupervisorName()))
+                .max(Comparator.comparing(Employee::getLeftBound)));
+    }
 }